@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.http2;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.benchmarks.RequestFixtures;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks HPACK header compression and decompression.
+ * <p>
+ * The 'cold' variants use a new encoder or decoder for every invocation, which is the cost of the first
+ * request on a connection. The 'warm' encoder variant re-uses the encoder, so after the first invocation
+ * most headers are emitted as dynamic table references.
+ * <p>
+ * The 'small table' variants use a dynamic table that is too small to hold all the response headers, so values are
+ * evicted and encoded again on every invocation. They are run with and without the huffman cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HpackBenchmark {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int SMALL_TABLE_SIZE = 256;
+
+    @Param({"CHROME", "FIREFOX", "CURL", "API"})
+    private RequestFixtures request;
+
+    private HeaderMap requestHeaders;
+    private HeaderMap responseHeaders;
+    private HpackEncoder warmEncoder;
+    private HpackEncoder smallTableEncoder;
+    private HpackEncoder smallTableUncachedEncoder;
+    private ByteBuffer target;
+    private byte[] encodedRequest;
+    private ByteBuffer encodedRequestBuffer;
+
+    @Setup
+    public void setup() throws HpackException {
+        requestHeaders = request.headers();
+        requestHeaders.remove(Headers.HOST);
+        requestHeaders.remove(Headers.CONNECTION);
+        requestHeaders.put(Http2Channel.METHOD, "GET");
+        requestHeaders.put(Http2Channel.SCHEME, "https");
+        requestHeaders.put(Http2Channel.AUTHORITY, "shop.example.com");
+        requestHeaders.put(Http2Channel.PATH, "/catalog/products/index.html");
+
+        responseHeaders = new HeaderMap();
+        responseHeaders.put(Http2Channel.STATUS, "200");
+        responseHeaders.put(Headers.CONTENT_TYPE, "text/html; charset=UTF-8");
+        responseHeaders.put(Headers.CONTENT_LENGTH, "35417");
+        responseHeaders.put(Headers.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
+        responseHeaders.put(Headers.DATE, "Tue, 16 May 2017 10:15:30 GMT");
+        responseHeaders.put(Headers.SERVER, "undertow");
+        responseHeaders.put(Headers.SET_COOKIE, "JSESSIONID=pAhqQDGmjJyB0bQ0_hMvRjnN9JkPNXYiZ2Pt7wlQ; path=/; secure; HttpOnly");
+        responseHeaders.put(Headers.VARY, "Accept-Encoding");
+        responseHeaders.put(new HttpString("X-Frame-Options"), "SAMEORIGIN");
+
+        warmEncoder = new HpackEncoder(Hpack.DEFAULT_TABLE_SIZE);
+        smallTableEncoder = new HpackEncoder(SMALL_TABLE_SIZE, HpackEncoder.DEFAULT_HEADER_FUNCTION, HpackEncoder.DEFAULT_HUFFMAN_CACHE_SIZE);
+        smallTableUncachedEncoder = new HpackEncoder(SMALL_TABLE_SIZE, HpackEncoder.DEFAULT_HEADER_FUNCTION, 0);
+        target = ByteBuffer.allocate(BUFFER_SIZE);
+
+        ByteBuffer encoded = ByteBuffer.allocate(BUFFER_SIZE);
+        if (new HpackEncoder(Hpack.DEFAULT_TABLE_SIZE).encode(requestHeaders, encoded) != HpackEncoder.State.COMPLETE) {
+            throw new IllegalStateException();
+        }
+        encoded.flip();
+        encodedRequest = new byte[encoded.remaining()];
+        encoded.get(encodedRequest);
+        encodedRequestBuffer = ByteBuffer.wrap(encodedRequest);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeResponseCold() {
+        return encode(new HpackEncoder(Hpack.DEFAULT_TABLE_SIZE), responseHeaders);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeResponseWarm() {
+        return encode(warmEncoder, responseHeaders);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeResponseSmallTable() {
+        return encode(smallTableEncoder, responseHeaders);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeResponseSmallTableUncached() {
+        return encode(smallTableUncachedEncoder, responseHeaders);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeRequestCold() {
+        return encode(new HpackEncoder(Hpack.DEFAULT_TABLE_SIZE), requestHeaders);
+    }
+
+    @Benchmark
+    public HeaderMap decodeRequestCold() throws HpackException {
+        final HeaderMap result = new HeaderMap();
+        HpackDecoder decoder = new HpackDecoder(Hpack.DEFAULT_TABLE_SIZE);
+        decoder.setHeaderEmitter(new HpackDecoder.HeaderEmitter() {
+            @Override
+            public void emitHeader(HttpString name, String value, boolean neverIndex) {
+                result.add(name, value);
+            }
+        });
+        encodedRequestBuffer.clear();
+        decoder.decode(encodedRequestBuffer, false);
+        return result;
+    }
+
+    private ByteBuffer encode(HpackEncoder encoder, HeaderMap headers) {
+        target.clear();
+        if (encoder.encode(headers, target) != HpackEncoder.State.COMPLETE) {
+            throw new IllegalStateException();
+        }
+        return target;
+    }
+}
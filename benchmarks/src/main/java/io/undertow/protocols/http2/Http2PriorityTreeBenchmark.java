@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.http2;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks HTTP2 frame scheduling with large numbers of concurrent streams.
+ * <p>
+ * Half of the streams depend on the root, the rest depend on a random earlier stream, with random weights.
+ * The 'reprioritized' variant sends a PRIORITY frame before every frame, so the cached shares can never be used.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Http2PriorityTreeBenchmark {
+
+    private static final int FRAME_SIZE = 16384;
+
+    @Param({"100", "1000"})
+    private int streams;
+
+    private Http2PriorityTree tree;
+    private int[] streamIds;
+    private int[] dependencies;
+    private int[] weights;
+    private int next;
+    private int nextNewStreamId;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        tree = new Http2PriorityTree();
+        streamIds = new int[streams];
+        dependencies = new int[streams];
+        weights = new int[streams];
+        for (int i = 0; i < streams; ++i) {
+            streamIds[i] = i * 2 + 1;
+            dependencies[i] = i % 2 == 0 ? 0 : streamIds[random.nextInt(i)];
+            weights[i] = random.nextInt(256) + 1;
+            tree.registerStream(streamIds[i], dependencies[i], weights[i], false);
+        }
+        nextNewStreamId = streams * 2 + 1;
+    }
+
+    @Benchmark
+    public double scheduleFrame() {
+        int streamId = streamIds[nextIndex()];
+        double finishTime = tree.scheduleFrame(streamId, FRAME_SIZE);
+        tree.frameSent(finishTime);
+        return finishTime;
+    }
+
+    @Benchmark
+    public double scheduleFrameReprioritized() {
+        int index = nextIndex();
+        int streamId = streamIds[index];
+        tree.priorityFrame(streamId, dependencies[index], weights[index], false);
+        double finishTime = tree.scheduleFrame(streamId, FRAME_SIZE);
+        tree.frameSent(finishTime);
+        return finishTime;
+    }
+
+    @Benchmark
+    public double openAndCloseStream() {
+        int streamId = nextNewStreamId;
+        nextNewStreamId += 2;
+        tree.registerStream(streamId, streamIds[nextIndex()], Http2PriorityTree.DEFAULT_WEIGHT, false);
+        double finishTime = tree.scheduleFrame(streamId, FRAME_SIZE);
+        tree.frameSent(finishTime);
+        tree.streamRemoved(streamId);
+        return finishTime;
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == streams ? 0 : index + 1;
+        return index;
+    }
+}
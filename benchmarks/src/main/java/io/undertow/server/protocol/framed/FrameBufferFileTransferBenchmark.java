@@ -0,0 +1,142 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.protocol.framed;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the two ways a framed sink channel can move a file into its frame buffers. <code>transferTo</code> is
+ * what {@link FileChannel#transferTo(long, long, WritableByteChannel)} does when the target is a stream sink channel:
+ * the JDK reads into a temporary buffer and the channel copies that into the frame buffer. <code>readIntoFrameBuffer</code>
+ * is what {@link AbstractFramedStreamSinkChannel#transferFrom(FileChannel, long, long)} does, reading straight into
+ * the frame buffer.
+ * <p>
+ * The file is small enough to stay in the page cache, so this measures the copies rather than the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameBufferFileTransferBenchmark {
+
+    private static final int FRAME_BUFFER_SIZE = 16 * 1024;
+
+    @Param({"65536", "1048576"})
+    private int fileSize;
+
+    private Path file;
+    private FileChannel fileChannel;
+    private ByteBuffer frameBuffer;
+    private FrameBufferChannel target;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] data = new byte[fileSize];
+        new Random(1).nextBytes(data);
+        file = Files.createTempFile("frame-buffer-transfer", ".bin");
+        Files.write(file, data);
+        fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        frameBuffer = ByteBuffer.allocateDirect(FRAME_BUFFER_SIZE);
+        target = new FrameBufferChannel(frameBuffer);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileChannel.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        long position = 0;
+        while (position < fileSize) {
+            frameBuffer.clear();
+            position += fileChannel.transferTo(position, fileSize - position, target);
+        }
+        return position;
+    }
+
+    @Benchmark
+    public long readIntoFrameBuffer() throws IOException {
+        long position = 0;
+        while (position < fileSize) {
+            frameBuffer.clear();
+            position += fileChannel.read(frameBuffer, position);
+        }
+        return position;
+    }
+
+    /**
+     * Copies everything that is written into the frame buffer until it is full, like a framed stream sink channel.
+     */
+    private static final class FrameBufferChannel implements WritableByteChannel {
+
+        private final ByteBuffer frameBuffer;
+
+        FrameBufferChannel(ByteBuffer frameBuffer) {
+            this.frameBuffer = frameBuffer;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = Math.min(src.remaining(), frameBuffer.remaining());
+            if (length == src.remaining()) {
+                frameBuffer.put(src);
+            } else {
+                ByteBuffer slice = src.duplicate();
+                slice.limit(slice.position() + length);
+                frameBuffer.put(slice);
+                src.position(src.position() + length);
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.protocol.http;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.UndertowOptions;
+import io.undertow.benchmarks.RequestFixtures;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.BadRequestException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xnio.OptionMap;
+
+/**
+ * Benchmarks the HTTP/1.1 request parser, including the state machine that is generated by the
+ * parser-generator annotation processor.
+ * <p>
+ * This lives in the parser package so it can drive {@link ParseState} directly, the same way
+ * {@link HttpReadListener} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpRequestParserBenchmark {
+
+    @Param({"CHROME", "FIREFOX", "CURL", "API"})
+    private RequestFixtures request;
+
+    /**
+     * The size of the chunks used by {@link #parseFragmented()}, this simulates a request that arrives
+     * over multiple reads.
+     */
+    @Param({"64"})
+    private int fragmentSize;
+
+    private HttpRequestParser parser;
+    private ParseState parseState;
+    private ByteBuffer heap;
+    private ByteBuffer direct;
+    private ByteBuffer[] fragments;
+
+    @Setup
+    public void setup() {
+        parser = HttpRequestParser.instance(OptionMap.EMPTY);
+        parseState = new ParseState(UndertowOptions.DEFAULT_HTTP_HEADERS_CACHE_SIZE);
+        heap = request.heapBuffer();
+        direct = request.directBuffer();
+        byte[] data = request.getBytes();
+        fragments = new ByteBuffer[(data.length + fragmentSize - 1) / fragmentSize];
+        for (int i = 0; i < fragments.length; ++i) {
+            int start = i * fragmentSize;
+            fragments[i] = ByteBuffer.wrap(data, start, Math.min(fragmentSize, data.length - start)).slice();
+        }
+    }
+
+    @Benchmark
+    public HttpServerExchange parseHeapBuffer() throws BadRequestException {
+        return parse(heap);
+    }
+
+    @Benchmark
+    public HttpServerExchange parseDirectBuffer() throws BadRequestException {
+        return parse(direct);
+    }
+
+    @Benchmark
+    public HttpServerExchange parseFragmented() throws BadRequestException {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        parseState.reset();
+        for (ByteBuffer fragment : fragments) {
+            fragment.clear();
+            parser.handle(fragment, parseState, exchange);
+        }
+        checkComplete();
+        return exchange;
+    }
+
+    private HttpServerExchange parse(ByteBuffer buffer) throws BadRequestException {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        parseState.reset();
+        buffer.clear();
+        parser.handle(buffer, parseState, exchange);
+        checkComplete();
+        return exchange;
+    }
+
+    private void checkComplete() {
+        if (!parseState.isComplete()) {
+            throw new IllegalStateException("Request was not fully parsed");
+        }
+    }
+}
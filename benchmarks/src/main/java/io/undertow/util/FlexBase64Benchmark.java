@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.undertow.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link FlexBase64} encoding and decoding. The small size matches a basic auth header or
+ * websocket key, the larger size a bearer token or session cookie.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlexBase64Benchmark {
+
+    @Param({"16", "256", "4096"})
+    private int size;
+
+    private byte[] data;
+    private String encoded;
+    private String encodedUrl;
+    private ByteBuffer encodedBuffer;
+
+    @Setup
+    public void setup() {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        encoded = FlexBase64.encodeString(data, false);
+        encodedUrl = FlexBase64.encodeStringURL(data, false);
+        encodedBuffer = ByteBuffer.wrap(encoded.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public String encodeString() {
+        return FlexBase64.encodeString(data, false);
+    }
+
+    @Benchmark
+    public String encodeStringWrapped() {
+        return FlexBase64.encodeString(data, true);
+    }
+
+    @Benchmark
+    public String encodeStringURL() {
+        return FlexBase64.encodeStringURL(data, false);
+    }
+
+    @Benchmark
+    public byte[] encodeBytes() {
+        return FlexBase64.encodeBytes(data, 0, data.length, false);
+    }
+
+    @Benchmark
+    public ByteBuffer decodeString() throws IOException {
+        return FlexBase64.decode(encoded);
+    }
+
+    @Benchmark
+    public ByteBuffer decodeStringURL() throws IOException {
+        return FlexBase64.decodeURL(encodedUrl);
+    }
+
+    @Benchmark
+    public ByteBuffer decodeBuffer() throws IOException {
+        encodedBuffer.clear();
+        return FlexBase64.decode(encodedBuffer);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.undertow.util;
+
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.benchmarks.RequestFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the common {@link HeaderMap} operations, using the headers from real requests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderMapBenchmark {
+
+    @Param({"CHROME", "FIREFOX", "CURL", "API"})
+    private RequestFixtures request;
+
+    private HttpString[] names;
+    private String[] values;
+    private HeaderMap populated;
+
+    @Setup
+    public void setup() {
+        populated = request.headers();
+        names = new HttpString[populated.size()];
+        values = new String[populated.size()];
+        int i = 0;
+        for (HeaderValues header : populated) {
+            names[i] = header.getHeaderName();
+            values[i++] = header.getFirst();
+        }
+    }
+
+    @Benchmark
+    public HeaderMap put() {
+        HeaderMap map = new HeaderMap();
+        for (int i = 0; i < names.length; ++i) {
+            map.put(names[i], values[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public HeaderMap add() {
+        HeaderMap map = new HeaderMap();
+        for (int i = 0; i < names.length; ++i) {
+            map.add(names[i], values[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public void getFirst(Blackhole blackhole) {
+        for (HttpString name : names) {
+            blackhole.consume(populated.getFirst(name));
+        }
+    }
+
+    @Benchmark
+    public void getFirstByString(Blackhole blackhole) {
+        for (int i = 0; i < names.length; ++i) {
+            blackhole.consume(populated.getFirst(names[i].toString()));
+        }
+    }
+
+    @Benchmark
+    public void getMissing(Blackhole blackhole) {
+        blackhole.consume(populated.getFirst(Headers.TRANSFER_ENCODING));
+        blackhole.consume(populated.getFirst(Headers.CONTENT_ENCODING));
+        blackhole.consume(populated.getFirst(Headers.UPGRADE));
+    }
+
+    @Benchmark
+    public void fastIterate(Blackhole blackhole) {
+        for (long it = populated.fastIterateNonEmpty(); it != -1; it = populated.fiNextNonEmpty(it)) {
+            blackhole.consume(populated.fiCurrent(it).getFirst());
+        }
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (HeaderValues header : populated) {
+            blackhole.consume(header.getFirst());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.undertow.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.benchmarks.RequestFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link HttpString} construction, which is where the hash code is computed, and the
+ * hash based comparisons that header lookups rely on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpStringBenchmark {
+
+    @Param({"CHROME", "API"})
+    private RequestFixtures request;
+
+    private byte[][] nameBytes;
+    private String[] nameStrings;
+    private HttpString[] names;
+    private HttpString[] copies;
+
+    @Setup
+    public void setup() {
+        HeaderMap headers = request.headers();
+        nameBytes = new byte[headers.size()][];
+        nameStrings = new String[headers.size()];
+        names = new HttpString[headers.size()];
+        copies = new HttpString[headers.size()];
+        int i = 0;
+        for (HeaderValues header : headers) {
+            names[i] = header.getHeaderName();
+            nameStrings[i] = names[i].toString();
+            nameBytes[i] = nameStrings[i].getBytes(StandardCharsets.US_ASCII);
+            copies[i] = new HttpString(nameBytes[i]);
+            ++i;
+        }
+    }
+
+    @Benchmark
+    public void fromBytes(Blackhole blackhole) {
+        for (byte[] name : nameBytes) {
+            blackhole.consume(new HttpString(name));
+        }
+    }
+
+    @Benchmark
+    public void fromString(Blackhole blackhole) {
+        for (String name : nameStrings) {
+            blackhole.consume(new HttpString(name));
+        }
+    }
+
+    @Benchmark
+    public void tryFromString(Blackhole blackhole) {
+        for (String name : nameStrings) {
+            blackhole.consume(HttpString.tryFromString(name));
+        }
+    }
+
+    @Benchmark
+    public void hashCodeAndEquals(Blackhole blackhole) {
+        for (int i = 0; i < names.length; ++i) {
+            blackhole.consume(names[i].hashCode() == copies[i].hashCode() && names[i].equals(copies[i]));
+        }
+    }
+
+    @Benchmark
+    public void equalToString(Blackhole blackhole) {
+        for (int i = 0; i < names.length; ++i) {
+            blackhole.consume(names[i].equalToString(nameStrings[i]));
+        }
+    }
+}
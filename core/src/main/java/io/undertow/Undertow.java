@@ -18,6 +18,8 @@
 
 package io.undertow;
 
+import io.undertow.protocols.ssl.SSLEngineFactory;
+import io.undertow.protocols.ssl.SessionTicketKeyRotator;
 import io.undertow.protocols.ssl.UndertowXnioSsl;
 import io.undertow.server.ConnectorStatistics;
 import io.undertow.server.DefaultByteBufferPool;
@@ -41,7 +43,6 @@ import org.xnio.XnioWorker;
 import org.xnio.channels.AcceptingChannel;
 import org.xnio.ssl.JsseSslUtils;
 import org.xnio.ssl.SslConnection;
-import org.xnio.ssl.XnioSsl;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
@@ -51,8 +52,12 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Convenience class used to build an Undertow server.
@@ -72,6 +77,7 @@ public final class Undertow {
     private final OptionMap workerOptions;
     private final OptionMap socketOptions;
     private final OptionMap serverOptions;
+    private final SSLEngineFactory sslEngineFactory;
 
     /**
      * Will be true when a {@link XnioWorker} instance was NOT provided to the {@link Builder}.
@@ -86,6 +92,7 @@ public final class Undertow {
 
     private XnioWorker worker;
     private List<AcceptingChannel<? extends StreamConnection>> channels;
+    private SessionTicketKeyRotator sessionTicketKeyRotator;
     private Xnio xnio;
 
     private Undertow(Builder builder) {
@@ -100,6 +107,7 @@ public final class Undertow {
         this.workerOptions = builder.workerOptions.getMap();
         this.socketOptions = builder.socketOptions.getMap();
         this.serverOptions = builder.serverOptions.getMap();
+        this.sslEngineFactory = builder.sslEngineFactory;
     }
 
     /**
@@ -145,6 +153,8 @@ public final class Undertow {
 
             ByteBufferPool buffers = new DefaultByteBufferPool(directBuffers, bufferSize, -1, 4);
 
+            //listeners that use the same key material share an SSL context, so sessions can be resumed on any of them
+            Map<List<Object>, SSLContext> sslContexts = new HashMap<>();
             listenerInfo = new ArrayList<>();
             for (ListenerConfig listener : listeners) {
                 UndertowLogger.ROOT_LOGGER.debugf("Configuring listener with protocol %s for interface %s and port %s", listener.type, listener.host, listener.port);
@@ -193,12 +203,26 @@ public final class Undertow {
                             openListener = httpOpenListener;
                         }
                         ChannelListener<AcceptingChannel<StreamConnection>> acceptListener = ChannelListeners.openListenerAdapter(openListener);
-                        XnioSsl xnioSsl;
-                        if (listener.sslContext != null) {
-                            xnioSsl = new UndertowXnioSsl(xnio, OptionMap.create(Options.USE_DIRECT_BUFFERS, true), listener.sslContext);
+                        SSLContext sslContext = listener.sslContext;
+                        if (sslContext == null) {
+                            List<Object> key = Arrays.<Object>asList(listener.keyManagers == null ? null : Arrays.asList(listener.keyManagers), listener.trustManagers == null ? null : Arrays.asList(listener.trustManagers));
+                            sslContext = sslContexts.get(key);
+                            if (sslContext == null) {
+                                sslContext = JsseSslUtils.createSSLContext(listener.keyManagers, listener.trustManagers, new SecureRandom(), OptionMap.create(Options.USE_DIRECT_BUFFERS, true));
+                                sslContexts.put(key, sslContext);
+                            }
+                        }
+                        UndertowXnioSsl xnioSsl;
+                        if (sslEngineFactory != null) {
+                            xnioSsl = new UndertowXnioSsl(xnio, OptionMap.create(Options.USE_DIRECT_BUFFERS, true), sslContext, sslEngineFactory);
                         } else {
-
-                            xnioSsl = new UndertowXnioSsl(xnio, OptionMap.create(Options.USE_DIRECT_BUFFERS, true), JsseSslUtils.createSSLContext(listener.keyManagers, listener.trustManagers, new SecureRandom(), OptionMap.create(Options.USE_DIRECT_BUFFERS, true)));
+                            xnioSsl = new UndertowXnioSsl(xnio, OptionMap.create(Options.USE_DIRECT_BUFFERS, true), sslContext);
+                        }
+                        if (serverOptions.get(UndertowOptions.SSL_SESSION_TICKET_KEY_ROTATION_INTERVAL, 0) > 0) {
+                            if (sessionTicketKeyRotator == null) {
+                                sessionTicketKeyRotator = new SessionTicketKeyRotator();
+                            }
+                            sessionTicketKeyRotator.addEngineFactory(xnioSsl.getEngineFactory());
                         }
                         OptionMap socketOptionsWithOverrides = OptionMap.builder().addAll(socketOptions).addAll(listener.overrideSocketOptions).getMap();
                         AcceptingChannel<SslConnection> sslServer = xnioSsl.createSslConnectionServer(worker, new InetSocketAddress(Inet4Address.getByName(listener.host), listener.port), (ChannelListener) acceptListener, socketOptionsWithOverrides);
@@ -209,6 +233,9 @@ public final class Undertow {
                 }
 
             }
+            if (sessionTicketKeyRotator != null) {
+                sessionTicketKeyRotator.start(worker.getIoThread(), serverOptions.get(UndertowOptions.SSL_SESSION_TICKET_KEY_ROTATION_INTERVAL, 0), TimeUnit.MILLISECONDS);
+            }
 
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -217,6 +244,10 @@ public final class Undertow {
 
     public synchronized void stop() {
         UndertowLogger.ROOT_LOGGER.debugf("stopping undertow server %s", this);
+        if (sessionTicketKeyRotator != null) {
+            sessionTicketKeyRotator.stop();
+            sessionTicketKeyRotator = null;
+        }
         if (channels != null) {
             for (AcceptingChannel<? extends StreamConnection> channel : channels) {
                 IoUtils.safeClose(channel);
@@ -362,6 +393,7 @@ public final class Undertow {
         private final List<ListenerConfig> listeners = new ArrayList<>();
         private HttpHandler handler;
         private XnioWorker worker;
+        private SSLEngineFactory sslEngineFactory;
 
         private final OptionMap.Builder workerOptions = OptionMap.builder();
         private final OptionMap.Builder socketOptions = OptionMap.builder();
@@ -469,6 +501,18 @@ public final class Undertow {
             return this;
         }
 
+        /**
+         * Sets the factory that creates the SSL engines for HTTPS listeners. If this is not set the factory that is
+         * registered as a service is used, or JSSE if there is none.
+         *
+         * @param sslEngineFactory The SSL engine factory
+         * @return this builder
+         */
+        public Builder setSslEngineFactory(final SSLEngineFactory sslEngineFactory) {
+            this.sslEngineFactory = sslEngineFactory;
+            return this;
+        }
+
         public Builder setDirectBuffers(final boolean directBuffers) {
             this.directBuffers = directBuffers;
             return this;
@@ -516,4 +516,13 @@ public interface UndertowMessages {
 
     @Message(id = 162, value = "Same-site attribute %s is invalid. It must be Strict or Lax")
     IllegalArgumentException invalidSameSiteMode(String mode);
+
+    @Message(id = 163, value = "Failed to deserialize session attribute %s")
+    IllegalStateException failedToDeserializeSessionAttribute(String name, @Cause Exception cause);
+
+    @Message(id = 164, value = "Event was dropped as the connection has %s events queued")
+    IOException eventQueueFull(int queued);
+
+    @Message(id = 165, value = "Session attributes have already been released")
+    IllegalStateException sessionAttributesReleased();
 }
@@ -56,6 +56,14 @@ public class UndertowOptions {
      */
     public static final Option<Boolean> BUFFER_PIPELINED_DATA = Option.simple(UndertowOptions.class, "BUFFER_PIPELINED_DATA", Boolean.class);
 
+    /**
+     * If responses to pipelined requests should be batched into a single write only while the client is actually
+     * pipelining. Once a batch of pipelined requests has been answered and flushed the connection goes back to writing
+     * responses directly, so later streaming responses on the same connection are not held back by the buffer. This has
+     * no effect if {@link #BUFFER_PIPELINED_DATA} is set. Defaults to false.
+     */
+    public static final Option<Boolean> ADAPTIVE_PIPELINED_DATA_BUFFERING = Option.simple(UndertowOptions.class, "ADAPTIVE_PIPELINED_DATA_BUFFERING", Boolean.class);
+
     /**
      * The idle timeout in milliseconds after which the channel will be closed.
      *
@@ -252,7 +260,21 @@ public class UndertowOptions {
     public static final Option<Integer> HTTP2_PADDING_SIZE = Option.simple(UndertowOptions.class, "HTTP2_PADDING_SIZE", Integer.class);
 
     /**
-     * Undertow keeps a LRU cache of common huffman encodings. This sets the maximum size, setting this to 0 will disable the caching.
+     * If the HTTP2 receive window should be grown based on the bandwidth-delay product of the connection, which is
+     * estimated by measuring PING round trips while data is being received. This allows large uploads over links
+     * with high bandwidth and high latency to use the available bandwidth. Defaults to false.
+     */
+    public static final Option<Boolean> HTTP2_RECEIVE_WINDOW_AUTO_TUNING = Option.simple(UndertowOptions.class, "HTTP2_RECEIVE_WINDOW_AUTO_TUNING", Boolean.class);
+
+    /**
+     * The maximum size that the HTTP2 receive window will be grown to if {@link #HTTP2_RECEIVE_WINDOW_AUTO_TUNING}
+     * is enabled. This limits the amount of data that can be buffered for a single connection. Defaults to 16MB.
+     */
+    public static final Option<Integer> HTTP2_MAX_RECEIVE_WINDOW_SIZE = Option.simple(UndertowOptions.class, "HTTP2_MAX_RECEIVE_WINDOW_SIZE", Integer.class);
+
+    /**
+     * Undertow keeps a per connection LRU cache of common huffman encodings of header values. This sets the maximum size,
+     * setting this to 0 will disable the caching. Defaults to 32.
      *
      */
     public static final Option<Integer> HTTP2_HUFFMAN_CACHE_SIZE = Option.simple(UndertowOptions.class, "HTTP2_HUFFMAN_CACHE_SIZE", Integer.class);
@@ -276,6 +298,14 @@ public class UndertowOptions {
      */
     public static final Option<Integer> MAX_QUEUED_READ_BUFFERS = Option.simple(UndertowOptions.class, "MAX_QUEUED_READ_BUFFERS", Integer.class);
 
+    /**
+     * If this is true framed protocols (HTTP2 and web sockets) will read into a small per IO thread buffer when they
+     * have no buffered data, and only allocate a buffer from the pool once data has actually arrived. This means idle
+     * connections do not allocate a buffer every time they are woken up, at the expense of a small copy for every
+     * read. Defaults to false.
+     */
+    public static final Option<Boolean> LAZY_READ_BUFFERS = Option.simple(UndertowOptions.class, "LAZY_READ_BUFFERS", Boolean.class);
+
     /**
      * The maximum AJP packet size, default is 8192
      */
@@ -300,11 +330,35 @@ public class UndertowOptions {
      */
     public static final Option<Integer> HTTP_HEADERS_CACHE_SIZE = Option.simple(UndertowOptions.class, "HTTP_HEADERS_CACHE_SIZE", Integer.class);
 
+    /**
+     * The number of entries in the header value cache that is shared by all HTTP/1.1 connections of a listener. Only the
+     * values of common request headers such as User-Agent and Accept are cached, so they do not need to be decoded
+     * again on every new connection. Defaults to 0, which disables the shared cache.
+     */
+    public static final Option<Integer> SHARED_HTTP_HEADERS_CACHE_SIZE = Option.simple(UndertowOptions.class, "SHARED_HTTP_HEADERS_CACHE_SIZE", Integer.class);
+
     /**
      * If the SSLEngine should prefer the servers cipher version. Only applicable on JDK8+.
      */
     public static final Option<Boolean> SSL_USER_CIPHER_SUITES_ORDER = Option.simple(UndertowOptions.class, "SSL_USER_CIPHER_SUITES_ORDER", Boolean.class);
 
+    /**
+     * The maximum number of TLS records that are wrapped before they are written to the socket. If this is larger than
+     * one then outbound data is wrapped into a dedicated pool of direct buffers that are big enough to hold this many
+     * records, so large writes result in fewer system calls. Defaults to 1.
+     */
+    public static final Option<Integer> SSL_BATCHED_WRAP_RECORDS = Option.simple(UndertowOptions.class, "SSL_BATCHED_WRAP_RECORDS", Integer.class);
+
+    /**
+     * The interval in milliseconds at which the keys that protect TLS session tickets are rotated. If this is set the
+     * {@link io.undertow.Undertow} server generates the ticket keys itself and shares them between all of its HTTPS
+     * listeners. The keys are only used by SSL engine factories that support setting them, JSSE ignores them. Defaults
+     * to 0, which disables key rotation.
+     *
+     * @see io.undertow.protocols.ssl.SessionTicketKeyRotator
+     */
+    public static final Option<Integer> SSL_SESSION_TICKET_KEY_ROTATION_INTERVAL = Option.simple(UndertowOptions.class, "SSL_SESSION_TICKET_KEY_ROTATION_INTERVAL", Integer.class);
+
     private UndertowOptions() {
 
     }
@@ -48,6 +48,16 @@ public class BytesSentAttribute implements ExchangeAttribute {
         }
     }
 
+    @Override
+    public void appendAttribute(final HttpServerExchange exchange, final StringBuilder sb) {
+        long bytesSent = exchange.getResponseBytesSent();
+        if (dashIfZero && bytesSent == 0) {
+            sb.append('-');
+        } else {
+            sb.append(bytesSent);
+        }
+    }
+
     @Override
     public void writeAttribute(final HttpServerExchange exchange, final String newValue) throws ReadOnlyAttributeException {
         throw new ReadOnlyAttributeException("Bytes sent", newValue);
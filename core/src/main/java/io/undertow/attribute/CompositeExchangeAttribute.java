@@ -27,6 +27,21 @@ import io.undertow.server.HttpServerExchange;
  */
 public class CompositeExchangeAttribute implements ExchangeAttribute {
 
+    /**
+     * Builders larger than this are not kept for reuse, so a single very long value does not pin memory on the thread.
+     */
+    private static final int MAX_CACHED_BUILDER_CAPACITY = 4096;
+
+    /**
+     * Per thread builder that is reused between calls, so rendering an attribute only allocates the resulting string.
+     */
+    private static final ThreadLocal<StringBuilder> CACHED_BUILDER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
     private final ExchangeAttribute[] attributes;
 
     public CompositeExchangeAttribute(ExchangeAttribute[] attributes) {
@@ -37,14 +52,30 @@ public class CompositeExchangeAttribute implements ExchangeAttribute {
 
     @Override
     public String readAttribute(HttpServerExchange exchange) {
-        final StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < attributes.length; ++i) {
-            final String val = attributes[i].readAttribute(exchange);
-            if(val != null) {
-                sb.append(val);
+        StringBuilder sb = CACHED_BUILDER.get();
+        if(sb.length() != 0) {
+            //the cached builder is in use further up the stack
+            sb = new StringBuilder();
+            appendAttribute(exchange, sb);
+            return sb.toString();
+        }
+        try {
+            appendAttribute(exchange, sb);
+            return sb.toString();
+        } finally {
+            if(sb.capacity() > MAX_CACHED_BUILDER_CAPACITY) {
+                CACHED_BUILDER.remove();
+            } else {
+                sb.setLength(0);
             }
         }
-        return sb.toString();
+    }
+
+    @Override
+    public void appendAttribute(HttpServerExchange exchange, StringBuilder sb) {
+        for (int i = 0; i < attributes.length; ++i) {
+            attributes[i].appendAttribute(exchange, sb);
+        }
     }
 
     @Override
@@ -38,6 +38,13 @@ public class ConstantExchangeAttribute implements ExchangeAttribute {
         return value;
     }
 
+    @Override
+    public void appendAttribute(final HttpServerExchange exchange, final StringBuilder sb) {
+        if (value != null) {
+            sb.append(value);
+        }
+    }
+
     @Override
     public void writeAttribute(final HttpServerExchange exchange, final String newValue) throws ReadOnlyAttributeException {
         throw new ReadOnlyAttributeException("constant", newValue);
@@ -66,7 +66,7 @@ public class DateTimeAttribute implements ExchangeAttribute {
     @Override
     public String readAttribute(final HttpServerExchange exchange) {
         if(dateFormat == null) {
-            return DateUtils.toCommonLogFormat(new Date());
+            return DateUtils.toCommonLogFormat(System.currentTimeMillis());
         } else {
             final SimpleDateFormat dateFormat = this.cachedFormat.get();
             return dateFormat.format(new Date());
@@ -35,6 +35,22 @@ public interface ExchangeAttribute {
      */
     String readAttribute(final HttpServerExchange exchange);
 
+    /**
+     * Appends the attribute to the given builder. Nothing is appended if the attribute is not present.
+     * <p>
+     * This is used when attributes are combined into a larger string, such as an access log line. Attributes that
+     * can be rendered without creating an intermediate string should override this.
+     *
+     * @param exchange The exchange
+     * @param sb       The builder to append to
+     */
+    default void appendAttribute(final HttpServerExchange exchange, final StringBuilder sb) {
+        final String val = readAttribute(exchange);
+        if (val != null) {
+            sb.append(val);
+        }
+    }
+
     /**
      * Sets a new value for the attribute. Not all attributes are writable.
      * @param exchange The exchange
@@ -41,6 +41,11 @@ public class ResponseCodeAttribute implements ExchangeAttribute {
         return Integer.toString(exchange.getStatusCode());
     }
 
+    @Override
+    public void appendAttribute(final HttpServerExchange exchange, final StringBuilder sb) {
+        sb.append(exchange.getStatusCode());
+    }
+
     @Override
     public void writeAttribute(final HttpServerExchange exchange, final String newValue) throws ReadOnlyAttributeException {
         exchange.setStatusCode(Integer.parseInt(newValue));
@@ -49,20 +49,38 @@ public class ResponseTimeAttribute implements ExchangeAttribute {
         final long nanos = System.nanoTime() - requestStartTime;
         if(timeUnit == TimeUnit.SECONDS) {
             StringBuilder buf = new StringBuilder();
-            long milis = TimeUnit.MILLISECONDS.convert(nanos, TimeUnit.NANOSECONDS);
-            buf.append(Long.toString(milis / 1000));
-            buf.append('.');
-            int remains = (int) (milis % 1000);
-            buf.append(Long.toString(remains / 100));
-            remains = remains % 100;
-            buf.append(Long.toString(remains / 10));
-            buf.append(Long.toString(remains % 10));
+            appendSeconds(nanos, buf);
             return buf.toString();
         } else {
             return String.valueOf(timeUnit.convert(nanos, TimeUnit.NANOSECONDS));
         }
     }
 
+    @Override
+    public void appendAttribute(HttpServerExchange exchange, StringBuilder sb) {
+        long requestStartTime = exchange.getRequestStartTime();
+        if(requestStartTime == -1) {
+            return;
+        }
+        final long nanos = System.nanoTime() - requestStartTime;
+        if(timeUnit == TimeUnit.SECONDS) {
+            appendSeconds(nanos, sb);
+        } else {
+            sb.append(timeUnit.convert(nanos, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private static void appendSeconds(long nanos, StringBuilder buf) {
+        long milis = TimeUnit.MILLISECONDS.convert(nanos, TimeUnit.NANOSECONDS);
+        buf.append(milis / 1000);
+        buf.append('.');
+        int remains = (int) (milis % 1000);
+        buf.append(remains / 100);
+        remains = remains % 100;
+        buf.append(remains / 10);
+        buf.append(remains % 10);
+    }
+
     @Override
     public void writeAttribute(HttpServerExchange exchange, String newValue) throws ReadOnlyAttributeException {
         throw new ReadOnlyAttributeException("Response Time", newValue);
@@ -36,6 +36,15 @@ public class SubstituteEmptyWrapper implements ExchangeAttributeWrapper {
             return val;
         }
 
+        @Override
+        public void appendAttribute(HttpServerExchange exchange, StringBuilder sb) {
+            int length = sb.length();
+            attribute.appendAttribute(exchange, sb);
+            if(sb.length() == length) {
+                sb.append(substitute);
+            }
+        }
+
         @Override
         public void writeAttribute(HttpServerExchange exchange, String newValue) throws ReadOnlyAttributeException {
             attribute.writeAttribute(exchange, newValue);
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.conduits;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+
+import org.xnio.XnioIoThread;
+
+/**
+ * A pool of raw (nowrap) {@link Deflater} instances that all use the same compression level.
+ * <p>
+ * Deflaters hold native memory that is only freed when they are ended, so rather than creating a new one for every
+ * response they are reset and reused. Each IO thread keeps its own small pool, so allocating and freeing never
+ * contends between IO threads. If a thread's pool is already full the deflater is ended straight away. Deflaters used
+ * on any other thread, such as a worker thread, are not pooled and are ended when they are freed.
+ */
+public class DeflaterPool {
+
+    public static final int DEFAULT_MAX_POOLED_PER_THREAD = 4;
+
+    private final int level;
+    private final int maxPooledPerThread;
+    private final ThreadLocal<ArrayDeque<Deflater>> pooled = new ThreadLocal<ArrayDeque<Deflater>>() {
+        @Override
+        protected ArrayDeque<Deflater> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    public DeflaterPool(int level) {
+        this(level, DEFAULT_MAX_POOLED_PER_THREAD);
+    }
+
+    public DeflaterPool(int level, int maxPooledPerThread) {
+        this.level = level;
+        this.maxPooledPerThread = maxPooledPerThread;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public Deflater allocate() {
+        if (!(Thread.currentThread() instanceof XnioIoThread)) {
+            return new Deflater(level, true);
+        }
+        Deflater deflater = pooled.get().poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        return deflater;
+    }
+
+    /**
+     * Returns a deflater to the pool. The deflater must not be used by the caller after this method has been called.
+     *
+     * @param deflater The deflater
+     */
+    public void free(Deflater deflater) {
+        if (!(Thread.currentThread() instanceof XnioIoThread)) {
+            deflater.end();
+            return;
+        }
+        ArrayDeque<Deflater> queue = pooled.get();
+        if (queue.size() < maxPooledPerThread) {
+            deflater.reset();
+            queue.push(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+}
@@ -53,6 +53,7 @@ import io.undertow.util.Headers;
 public class DeflatingStreamSinkConduit implements StreamSinkConduit {
 
     protected final Deflater deflater;
+    private final DeflaterPool deflaterPool;
     private final ConduitFactory<StreamSinkConduit> conduitFactory;
     private final HttpServerExchange exchange;
 
@@ -83,7 +84,19 @@ public class DeflatingStreamSinkConduit implements StreamSinkConduit {
     }
 
     public DeflatingStreamSinkConduit(final ConduitFactory<StreamSinkConduit> conduitFactory, final HttpServerExchange exchange, int deflateLevel) {
-        deflater = new Deflater(deflateLevel, true);
+        this(conduitFactory, exchange, new Deflater(deflateLevel, true), null);
+    }
+
+    /**
+     * Creates a conduit that takes its deflater from the given pool, and returns it once the response is complete.
+     */
+    public DeflatingStreamSinkConduit(final ConduitFactory<StreamSinkConduit> conduitFactory, final HttpServerExchange exchange, final DeflaterPool deflaterPool) {
+        this(conduitFactory, exchange, deflaterPool.allocate(), deflaterPool);
+    }
+
+    private DeflatingStreamSinkConduit(final ConduitFactory<StreamSinkConduit> conduitFactory, final HttpServerExchange exchange, final Deflater deflater, final DeflaterPool deflaterPool) {
+        this.deflater = deflater;
+        this.deflaterPool = deflaterPool;
         this.currentBuffer = exchange.getConnection().getByteBufferPool().allocate();
         this.exchange = exchange;
         this.conduitFactory = conduitFactory;
@@ -245,7 +258,9 @@ public class DeflatingStreamSinkConduit implements StreamSinkConduit {
 
     @Override
     public void terminateWrites() throws IOException {
-        deflater.finish();
+        if (currentBuffer != null) {
+            deflater.finish();
+        }
         state |= SHUTDOWN;
     }
 
@@ -514,6 +529,12 @@ public class DeflatingStreamSinkConduit implements StreamSinkConduit {
             currentBuffer.close();
             currentBuffer = null;
             state = state & ~FLUSHING_BUFFER;
+            //the deflater is never used once the buffer is gone, so we can release its native memory now
+            if (deflaterPool != null) {
+                deflaterPool.free(deflater);
+            } else {
+                deflater.end();
+            }
         }
     }
 }
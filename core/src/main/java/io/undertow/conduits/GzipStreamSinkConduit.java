@@ -66,6 +66,15 @@ public class GzipStreamSinkConduit extends DeflatingStreamSinkConduit {
         Connectors.updateResponseBytesSent(exchange, HEADER.length);
     }
 
+    public GzipStreamSinkConduit(
+            ConduitFactory<StreamSinkConduit> conduitFactory,
+            HttpServerExchange exchange,
+            DeflaterPool deflaterPool) {
+        super(conduitFactory, exchange, deflaterPool);
+        writeHeader();
+        Connectors.updateResponseBytesSent(exchange, HEADER.length);
+    }
+
     private void writeHeader() {
         currentBuffer.getBuffer().put(HEADER);
     }
@@ -37,7 +37,7 @@ public class GzipStreamSourceConduit extends InflatingStreamSourceConduit {
     public static final ConduitWrapper<StreamSourceConduit> WRAPPER = new ConduitWrapper<StreamSourceConduit>() {
         @Override
         public StreamSourceConduit wrap(ConduitFactory<StreamSourceConduit> factory, HttpServerExchange exchange) {
-            return new GzipStreamSourceConduit(exchange, factory.create());
+            return new GzipStreamSourceConduit(exchange, factory.create(), INFLATER_POOL);
         }
     };
 
@@ -60,6 +60,10 @@ public class GzipStreamSourceConduit extends InflatingStreamSourceConduit {
         super(exchange, next);
     }
 
+    public GzipStreamSourceConduit(HttpServerExchange exchange, StreamSourceConduit next, InflaterPool inflaterPool) {
+        super(exchange, next, inflaterPool);
+    }
+
     private int totalOut;
     private int headerRead = 0;
     private int footerRead = 0;
@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.conduits;
+
+import java.util.ArrayDeque;
+import java.util.zip.Inflater;
+
+import org.xnio.XnioIoThread;
+
+/**
+ * A pool of raw (nowrap) {@link Inflater} instances.
+ * <p>
+ * Inflaters hold native memory that is only freed when they are ended, so rather than creating a new one for every
+ * request they are reset and reused. Each IO thread keeps its own small pool, and if it is already full the inflater
+ * is ended straight away. Inflaters are never pooled on other threads, as worker threads can be numerous and may be
+ * idle for a long time, so the native memory would be held indefinitely.
+ *
+ * @see DeflaterPool
+ */
+public class InflaterPool {
+
+    public static final int DEFAULT_MAX_POOLED_PER_THREAD = 4;
+
+    private final int maxPooledPerThread;
+    private final ThreadLocal<ArrayDeque<Inflater>> pooled = new ThreadLocal<ArrayDeque<Inflater>>() {
+        @Override
+        protected ArrayDeque<Inflater> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    public InflaterPool() {
+        this(DEFAULT_MAX_POOLED_PER_THREAD);
+    }
+
+    public InflaterPool(int maxPooledPerThread) {
+        this.maxPooledPerThread = maxPooledPerThread;
+    }
+
+    public Inflater allocate() {
+        if (!(Thread.currentThread() instanceof XnioIoThread)) {
+            return new Inflater(true);
+        }
+        Inflater inflater = pooled.get().poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        return inflater;
+    }
+
+    /**
+     * Returns an inflater to the pool. The inflater must not be used by the caller after this method has been called.
+     *
+     * @param inflater The inflater
+     */
+    public void free(Inflater inflater) {
+        if (!(Thread.currentThread() instanceof XnioIoThread)) {
+            inflater.end();
+            return;
+        }
+        ArrayDeque<Inflater> queue = pooled.get();
+        if (queue.size() < maxPooledPerThread) {
+            inflater.reset();
+            queue.push(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+}
@@ -45,12 +45,18 @@ public class InflatingStreamSourceConduit extends AbstractStreamSourceConduit<St
     public static final ConduitWrapper<StreamSourceConduit> WRAPPER = new ConduitWrapper<StreamSourceConduit>() {
         @Override
         public StreamSourceConduit wrap(ConduitFactory<StreamSourceConduit> factory, HttpServerExchange exchange) {
-            return new InflatingStreamSourceConduit(exchange, factory.create());
+            return new InflatingStreamSourceConduit(exchange, factory.create(), INFLATER_POOL);
         }
     };
 
+    /**
+     * The pool used by the default wrappers
+     */
+    static final InflaterPool INFLATER_POOL = new InflaterPool();
+
     private final HttpServerExchange exchange;
-    private final Inflater inflater = new Inflater(true);
+    private final InflaterPool inflaterPool;
+    private Inflater inflater;
     private PooledByteBuffer compressed;
     private PooledByteBuffer uncompressed;
     private boolean nextDone = false;
@@ -59,6 +65,18 @@ public class InflatingStreamSourceConduit extends AbstractStreamSourceConduit<St
     public InflatingStreamSourceConduit(HttpServerExchange exchange, StreamSourceConduit next) {
         super(next);
         this.exchange = exchange;
+        this.inflaterPool = null;
+        this.inflater = new Inflater(true);
+    }
+
+    /**
+     * Creates a conduit that takes its inflater from the given pool, and returns it once the request has been read.
+     */
+    public InflatingStreamSourceConduit(HttpServerExchange exchange, StreamSourceConduit next, InflaterPool inflaterPool) {
+        super(next);
+        this.exchange = exchange;
+        this.inflaterPool = inflaterPool;
+        this.inflater = inflaterPool.allocate();
     }
 
     @Override
@@ -66,6 +84,13 @@ public class InflatingStreamSourceConduit extends AbstractStreamSourceConduit<St
         if (isReadShutdown()) {
             throw new ClosedChannelException();
         }
+        if (inflater == null) {
+            //the inflater has been released
+            if (nextDone) {
+                return -1;
+            }
+            throw new ClosedChannelException();
+        }
         if (uncompressed != null) {
             int ret = Buffers.copy(dst, uncompressed.getBuffer());
             if (!uncompressed.getBuffer().hasRemaining()) {
@@ -163,9 +188,19 @@ public class InflatingStreamSourceConduit extends AbstractStreamSourceConduit<St
     private void done() {
         if (compressed != null) {
             compressed.close();
+            compressed = null;
         }
         if (uncompressed != null) {
             uncompressed.close();
+            uncompressed = null;
+        }
+        if (inflater != null) {
+            if (inflaterPool != null) {
+                inflaterPool.free(inflater);
+            } else {
+                inflater.end();
+            }
+            inflater = null;
         }
     }
 
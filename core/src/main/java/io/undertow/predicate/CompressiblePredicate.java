@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.predicate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+
+/**
+ * Predicate that returns true if a response is worth compressing. It is intended to be used as the allowed
+ * predicate of a content encoding.
+ * <p>
+ * Responses with a known Content-Length below the minimum size are not compressed, as the compression overhead
+ * outweighs the saving. Responses with a content type that is already compressed, such as most image, audio and video
+ * formats, are also not compressed. Content types are matched by prefix, so <code>video/</code> matches all video
+ * types.
+ */
+public class CompressiblePredicate implements Predicate {
+
+    public static final long DEFAULT_MIN_SIZE = 1024;
+
+    public static final String[] DEFAULT_EXCLUDED_TYPES = {
+            "image/png",
+            "image/jpeg",
+            "image/gif",
+            "image/webp",
+            "video/",
+            "audio/",
+            "font/woff",
+            "application/zip",
+            "application/gzip",
+            "application/x-gzip",
+            "application/x-bzip2",
+            "application/x-7z-compressed",
+            "application/x-rar-compressed",
+            "application/pdf"};
+
+    private final long minSize;
+    private final String[] excludedTypes;
+
+    CompressiblePredicate(final long minSize, final String[] excludedTypes) {
+        this.minSize = minSize;
+        this.excludedTypes = new String[excludedTypes.length];
+        for (int i = 0; i < excludedTypes.length; ++i) {
+            this.excludedTypes[i] = excludedTypes[i].toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    @Override
+    public boolean resolve(final HttpServerExchange value) {
+        final String length = value.getResponseHeaders().getFirst(Headers.CONTENT_LENGTH);
+        if (length != null && Long.parseLong(length) < minSize) {
+            return false;
+        }
+        final String contentType = value.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+        if (contentType != null) {
+            for (String excluded : excludedTypes) {
+                if (contentType.regionMatches(true, 0, excluded, 0, excluded.length())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public static class Builder implements PredicateBuilder {
+
+        @Override
+        public String name() {
+            return "compressible";
+        }
+
+        @Override
+        public Map<String, Class<?>> parameters() {
+            final Map<String, Class<?>> params = new HashMap<>();
+            params.put("min-size", Long.class);
+            params.put("excluded-types", String[].class);
+            return params;
+        }
+
+        @Override
+        public Set<String> requiredParameters() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public String defaultParameter() {
+            return "min-size";
+        }
+
+        @Override
+        public Predicate build(final Map<String, Object> config) {
+            Long minSize = (Long) config.get("min-size");
+            String[] excludedTypes = (String[]) config.get("excluded-types");
+            return new CompressiblePredicate(minSize == null ? DEFAULT_MIN_SIZE : minSize, excludedTypes == null ? DEFAULT_EXCLUDED_TYPES : excludedTypes);
+        }
+    }
+}
@@ -133,6 +133,27 @@ public class Predicates {
         return new MinContentSizePredicate(size);
     }
 
+    /**
+     * Predicate that returns true if the response is large enough to be worth compressing, and does not have a
+     * content type that is already compressed.
+     *
+     * @see CompressiblePredicate
+     */
+    public static Predicate compressible() {
+        return compressible(CompressiblePredicate.DEFAULT_MIN_SIZE, CompressiblePredicate.DEFAULT_EXCLUDED_TYPES);
+    }
+
+    /**
+     * Predicate that returns true if the response is at least the given size, and its content type does not start
+     * with any of the excluded types.
+     *
+     * @param minSize       The minimum response size, responses with no Content-Length are always compressible
+     * @param excludedTypes The content type prefixes that should not be compressed
+     */
+    public static Predicate compressible(final long minSize, final String... excludedTypes) {
+        return new CompressiblePredicate(minSize, excludedTypes);
+    }
+
     /**
      * Prediction which always returns true
      */
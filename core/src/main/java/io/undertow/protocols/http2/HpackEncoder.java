@@ -25,12 +25,11 @@ import io.undertow.util.HttpString;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -46,6 +45,11 @@ import static io.undertow.protocols.http2.Hpack.encodeInteger;
  */
 public class HpackEncoder {
 
+    /**
+     * The default number of encoded header values that are cached by each encoder
+     */
+    public static final int DEFAULT_HUFFMAN_CACHE_SIZE = 32;
+
     private static final Set<HttpString> SKIP;
 
     static {
@@ -88,30 +92,56 @@ public class HpackEncoder {
     private int newMaxHeaderSize = -1; //if the max header size has been changed
     private int minNewMaxHeaderSize = -1; //records the smallest value of newMaxHeaderSize, as per section 4.1
 
-    private static final Map<HttpString, TableEntry[]> ENCODING_STATIC_TABLE;
+    /**
+     * The first static table entry for each header name, used when only the name is in the table
+     */
+    private static final Map<HttpString, TableEntry> ENCODING_STATIC_TABLE;
+
+    /**
+     * Static table entries indexed by name and then value
+     */
+    private static final Map<HttpString, Map<String, TableEntry>> ENCODING_STATIC_VALUES;
 
     private final Deque<TableEntry> evictionQueue = new ArrayDeque<>();
-    private final Map<HttpString, List<TableEntry>> dynamicTable = new HashMap<>();
+
+    /**
+     * Dynamic table entries indexed by name and then value. A value is only ever added once for a given name, as
+     * it is only added if it is not already present in the table.
+     */
+    private final Map<HttpString, Map<String, TableEntry>> dynamicTable = new HashMap<>();
+
+    /**
+     * LRU cache of the encoded form of header values, or null if caching is disabled. Values that are sent often will
+     * normally be in the dynamic table, however if the table is small or has a lot of churn they may be evicted
+     * before they are used again.
+     */
+    private final Map<String, byte[]> huffmanCache;
 
     private byte[] overflowData;
     private int overflowPos;
     private int overflowLength;
 
     static {
-        Map<HttpString, TableEntry[]> map = new HashMap<>();
+        Map<HttpString, TableEntry> names = new HashMap<>();
+        Map<HttpString, Map<String, TableEntry>> values = new HashMap<>();
         for (int i = 1; i < STATIC_TABLE.length; ++i) {
             HeaderField m = STATIC_TABLE[i];
-            TableEntry[] existing = map.get(m.name);
-            if (existing == null) {
-                map.put(m.name, new TableEntry[]{new TableEntry(m.name, m.value, i)});
-            } else {
-                TableEntry[] newEntry = new TableEntry[existing.length + 1];
-                System.arraycopy(existing, 0, newEntry, 0, existing.length);
-                newEntry[existing.length] = new TableEntry(m.name, m.value, i);
-                map.put(m.name, newEntry);
+            TableEntry entry = new TableEntry(m.name, m.value, i);
+            if (!names.containsKey(m.name)) {
+                names.put(m.name, entry);
+            }
+            if (m.value != null) {
+                Map<String, TableEntry> existing = values.get(m.name);
+                if (existing == null) {
+                    values.put(m.name, existing = new HashMap<>());
+                }
+                if (!existing.containsKey(m.value)) {
+                    existing.put(m.value, entry);
+                }
             }
         }
-        ENCODING_STATIC_TABLE = Collections.unmodifiableMap(map);
+        ENCODING_STATIC_TABLE = Collections.unmodifiableMap(names);
+        ENCODING_STATIC_VALUES = Collections.unmodifiableMap(values);
     }
 
     /**
@@ -126,9 +156,28 @@ public class HpackEncoder {
 
     private final HpackHeaderFunction hpackHeaderFunction;
 
-    public HpackEncoder(int maxTableSize, HpackHeaderFunction headerFunction) {
+    /**
+     * @param maxTableSize      The maximum dynamic table size
+     * @param headerFunction    The function that determines how headers are encoded
+     * @param huffmanCacheSize  The number of encoded header values to cache, 0 to disable caching
+     */
+    public HpackEncoder(int maxTableSize, HpackHeaderFunction headerFunction, final int huffmanCacheSize) {
         this.maxTableSize = maxTableSize;
         this.hpackHeaderFunction = headerFunction;
+        if (huffmanCacheSize > 0) {
+            this.huffmanCache = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                    return size() > huffmanCacheSize;
+                }
+            };
+        } else {
+            this.huffmanCache = null;
+        }
+    }
+
+    public HpackEncoder(int maxTableSize, HpackHeaderFunction headerFunction) {
+        this(maxTableSize, headerFunction, DEFAULT_HUFFMAN_CACHE_SIZE);
     }
 
     public HpackEncoder(int maxTableSize) {
@@ -205,18 +254,20 @@ public class HpackEncoder {
                         current = ByteBuffer.wrap(overflowData = new byte[required]);
                         overflowPos = 0;
                     }
-                    boolean canIndex = hpackHeaderFunction.shouldUseIndexing(headerName, val) && (headerName.length() + val.length() + 32) < maxTableSize; //only index if it will fit
+                    //values that are not indexed, such as the date, change all the time so there is no point caching them
+                    boolean cacheable = hpackHeaderFunction.shouldUseIndexing(headerName, val);
+                    boolean canIndex = cacheable && (headerName.length() + val.length() + 32) < maxTableSize; //only index if it will fit
                     if (tableEntry == null && canIndex) {
                         //add the entry to the dynamic table
                         current.put((byte) (1 << 6));
                         writeHuffmanEncodableName(current, headerName);
-                        writeHuffmanEncodableValue(current, headerName, val);
+                        writeHuffmanEncodableValue(current, headerName, val, cacheable);
                         addToDynamicTable(headerName, val);
                     } else if (tableEntry == null) {
                         //literal never indexed
                         current.put((byte) (1 << 4));
                         writeHuffmanEncodableName(current, headerName);
-                        writeHuffmanEncodableValue(current, headerName, val);
+                        writeHuffmanEncodableValue(current, headerName, val, cacheable);
                     } else {
                         //so we know something is already in the table
                         if (val.equals(tableEntry.value)) {
@@ -228,13 +279,13 @@ public class HpackEncoder {
                                 //add the entry to the dynamic table
                                 current.put((byte) (1 << 6));
                                 encodeInteger(current, tableEntry.getPosition(), 6);
-                                writeHuffmanEncodableValue(current, headerName, val);
+                                writeHuffmanEncodableValue(current, headerName, val, cacheable);
                                 addToDynamicTable(headerName, val);
 
                             } else {
                                 current.put((byte) (1 << 4));
                                 encodeInteger(current, tableEntry.getPosition(), 4);
-                                writeHuffmanEncodableValue(current, headerName, val);
+                                writeHuffmanEncodableValue(current, headerName, val, cacheable);
                             }
                         }
                     }
@@ -272,14 +323,33 @@ public class HpackEncoder {
 
     }
 
-    private void writeHuffmanEncodableValue(ByteBuffer target, HttpString headerName, String val) {
+    private void writeHuffmanEncodableValue(ByteBuffer target, HttpString headerName, String val, boolean cacheable) {
         if (hpackHeaderFunction.shouldUseHuffman(headerName, val)) {
-            if (!HPackHuffman.encode(target, val, false)) {
-                writeValueString(target, val);
+            if (huffmanCache == null || !cacheable) {
+                if (HPackHuffman.encode(target, val, false)) {
+                    return;
+                }
+            } else {
+                byte[] encoded = huffmanCache.get(val);
+                if (encoded != null && target.remaining() >= encoded.length) {
+                    target.put(encoded);
+                    return;
+                }
+                int start = target.position();
+                if (HPackHuffman.encode(target, val, false)) {
+                    if (encoded == null) {
+                        ByteBuffer copy = target.duplicate();
+                        copy.limit(target.position());
+                        copy.position(start);
+                        encoded = new byte[copy.remaining()];
+                        copy.get(encoded);
+                        huffmanCache.put(val, encoded);
+                    }
+                    return;
+                }
             }
-        } else {
-            writeValueString(target, val);
         }
+        writeValueString(target, val);
     }
 
     private void writeValueString(ByteBuffer target, String val) {
@@ -293,11 +363,11 @@ public class HpackEncoder {
     private void addToDynamicTable(HttpString headerName, String val) {
         int pos = entryPositionCounter++;
         DynamicTableEntry d = new DynamicTableEntry(headerName, val, -pos);
-        List<TableEntry> existing = dynamicTable.get(headerName);
+        Map<String, TableEntry> existing = dynamicTable.get(headerName);
         if (existing == null) {
-            dynamicTable.put(headerName, existing = new ArrayList<>(1));
+            dynamicTable.put(headerName, existing = new HashMap<>(4));
         }
-        existing.add(d);
+        existing.put(val, d);
         evictionQueue.add(d);
         currentTableSize += d.size;
         runEvictionIfRequired();
@@ -312,8 +382,8 @@ public class HpackEncoder {
     private void preventPositionRollover() {
         //if the position counter is about to roll over we iterate all the table entries
         //and set their position to their actual position
-        for (Map.Entry<HttpString, List<TableEntry>> entry : dynamicTable.entrySet()) {
-            for (TableEntry t : entry.getValue()) {
+        for (Map<String, TableEntry> entries : dynamicTable.values()) {
+            for (TableEntry t : entries.values()) {
                 t.position = t.getPosition();
             }
         }
@@ -328,36 +398,30 @@ public class HpackEncoder {
                 return;
             }
             currentTableSize -= next.size;
-            List<TableEntry> list = dynamicTable.get(next.name);
-            list.remove(next);
-            if (list.isEmpty()) {
+            Map<String, TableEntry> entries = dynamicTable.get(next.name);
+            entries.remove(next.value);
+            if (entries.isEmpty()) {
                 dynamicTable.remove(next.name);
             }
         }
     }
 
     private TableEntry findInTable(HttpString headerName, String value) {
-        TableEntry[] staticTable = ENCODING_STATIC_TABLE.get(headerName);
-        if (staticTable != null) {
-            for (TableEntry st : staticTable) {
-                if (st.value != null && st.value.equals(value)) { //todo: some form of lookup?
-                    return st;
-                }
+        Map<String, TableEntry> staticValues = ENCODING_STATIC_VALUES.get(headerName);
+        if (staticValues != null) {
+            TableEntry st = staticValues.get(value);
+            if (st != null) {
+                return st;
             }
         }
-        List<TableEntry> dynamic = dynamicTable.get(headerName);
+        Map<String, TableEntry> dynamic = dynamicTable.get(headerName);
         if (dynamic != null) {
-            for (int i = 0; i < dynamic.size(); ++i) {
-                TableEntry st = dynamic.get(i);
-                if (st.value.equals(value)) { //todo: some form of lookup?
-                    return st;
-                }
+            TableEntry st = dynamic.get(value);
+            if (st != null) {
+                return st;
             }
         }
-        if (staticTable != null) {
-            return staticTable[0];
-        }
-        return null;
+        return ENCODING_STATIC_TABLE.get(headerName);
     }
 
     public void setMaxTableSize(int newSize) {
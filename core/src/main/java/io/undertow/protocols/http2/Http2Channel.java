@@ -48,6 +48,7 @@ import java.nio.channels.Channel;
 import java.nio.channels.ClosedChannelException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -125,6 +126,7 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
     public static final int DEFAULT_MAX_FRAME_SIZE = 16384;
     public static final int MAX_FRAME_SIZE = 16777215;
     public static final int FLOW_CONTROL_MIN_WINDOW = 2;
+    public static final int DEFAULT_MAX_RECEIVE_WINDOW_SIZE = 16 * 1024 * 1024;
 
 
     private Http2FrameHeaderParser frameParser;
@@ -151,6 +153,7 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
 
     private final HpackDecoder decoder;
     private final HpackEncoder encoder;
+    private final Http2PriorityTree priorityTree;
     private final int maxPadding;
     private final Random paddingRandom;
 
@@ -185,6 +188,18 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
      */
     private volatile int receiveWindowSize = initialReceiveWindowSize;
 
+    /**
+     * The size that connection and stream receive windows are replenished to, guarded by {@link #flowControlLock}.
+     * This starts out as the initial window size, and is grown by the {@link #receiveWindowTuner} if it is enabled.
+     */
+    private volatile int receiveWindowTarget;
+
+    /**
+     * Grows the receive window based on the measured bandwidth-delay product, guarded by {@link #flowControlLock}.
+     * This is null if receive window auto tuning is disabled.
+     */
+    private final Http2ReceiveWindowTuner receiveWindowTuner;
+
 
     public Http2Channel(StreamConnection connectedStreamChannel, String protocol, ByteBufferPool bufferPool, PooledByteBuffer data, boolean clientSide, boolean fromUpgrade, OptionMap settings) {
         this(connectedStreamChannel, protocol, bufferPool, data, clientSide, fromUpgrade, true, null, settings);
@@ -195,10 +210,17 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
 
     public Http2Channel(StreamConnection connectedStreamChannel, String protocol, ByteBufferPool bufferPool, PooledByteBuffer data, boolean clientSide, boolean fromUpgrade, boolean prefaceRequired, ByteBuffer initialOtherSideSettings, OptionMap settings) {
         super(connectedStreamChannel, bufferPool, new Http2FramePriority(clientSide ? (fromUpgrade ? 3 : 1) : 2), data, settings);
+        priorityTree = ((Http2FramePriority) getFramePriority()).getPriorityTree();
         streamIdCounter = clientSide ? (fromUpgrade ? 3 : 1) : 2;
 
         pushEnabled = settings.get(UndertowOptions.HTTP2_SETTINGS_ENABLE_PUSH, true);
         this.initialReceiveWindowSize = settings.get(UndertowOptions.HTTP2_SETTINGS_INITIAL_WINDOW_SIZE, DEFAULT_INITIAL_WINDOW_SIZE);
+        this.receiveWindowTarget = initialReceiveWindowSize;
+        if (settings.get(UndertowOptions.HTTP2_RECEIVE_WINDOW_AUTO_TUNING, false)) {
+            this.receiveWindowTuner = new Http2ReceiveWindowTuner(initialReceiveWindowSize, settings.get(UndertowOptions.HTTP2_MAX_RECEIVE_WINDOW_SIZE, DEFAULT_MAX_RECEIVE_WINDOW_SIZE));
+        } else {
+            this.receiveWindowTuner = null;
+        }
 
         this.protocol = protocol == null ? Http2OpenListener.HTTP2 : protocol;
         this.maxHeaders = settings.get(UndertowOptions.MAX_HEADERS, clientSide ? -1 : UndertowOptions.DEFAULT_MAX_HEADERS);
@@ -214,7 +236,7 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
         }
 
         this.decoder = new HpackDecoder(encoderHeaderTableSize);
-        this.encoder = new HpackEncoder(encoderHeaderTableSize);
+        this.encoder = new HpackEncoder(encoderHeaderTableSize, HpackEncoder.DEFAULT_HEADER_FUNCTION, settings.get(UndertowOptions.HTTP2_HUFFMAN_CACHE_SIZE, HpackEncoder.DEFAULT_HUFFMAN_CACHE_SIZE));
         if(!prefaceRequired) {
             prefaceCount = PREFACE_BYTES.length;
         }
@@ -399,6 +421,7 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
                 lastGoodStreamId = Math.max(lastGoodStreamId, frameParser.streamId);
 
                 StreamHolder holder = currentStreams.get(frameParser.streamId);
+                boolean newStream = holder == null;
                 if(holder == null) {
                     currentStreams.put(frameParser.streamId, holder = new StreamHolder((Http2StreamSourceChannel) channel));
                 } else {
@@ -425,9 +448,11 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
                     frameData.close();
                     return null;
                 }
-//                if(priorityTree != null) {
-//                    priorityTree.registerStream(frameParser.streamId, parser.getDependentStreamId(), parser.getWeight(), parser.isExclusive());
-//                }
+                if(Bits.anyAreSet(frameParser.flags, HEADERS_FLAG_PRIORITY)) {
+                    priorityTree.registerStream(frameParser.streamId, parser.getDependentStreamId(), parser.getWeight() + 1, parser.isExclusive());
+                } else if(newStream) {
+                    priorityTree.registerStream(frameParser.streamId, 0, Http2PriorityTree.DEFAULT_WEIGHT, false);
+                }
                 break;
             }
             case FRAME_TYPE_RST_STREAM: {
@@ -463,6 +488,10 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
                 Http2PingParser pingParser = (Http2PingParser) frameParser.parser;
                 frameData.close();
                 boolean ack = Bits.anyAreSet(frameParser.flags, PING_FLAG_ACK);
+                if(ack && receiveWindowTuner != null && handleReceiveWindowPing(pingParser.getData())) {
+                    //this was one of our measurement pings, so we don't return it
+                    return null;
+                }
                 channel = new Http2PingStreamSourceChannel(this, pingParser.getData(), ack);
                 if(!ack) { //not an ack from one of our pings, so send it back
                     sendPing(pingParser.getData(), null, true);
@@ -502,13 +531,8 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
                     return null;
                 }
                 frameData.close();
-//                if(priorityTree == null) {
-//                    //we don't care, because we are the client side
-//                    //so this situation should never happen
-//                    return null;
-//                }
-//                priorityTree.priorityFrame(frameParser.streamId, parser.getStreamDependency(), parser.getWeight(), parser.isExclusive());
-//                //we don't return priority notifications, they are handled internally
+                priorityTree.priorityFrame(frameParser.streamId, parser.getStreamDependency(), parser.getWeight() + 1, parser.isExclusive());
+                //we don't return priority notifications, they are handled internally
                 return null;
             }
             default: {
@@ -686,6 +710,14 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
         return initialReceiveWindowSize;
     }
 
+    /**
+     * @return The size that receive windows are replenished to. If receive window auto tuning is enabled this can be
+     * larger than the initial receive window size.
+     */
+    public int getReceiveWindowTarget() {
+        return receiveWindowTarget;
+    }
+
     public void handleWindowUpdate(int streamId, int deltaWindowSize) throws IOException {
         if (streamId == 0) {
             if (deltaWindowSize == 0) {
@@ -801,9 +833,9 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
         synchronized (flowControlLock) {
             receiveWindowSize -= read;
             //TODO: make this configurable, we should be able to set the policy that is used to determine when to update the window size
-            int initialWindowSize = this.initialReceiveWindowSize;
-            if (receiveWindowSize < (initialWindowSize / 2)) {
-                delta = initialWindowSize - receiveWindowSize;
+            int windowTarget = this.receiveWindowTarget;
+            if (receiveWindowSize < (windowTarget / 2)) {
+                delta = windowTarget - receiveWindowSize;
                 receiveWindowSize += delta;
             }
         }
@@ -812,6 +844,51 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
         }
     }
 
+    /**
+     * Invoked when a DATA frame is received, to start a round trip measurement if receive window auto tuning
+     * is enabled.
+     *
+     * @param frameLength The length of the frame
+     */
+    void dataFrameReceived(int frameLength) {
+        if (receiveWindowTuner == null) {
+            return;
+        }
+        boolean sendPing;
+        synchronized (flowControlLock) {
+            sendPing = receiveWindowTuner.dataReceived(frameLength, System.nanoTime());
+        }
+        if (sendPing) {
+            sendPing(Http2ReceiveWindowTuner.PING_DATA);
+        }
+    }
+
+    /**
+     * Handles a PING acknowledgement that may be the end of a round trip measurement. If the receive window needs to
+     * grow then the connection window is grown straight away, stream windows are grown as they are replenished.
+     *
+     * @return <code>true</code> if the ping was a measurement ping
+     */
+    private boolean handleReceiveWindowPing(byte[] data) throws IOException {
+        if (!Arrays.equals(data, Http2ReceiveWindowTuner.PING_DATA)) {
+            return false;
+        }
+        int delta = -1;
+        synchronized (flowControlLock) {
+            int newWindowSize = receiveWindowTuner.pingAcknowledged(data, System.nanoTime());
+            if (newWindowSize > receiveWindowTarget) {
+                delta = newWindowSize - receiveWindowTarget;
+                receiveWindowTarget = newWindowSize;
+                receiveWindowSize += delta;
+            }
+        }
+        if (delta > 0) {
+            UndertowLogger.REQUEST_IO_LOGGER.tracef("Growing receive window of %s to %s, round trip time %sns", this, receiveWindowTarget, receiveWindowTuner.getRoundTripTime());
+            sendUpdateWindowSize(0, delta);
+        }
+        return true;
+    }
+
     /**
      * Creates a strema using a HEADERS frame
      *
@@ -882,6 +959,7 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
     }
 
     void removeStreamSink(int streamId) {
+        priorityTree.streamRemoved(streamId);
         StreamHolder existing = currentStreams.get(streamId);
         if(existing == null) {
             return;
@@ -903,6 +981,10 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
     }
 
 
+    Http2PriorityTree getPriorityTree() {
+        return priorityTree;
+    }
+
     HpackEncoder getEncoder() {
         return encoder;
     }
@@ -988,6 +1070,7 @@ public class Http2Channel extends AbstractFramedChannel<Http2Channel, AbstractHt
     }
 
     private void handleRstStream(int streamId) {
+        priorityTree.streamRemoved(streamId);
         StreamHolder holder = currentStreams.remove(streamId);
         if(holder != null) {
             if (holder.sinkChannel != null) {
@@ -45,6 +45,11 @@ public class Http2DataStreamSinkChannel extends Http2StreamSinkChannel implement
     private final int frameType;
     private boolean completionListenerReady;
 
+    /**
+     * The virtual finish time of the queued frame, or -1 if the frame was not scheduled by the priority tree
+     */
+    private double virtualFinishTime = -1;
+
     Http2DataStreamSinkChannel(Http2Channel channel, int streamId, int frameType) {
         this(channel, streamId, new HeaderMap(), frameType);
     }
@@ -236,12 +241,31 @@ public class Http2DataStreamSinkChannel extends Http2StreamSinkChannel implement
         return first;
     }
 
+    /**
+     * @return <code>true</code> if the header block has been sent, so any further frames will only contain data
+     */
+    boolean isHeaderBlockSent() {
+        return !first;
+    }
+
+    double getVirtualFinishTime() {
+        return virtualFinishTime;
+    }
+
+    void setVirtualFinishTime(double virtualFinishTime) {
+        this.virtualFinishTime = virtualFinishTime;
+    }
+
     public HeaderMap getHeaders() {
         return headers;
     }
 
     @Override
     protected void handleFlushComplete(boolean finalFrame) {
+        if (virtualFinishTime >= 0) {
+            getChannel().getPriorityTree().frameSent(virtualFinishTime);
+            virtualFinishTime = -1;
+        }
         super.handleFlushComplete(finalFrame);
         if (finalFrame) {
             if (completionListener != null) {
@@ -226,6 +226,9 @@ class Http2FrameHeaderParser implements FrameHeaderData {
             } else {
                 http2StreamSourceChannel = http2Channel.getIncomingStream(streamId);
             }
+            if(type == FRAME_TYPE_DATA) {
+                http2Channel.dataFrameReceived(getFrameLength());
+            }
             if(type == FRAME_TYPE_DATA && http2StreamSourceChannel != null) {
                 Http2DataFrameParser dataFrameParser = (Http2DataFrameParser) parser;
                 http2StreamSourceChannel.updateContentSize(getFrameLength() - dataFrameParser.getPadding(), anyAreSet(flags, DATA_FLAG_END_STREAM));
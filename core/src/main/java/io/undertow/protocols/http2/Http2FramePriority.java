@@ -21,24 +21,35 @@ package io.undertow.protocols.http2;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 
 import io.undertow.UndertowLogger;
 import io.undertow.server.protocol.framed.FramePriority;
 import io.undertow.server.protocol.framed.SendFrameHeader;
 
 /**
- * TODO: real priority
+ * Frame priority implementation for HTTP2.
+ * <p>
+ * Frames that only contain stream data are ordered by the virtual finish time assigned by the
+ * {@link Http2PriorityTree}, so streams share the connection according to their priority. All other frames
+ * are sent in the order they were queued, and data frames are never moved in front of them, as header blocks
+ * must be sent in the order they were encoded.
  *
  * @author Stuart Douglas
  */
 class Http2FramePriority implements FramePriority<Http2Channel, AbstractHttp2StreamSourceChannel, AbstractHttp2StreamSinkChannel> {
 
+    private final Http2PriorityTree priorityTree = new Http2PriorityTree();
     private int nextId;
 
     Http2FramePriority(int nextId) {
         this.nextId = nextId;
     }
 
+    Http2PriorityTree getPriorityTree() {
+        return priorityTree;
+    }
+
     @Override
     public boolean insertFrame(AbstractHttp2StreamSinkChannel newFrame, List<AbstractHttp2StreamSinkChannel> pendingFrames) {
         //we need to deal with out of order streams
@@ -63,11 +74,15 @@ class Http2FramePriority implements FramePriority<Http2Channel, AbstractHttp2Str
             }
         }
         //first deal with flow control
+        boolean dataFrame = false;
+        int frameLength = 0;
         if (newFrame instanceof Http2StreamSinkChannel) {
             if (newFrame.isBroken() || !newFrame.isOpen()) {
                 return true; //just quietly drop the frame
             }
+            dataFrame = isDataFrame(newFrame);
             try {
+                int buffered = bufferedData(newFrame, dataFrame);
                 SendFrameHeader header = ((Http2StreamSinkChannel) newFrame).generateSendFrameHeader();
                 //if no header is generated then flow control means we can't send anything
                 if (header.getByteBuffer() == null) {
@@ -75,12 +90,13 @@ class Http2FramePriority implements FramePriority<Http2Channel, AbstractHttp2Str
                     ((Http2StreamSinkChannel) newFrame).clearHeader();
                     return false;
                 }
+                frameLength = frameLength(buffered, header);
             } catch (Exception e) {
                 UndertowLogger.REQUEST_LOGGER.debugf("Failed to generate header %s", newFrame);
             }
         }
 
-        pendingFrames.add(newFrame);
+        addPendingFrame(newFrame, dataFrame, frameLength, pendingFrames);
         if (incrementIfAccepted) {
             nextId += 2;
         }
@@ -115,9 +131,11 @@ class Http2FramePriority implements FramePriority<Http2Channel, AbstractHttp2Str
             }
 
             if (pending instanceof Http2StreamSinkChannel) {
+                boolean dataFrame = isDataFrame(pending);
+                int buffered = bufferedData(pending, dataFrame);
                 SendFrameHeader header = ((Http2StreamSinkChannel) pending).generateSendFrameHeader();
                 if (header.getByteBuffer() != null) {
-                    pendingFrames.add(pending);
+                    addPendingFrame(pending, dataFrame, frameLength(buffered, header), pendingFrames);
                     it.remove();
                     it = holdFrames.iterator();
                     if (incrementNextId) {
@@ -131,4 +149,54 @@ class Http2FramePriority implements FramePriority<Http2Channel, AbstractHttp2Str
         }
 
     }
+
+    /**
+     * @return <code>true</code> if the next frame generated for this channel will only contain stream data
+     */
+    private static boolean isDataFrame(AbstractHttp2StreamSinkChannel frame) {
+        return frame instanceof Http2DataStreamSinkChannel && ((Http2DataStreamSinkChannel) frame).isHeaderBlockSent();
+    }
+
+    /**
+     * @return The amount of stream data that is buffered for a data frame. This must be called before the frame
+     * header is generated, as generating the header limits the buffer to the data that fits in the frame.
+     */
+    private static int bufferedData(AbstractHttp2StreamSinkChannel frame, boolean dataFrame) {
+        return dataFrame ? frame.getBuffer().remaining() : 0;
+    }
+
+    /**
+     * @return The amount of stream data that is actually carried by the frame, the rest of the buffered data is
+     * left for later frames by flow control or the max frame size
+     */
+    private static int frameLength(int buffered, SendFrameHeader header) {
+        return Math.max(0, buffered - header.getRemainingInBuffer());
+    }
+
+    /**
+     * Adds a frame to the pending frame list. Data frames are moved in front of any data frames with a later
+     * finish time, but never in front of other frames, or the first frame in the list, which may already be
+     * partially written. The stream is only charged for the data that this frame carries.
+     */
+    private void addPendingFrame(AbstractHttp2StreamSinkChannel frame, boolean dataFrame, int frameLength, List<AbstractHttp2StreamSinkChannel> pendingFrames) {
+        if (!dataFrame) {
+            if (frame instanceof Http2DataStreamSinkChannel) {
+                ((Http2DataStreamSinkChannel) frame).setVirtualFinishTime(-1);
+            }
+            pendingFrames.add(frame);
+            return;
+        }
+        Http2DataStreamSinkChannel dataChannel = (Http2DataStreamSinkChannel) frame;
+        double finishTime = priorityTree.scheduleFrame(dataChannel.getStreamId(), frameLength);
+        dataChannel.setVirtualFinishTime(finishTime);
+        ListIterator<AbstractHttp2StreamSinkChannel> it = pendingFrames.listIterator(pendingFrames.size());
+        while (it.previousIndex() > 0) {
+            AbstractHttp2StreamSinkChannel previous = it.previous();
+            if (!(previous instanceof Http2DataStreamSinkChannel) || ((Http2DataStreamSinkChannel) previous).getVirtualFinishTime() <= finishTime) {
+                it.next();
+                break;
+            }
+        }
+        it.add(frame);
+    }
 }
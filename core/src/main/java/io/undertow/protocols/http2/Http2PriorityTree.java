@@ -18,59 +18,81 @@
 
 package io.undertow.protocols.http2;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
- * A structure that represents HTTP2 priority information.
- *
+ * A structure that represents HTTP2 priority information, and schedules frames based on it.
+ * <p>
+ * Streams form a dependency tree as described in RFC 7540 section 5.3. Each stream is given a share of the
+ * connection that is the product of its weight relative to its siblings at every level of the tree, and frames
+ * are scheduled using self clocked fair queuing. Each frame is given a virtual finish time, which is the later of
+ * the current virtual time and the finish time of the previous frame on the same stream, plus the frame length
+ * divided by the share of the stream. Sending frames in order of finish time gives every stream bandwidth in
+ * proportion to its share.
+ * <p>
+ * Nodes are looked up by stream id in an open addressing table, so no boxing is required, and shares are cached
+ * until the tree is modified.
+ * <p>
  * Note that this structure is not thread safe, it is intended to be protected by an external lock
  *
  * @author Stuart Douglas
  */
 public class Http2PriorityTree {
 
+    /**
+     * The default weight of a stream, as defined by the spec
+     */
+    public static final int DEFAULT_WEIGHT = 16;
+
+    private static final int EVICTION_QUEUE_SIZE = 10; //todo: make this size customisable
+
     private final Http2PriorityNode rootNode;
-    private final Map<Integer, Http2PriorityNode> nodesByID = new HashMap<>();
+
+    private Http2PriorityNode[] nodesByID = new Http2PriorityNode[16];
+    private int nodeCount;
 
     /**
      * fixed length queue of completed streams that have no dependents, they are kept around for a short time then expired.
      *
      */
-    private int[] evictionQueue;
+    private final int[] evictionQueue;
 
     private int evictionQueuePosition;
 
     /**
-     * The maximum number of streams that we store priority information for
+     * Incremented every time the tree changes, which invalidates the cached shares
+     */
+    private int treeVersion;
+
+    /**
+     * The virtual time, which is the finish time of the last frame that was sent
      */
+    private double virtualTime;
+
     public Http2PriorityTree() {
-        this.rootNode = new Http2PriorityNode(0, 0);
-        nodesByID.put(0, this.rootNode);
-        this.evictionQueue = new int[10]; //todo: make this size customisable
+        this.rootNode = new Http2PriorityNode(0, DEFAULT_WEIGHT);
+        this.evictionQueue = new int[EVICTION_QUEUE_SIZE];
     }
 
     /**
      * Resisters a stream, with its dependency and dependent information
      * @param streamId The stream id
      * @param dependency The stream this stream depends on, if no stream is specified this should be zero
-     * @param weighting The weighting. If no weighting is specified this should be 16
+     * @param weighting The weighting, between 1 and 256. If no weighting is specified this should be 16
      */
-    public void registerStream(int streamId, int dependency, int weighting, boolean exclusive) {
-        final Http2PriorityNode node = new Http2PriorityNode(streamId, weighting);
-        if(exclusive) {
-            Http2PriorityNode existing = nodesByID.get(dependency);
-            if(existing != null) {
-                existing.exclusive(node);
-            }
-        } else {
-            Http2PriorityNode existing = nodesByID.get(dependency);
-            if(existing != null) {
-                existing.addDependent(node);
-            }
+    public synchronized void registerStream(int streamId, int dependency, int weighting, boolean exclusive) {
+        if (getNode(streamId) != null) {
+            priorityFrame(streamId, dependency, weighting, exclusive);
+            return;
+        }
+        Http2PriorityNode node = new Http2PriorityNode(streamId, weighting);
+        putNode(node);
+        Http2PriorityNode parent = getNode(dependency);
+        if (parent == null) {
+            //a dependency on a stream that is not in the tree results in the default priority
+            parent = rootNode;
+            node.weighting = DEFAULT_WEIGHT;
+            exclusive = false;
         }
-        nodesByID.put(streamId, node);
+        addDependent(parent, node, exclusive);
     }
 
     /**
@@ -78,89 +100,233 @@ public class Http2PriorityTree {
      *
      * @param streamId id of the stream removed
      */
-    public void streamRemoved(int streamId) {
-        Http2PriorityNode node = nodesByID.get(streamId);
-        if(node == null) {
+    public synchronized void streamRemoved(int streamId) {
+        Http2PriorityNode node = getNode(streamId);
+        if (node == null || node == rootNode || node.closed) {
             return;
         }
-        if(!node.hasDependents()) {
-            //add to eviction queue
-            int toEvict = evictionQueue[evictionQueuePosition];
-            evictionQueue[evictionQueuePosition++] = streamId;
-            Http2PriorityNode nodeToEvict = nodesByID.get(toEvict);
-            //we don't remove the node if it has since got dependents since it was put into the queue
-            //as this is the whole reason we maintain the queue in the first place
-            if(nodeToEvict != null && !nodeToEvict.hasDependents()) {
-                nodesByID.remove(toEvict);
+        int oldWeighting = node.activeWeighting();
+        node.closed = true;
+        if (node.hasDependents()) {
+            //the dependents take over the share of this stream straight away
+            removeNode(node);
+            return;
+        }
+        //the node is kept so new streams can depend on it, but its siblings take over its share straight away
+        node.updateParentWeights(oldWeighting);
+        treeVersion++;
+        //add to eviction queue, so streams that are created shortly after can still depend on this one
+        int toEvict = evictionQueue[evictionQueuePosition];
+        evictionQueue[evictionQueuePosition] = streamId;
+        evictionQueuePosition = (evictionQueuePosition + 1) % evictionQueue.length;
+        Http2PriorityNode nodeToEvict = getNode(toEvict);
+        if (nodeToEvict != null && nodeToEvict != rootNode && nodeToEvict.closed) {
+            removeNode(nodeToEvict);
+        }
+    }
+
+    /**
+     * Handles a PRIORITY frame, as described in RFC 7540 section 5.3.3
+     *
+     * @param streamId The stream id
+     * @param streamDependency The new dependency of the stream
+     * @param weight The new weighting, between 1 and 256
+     * @param exlusive If the dependency is exclusive
+     */
+    public synchronized void priorityFrame(int streamId, int streamDependency, int weight, boolean exlusive) {
+        Http2PriorityNode existing = getNode(streamId);
+        if (existing == null || existing == rootNode) {
+            return;
+        }
+        Http2PriorityNode newParent = getNode(streamDependency);
+        if (newParent == null) {
+            newParent = rootNode;
+            weight = DEFAULT_WEIGHT;
+            exlusive = false;
+        }
+        if (isDescendant(newParent, existing)) {
+            //the new parent depends on this stream, so it is moved up to take the place of this stream first
+            newParent.parent.removeDependent(newParent);
+            addDependent(existing.parent, newParent, false);
+        }
+        existing.parent.removeDependent(existing);
+        existing.weighting = weight;
+        addDependent(newParent, existing, exlusive);
+    }
+
+    /**
+     * Schedules a frame for the given stream, and returns the virtual time at which it should finish being sent.
+     * Frames should be sent in order of their finish time.
+     * <p>
+     * Streams that are not in the tree are added with the default priority.
+     *
+     * @param streamId The stream the frame is for
+     * @param length The number of bytes of data in the frame
+     * @return The virtual finish time of the frame
+     */
+    synchronized double scheduleFrame(int streamId, int length) {
+        Http2PriorityNode node = getNode(streamId);
+        if (node == null) {
+            node = new Http2PriorityNode(streamId, DEFAULT_WEIGHT);
+            putNode(node);
+            addDependent(rootNode, node, false);
+        }
+        double start = Math.max(virtualTime, node.lastFinishTime);
+        double finish = start + length / getShare(node);
+        node.lastFinishTime = finish;
+        return finish;
+    }
+
+    /**
+     * Invoked when a frame that was scheduled by {@link #scheduleFrame(int, int)} has been sent, which advances
+     * the virtual time.
+     *
+     * @param finishTime The finish time of the frame
+     */
+    synchronized void frameSent(double finishTime) {
+        if (finishTime > virtualTime) {
+            virtualTime = finishTime;
+        }
+    }
+
+    private double getShare(Http2PriorityNode node) {
+        if (node.shareVersion != treeVersion) {
+            double share = 1;
+            Http2PriorityNode current = node;
+            while (current.parent != null) {
+                share *= current.weighting / (double) current.parent.totalWeights;
+                current = current.parent;
             }
+            node.share = share;
+            node.shareVersion = treeVersion;
         }
+        return node.share;
+    }
 
+    private void addDependent(Http2PriorityNode parent, Http2PriorityNode node, boolean exclusive) {
+        if (exclusive) {
+            Http2PriorityNode dependent = parent.firstDependent;
+            while (dependent != null) {
+                Http2PriorityNode next = dependent.nextSibling;
+                parent.removeDependent(dependent);
+                node.addDependent(dependent);
+                dependent = next;
+            }
+        }
+        parent.addDependent(node);
+        treeVersion++;
     }
 
     /**
-     * Creates a priority queue
-     * @return
+     * Removes a node from the tree. The dependents of the node are moved to its parent, and share the weight of the
+     * removed node in proportion to their own weights, as described in RFC 7540 section 5.3.4
      */
-    public Comparator<Integer> comparator() {
-        return new Comparator<Integer>() {
-            @Override
-            public int compare(Integer o1, Integer o2) {
-                Http2PriorityNode n1 = nodesByID.get(o1);
-                Http2PriorityNode n2 = nodesByID.get(o2);
-                if(n1 == null && n2 == null) {
-                    return 0;
-                }
-                if(n1 == null) {
-                    return -1;
-                }
-                if(n2 == null) {
-                    return 1;
-                }
-                //do the comparison
-                //this is kinda crap, but I can't really think of any better way to handle this
+    private void removeNode(Http2PriorityNode node) {
+        Http2PriorityNode parent = node.parent;
+        int weighting = node.weighting;
+        int totalWeights = node.totalWeights;
+        parent.removeDependent(node);
+        Http2PriorityNode dependent = node.firstDependent;
+        while (dependent != null) {
+            Http2PriorityNode next = dependent.nextSibling;
+            node.removeDependent(dependent);
+            if (totalWeights > 0) {
+                //if there are no active dependents the weights do not matter
+                dependent.weighting = Math.max(1, weighting * dependent.weighting / totalWeights);
+            }
+            parent.addDependent(dependent);
+            dependent = next;
+        }
+        deleteNode(node.streamId);
+        treeVersion++;
+    }
+
+    private static boolean isDescendant(Http2PriorityNode node, Http2PriorityNode ancestor) {
+        Http2PriorityNode current = node.parent;
+        while (current != null) {
+            if (current == ancestor) {
+                return true;
+            }
+            current = current.parent;
+        }
+        return false;
+    }
 
-                double d1 = createWeightingProportion(n1);
-                double d2 = createWeightingProportion(n2);
-                return Double.compare(d1, d2);
+    private static int hash(int streamId, int mask) {
+        int h = streamId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private Http2PriorityNode getNode(int streamId) {
+        if (streamId == 0) {
+            return rootNode;
+        }
+        Http2PriorityNode[] table = this.nodesByID;
+        int mask = table.length - 1;
+        int i = hash(streamId, mask);
+        Http2PriorityNode node;
+        while ((node = table[i]) != null) {
+            if (node.streamId == streamId) {
+                return node;
             }
-        };
+            i = (i + 1) & mask;
+        }
+        return null;
     }
-    private double createWeightingProportion(Http2PriorityNode n1) {
-        double ret = 1;
-        Http2PriorityNode node = n1;
-        while (node != null) {
-            Http2PriorityNode parent = node.parent;
-            if(parent != null) {
-                ret *= (node.weighting/(double)parent.totalWeights);
+
+    private void putNode(Http2PriorityNode node) {
+        if ((nodeCount + 1) * 2 > nodesByID.length) {
+            Http2PriorityNode[] old = nodesByID;
+            nodesByID = new Http2PriorityNode[old.length * 2];
+            for (Http2PriorityNode existing : old) {
+                if (existing != null) {
+                    insert(nodesByID, existing);
+                }
             }
-            node = parent;
         }
-        return ret;
+        insert(nodesByID, node);
+        nodeCount++;
+    }
+
+    private static void insert(Http2PriorityNode[] table, Http2PriorityNode node) {
+        int mask = table.length - 1;
+        int i = hash(node.streamId, mask);
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = node;
     }
 
-    public void priorityFrame(int streamId, int streamDependency, int weight, boolean exlusive) {
-        Http2PriorityNode existing = nodesByID.get(streamId);
-        if(existing == null) {
+    private void deleteNode(int streamId) {
+        Http2PriorityNode[] table = this.nodesByID;
+        int mask = table.length - 1;
+        int i = hash(streamId, mask);
+        while (table[i] != null && table[i].streamId != streamId) {
+            i = (i + 1) & mask;
+        }
+        if (table[i] == null) {
             return;
         }
-        int dif = weight - existing.weighting;
-        existing.parent.totalWeights += dif;
-        existing.weighting = weight;
-        if(exlusive) {
-            Http2PriorityNode newParent = nodesByID.get(streamDependency);
-            if(newParent != null) {
-                existing.parent.removeDependent(existing);
-                newParent.exclusive(existing);
+        table[i] = null;
+        nodeCount--;
+        //shift back any entries that were displaced past the removed slot
+        int j = i;
+        for (;;) {
+            j = (j + 1) & mask;
+            Http2PriorityNode node = table[j];
+            if (node == null) {
+                return;
             }
-        } else if(existing.parent.streamId != streamDependency) {
-            Http2PriorityNode newParent = nodesByID.get(streamDependency);
-            if(newParent != null) {
-                newParent.addDependent(existing);
+            int k = hash(node.streamId, mask);
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+                continue;
             }
+            table[i] = node;
+            table[j] = null;
+            i = j;
         }
     }
 
-
     private static class Http2PriorityNode {
 
         private Http2PriorityNode parent;
@@ -176,87 +342,87 @@ public class Http2PriorityTree {
         int weighting;
 
         /**
-         * The sum of all dependencies weights
+         * The sum of the weights of all dependencies that are active, a closed stream that has no active dependents
+         * does not take a share of the connection
          */
         int totalWeights;
 
         /**
-         * streams that depend on this stream, in weighted order. May contains null at the end of the list
+         * streams that depend on this stream, as a doubly linked list
          */
-        private Http2PriorityNode[] dependents = null;
+        private Http2PriorityNode firstDependent;
+        private Http2PriorityNode previousSibling;
+        private Http2PriorityNode nextSibling;
+
+        boolean closed;
+
+        /**
+         * The virtual finish time of the last frame that was scheduled for this stream
+         */
+        double lastFinishTime;
+
+        /**
+         * The cached share of the connection, valid as long as the tree version has not changed
+         */
+        double share;
+        int shareVersion = -1;
 
         Http2PriorityNode(int streamId, int weighting) {
             this.streamId = streamId;
             this.weighting = weighting;
         }
 
+        /**
+         * @return The weight this node contributes to its parent
+         */
+        int activeWeighting() {
+            return closed && totalWeights == 0 ? 0 : weighting;
+        }
 
         void removeDependent(Http2PriorityNode node) {
-            if(dependents == null) {
-                return;
+            int oldWeighting = activeWeighting();
+            if (node.previousSibling == null) {
+                firstDependent = node.nextSibling;
+            } else {
+                node.previousSibling.nextSibling = node.nextSibling;
             }
-            totalWeights -= node.weighting;
-            boolean found = false;
-            int i;
-            for(i = 0; i < dependents.length - 1; ++i ) {
-                if(dependents[i] == node) {
-                    found = true;
-                }
-                if(found) {
-                    dependents[i] = dependents[i + i];
-                }
-                if(dependents[i] == null) {
-                    break;
-                }
-            }
-            if(found) {
-                dependents[i + 1] = null;
+            if (node.nextSibling != null) {
+                node.nextSibling.previousSibling = node.previousSibling;
             }
+            node.previousSibling = null;
+            node.nextSibling = null;
+            node.parent = null;
+            totalWeights -= node.activeWeighting();
+            updateParentWeights(oldWeighting);
         }
 
         boolean hasDependents() {
-            return dependents != null && dependents[0] != null;
+            return firstDependent != null;
         }
 
-
-        public void addDependent(Http2PriorityNode node) {
-            if(dependents == null) {
-                dependents = new Http2PriorityNode[5];
-            }
-            int i = 0;
-            boolean found = false;
-            for(; i < dependents.length; ++i ) {
-                if(dependents[i] == null) {
-                    found = true;
-                    break;
-                }
-            }
-            if(!found) {
-                Http2PriorityNode[] old = dependents;
-                dependents = new Http2PriorityNode[dependents.length + 5];
-                System.arraycopy(old, 0, dependents, 0, old.length);
-                ++i;
+        void addDependent(Http2PriorityNode node) {
+            int oldWeighting = activeWeighting();
+            node.nextSibling = firstDependent;
+            if (firstDependent != null) {
+                firstDependent.previousSibling = node;
             }
-            dependents[i] = node;
+            firstDependent = node;
             node.parent = this;
-            totalWeights += node.weighting;
+            totalWeights += node.activeWeighting();
+            updateParentWeights(oldWeighting);
         }
 
-        public void exclusive(Http2PriorityNode node) {
-            if(dependents == null) {
-                dependents = new Http2PriorityNode[5];
-            }
-
-            for(Http2PriorityNode i : dependents) {
-                if(i != null) {
-                    node.addDependent(i);
-                }
-            }
-            dependents[0] = node;
-            for(int i = 1; i < dependents.length; ++ i) {
-                dependents[i] = null;
+        /**
+         * A closed stream is active while it has active dependents, so the total weights of its ancestors must
+         * change when it gains its first active dependent or loses its last one
+         */
+        void updateParentWeights(int oldWeighting) {
+            int newWeighting = activeWeighting();
+            if (parent != null && newWeighting != oldWeighting) {
+                int oldParentWeighting = parent.activeWeighting();
+                parent.totalWeights += newWeighting - oldWeighting;
+                parent.updateParentWeights(oldParentWeighting);
             }
-            totalWeights = node.weighting;
         }
     }
 }
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.http2;
+
+import java.util.Arrays;
+
+/**
+ * Grows the receive window of a HTTP2 connection to match the bandwidth-delay product of the link.
+ * <p>
+ * When data is received and no measurement is in progress a PING is sent, and the amount of data that arrives
+ * before it is acknowledged is counted. This is an estimate of how much data the peer can have in flight in one
+ * round trip. If it comes close to the current window then the window is what is limiting the transfer, so the
+ * window is grown to twice the estimate, up to the configured maximum. Once the maximum has been reached no more
+ * measurements are taken.
+ * <p>
+ * This class is not thread safe, it is intended to be protected by an external lock.
+ */
+final class Http2ReceiveWindowTuner {
+
+    /**
+     * The payload that is used for the PING frames that measure the round trip time
+     */
+    static final byte[] PING_DATA = {'U', 'n', 'd', 'e', 'r', 'B', 'D', 'P'};
+
+    private final int maxWindowSize;
+    private int windowSize;
+
+    private boolean pingOutstanding;
+    private long pingSentTime;
+    private long bytesSincePing;
+    private long roundTripTime = -1;
+
+    Http2ReceiveWindowTuner(int initialWindowSize, int maxWindowSize) {
+        this.windowSize = initialWindowSize;
+        this.maxWindowSize = Math.max(initialWindowSize, maxWindowSize);
+    }
+
+    /**
+     * Invoked when a DATA frame is received.
+     *
+     * @param length The length of the frame
+     * @param now    The current time in nanoseconds
+     * @return <code>true</code> if a PING frame with {@link #PING_DATA} should be sent to start a measurement
+     */
+    boolean dataReceived(int length, long now) {
+        if (windowSize >= maxWindowSize) {
+            return false;
+        }
+        if (pingOutstanding) {
+            bytesSincePing += length;
+            return false;
+        }
+        pingOutstanding = true;
+        pingSentTime = now;
+        bytesSincePing = 0;
+        return true;
+    }
+
+    /**
+     * Invoked when a PING acknowledgement is received.
+     *
+     * @param data The ping payload
+     * @param now  The current time in nanoseconds
+     * @return The new window size, or -1 if the window size has not changed
+     */
+    int pingAcknowledged(byte[] data, long now) {
+        if (!pingOutstanding || !Arrays.equals(data, PING_DATA)) {
+            return -1;
+        }
+        pingOutstanding = false;
+        roundTripTime = now - pingSentTime;
+        //if the peer managed to send most of a window in a single round trip then the window is too small
+        if (bytesSincePing >= windowSize * 2L / 3 && windowSize < maxWindowSize) {
+            windowSize = (int) Math.min(maxWindowSize, Math.max(bytesSincePing * 2, windowSize * 2L));
+            return windowSize;
+        }
+        return -1;
+    }
+
+    int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return The last measured round trip time in nanoseconds, or -1 if it has not been measured
+     */
+    long getRoundTripTime() {
+        return roundTripTime;
+    }
+}
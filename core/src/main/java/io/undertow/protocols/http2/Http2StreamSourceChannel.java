@@ -48,6 +48,7 @@ public class Http2StreamSourceChannel extends AbstractHttp2StreamSourceChannel i
     private final int streamId;
     private Http2HeadersStreamSinkChannel response;
     private int flowControlWindow;
+    private volatile boolean endStreamReceived;
     private ChannelListener<Http2StreamSourceChannel> completionListener;
 
     private int remainingPadding;
@@ -180,10 +181,13 @@ public class Http2StreamSourceChannel extends AbstractHttp2StreamSourceChannel i
         //TODO: make this configurable, we should be able to set the policy that is used to determine when to update the window size
         Http2Channel http2Channel = getHttp2Channel();
         http2Channel.updateReceiveFlowControlWindow(read);
-        int initialWindowSize = http2Channel.getInitialReceiveWindowSize();
-        //TODO: this is not great, as we may have already received all the data so there is no need, need to have a way to figure out if all data is buffered
-        if (flowControlWindow < (initialWindowSize / 2)) {
-            int delta = initialWindowSize - flowControlWindow;
+        if (endStreamReceived) {
+            //the peer has sent all its data, so there is no point opening up the window again
+            return;
+        }
+        int windowTarget = http2Channel.getReceiveWindowTarget();
+        if (flowControlWindow < (windowTarget / 2)) {
+            int delta = windowTarget - flowControlWindow;
             flowControlWindow += delta;
             http2Channel.sendUpdateWindowSize(streamId, delta);
         }
@@ -261,6 +265,9 @@ public class Http2StreamSourceChannel extends AbstractHttp2StreamSourceChannel i
      * @param last If this is the last frame
      */
     void updateContentSize(long frameLength, boolean last) {
+        if(last) {
+            endStreamReceived = true;
+        }
         if(contentLengthRemaining != -1) {
             contentLengthRemaining -= frameLength;
             if(contentLengthRemaining < 0) {
@@ -0,0 +1,43 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.ssl;
+
+import java.net.InetSocketAddress;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.xnio.OptionMap;
+import org.xnio.ssl.JsseSslUtils;
+
+/**
+ * The default engine factory, which creates engines from the SSL context.
+ */
+public final class JsseSSLEngineFactory implements SSLEngineFactory {
+
+    public static final JsseSSLEngineFactory INSTANCE = new JsseSSLEngineFactory();
+
+    private JsseSSLEngineFactory() {
+    }
+
+    @Override
+    public SSLEngine createSSLEngine(SSLContext sslContext, OptionMap optionMap, InetSocketAddress peerAddress) {
+        return JsseSslUtils.createSSLEngine(sslContext, optionMap, peerAddress);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.ssl;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.xnio.OptionMap;
+
+/**
+ * Creates the {@link SSLEngine} instances that are used by {@link UndertowXnioSsl}. This allows an alternative TLS
+ * implementation, such as an engine backed by a native library, to be used instead of the one provided by the
+ * SSL context.
+ * <p>
+ * A factory can be passed to {@link UndertowXnioSsl} directly, otherwise the first factory that is registered as
+ * a service under <code>META-INF/services/io.undertow.protocols.ssl.SSLEngineFactory</code> is used. If there is
+ * no such service then JSSE is used.
+ */
+public interface SSLEngineFactory {
+
+    /**
+     * Creates an engine for a new connection. The engine must be configured from the SSL options in the option map
+     * in the same way as {@link org.xnio.ssl.JsseSslUtils#createSSLEngine(SSLContext, OptionMap, InetSocketAddress)}.
+     * Server side connections are configured further once the engine has been created.
+     *
+     * @param sslContext  The SSL context of the listener or client
+     * @param optionMap   The SSL options
+     * @param peerAddress The address of the peer
+     * @return The engine
+     */
+    SSLEngine createSSLEngine(SSLContext sslContext, OptionMap optionMap, InetSocketAddress peerAddress);
+
+    /**
+     * Sets the keys that are used to protect TLS session tickets. The first key is used to encrypt new tickets, all
+     * of the keys are accepted when a ticket is decrypted, so tickets issued before a key rotation can still be used.
+     * <p>
+     * JSSE does not allow the ticket keys to be set, so by default the keys are ignored.
+     *
+     * @param keys The ticket keys, newest first
+     * @see SessionTicketKeyRotator
+     */
+    default void setSessionTicketKeys(List<byte[]> keys) {
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.ssl;
+
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.xnio.XnioExecutor;
+
+/**
+ * Generates and periodically rotates the keys that protect TLS session tickets, and hands them to every registered
+ * {@link SSLEngineFactory}. If the same rotator is used for all listeners then a ticket that was issued by one
+ * listener can be used to resume the session on any of them.
+ * <p>
+ * A number of previous keys are retained, so tickets that were issued shortly before a rotation can still be used.
+ */
+public class SessionTicketKeyRotator {
+
+    /**
+     * The length of a session ticket key, which is the name, HMAC secret and AES key
+     */
+    public static final int KEY_LENGTH = 48;
+
+    private final SecureRandom random = new SecureRandom();
+    private final List<SSLEngineFactory> factories = new CopyOnWriteArrayList<>();
+    private final Deque<byte[]> keys = new ArrayDeque<>();
+    private final int retainedKeys;
+
+    private XnioExecutor.Key timerKey;
+
+    /**
+     * @param retainedKeys The number of keys that are accepted for decryption, including the current key
+     */
+    public SessionTicketKeyRotator(int retainedKeys) {
+        if (retainedKeys < 1) {
+            throw new IllegalArgumentException("retainedKeys");
+        }
+        this.retainedKeys = retainedKeys;
+    }
+
+    public SessionTicketKeyRotator() {
+        this(2);
+    }
+
+    /**
+     * Registers a factory. If keys have already been generated the factory is given the current keys straight away.
+     * Registering the same factory more than once has no effect.
+     *
+     * @param factory The factory
+     */
+    public synchronized void addEngineFactory(SSLEngineFactory factory) {
+        if (factories.contains(factory)) {
+            return;
+        }
+        factories.add(factory);
+        if (!keys.isEmpty()) {
+            factory.setSessionTicketKeys(getKeys());
+        }
+    }
+
+    public synchronized void removeEngineFactory(SSLEngineFactory factory) {
+        factories.remove(factory);
+    }
+
+    /**
+     * Generates a new key for new tickets, and discards the oldest key if more than the retained number of keys
+     * are present.
+     */
+    public synchronized void rotate() {
+        byte[] key = new byte[KEY_LENGTH];
+        random.nextBytes(key);
+        keys.addFirst(key);
+        while (keys.size() > retainedKeys) {
+            keys.removeLast();
+        }
+        List<byte[]> current = getKeys();
+        for (SSLEngineFactory factory : factories) {
+            factory.setSessionTicketKeys(current);
+        }
+    }
+
+    /**
+     * @return The current keys, newest first
+     */
+    public synchronized List<byte[]> getKeys() {
+        List<byte[]> result = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            result.add(key.clone());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Generates the first key and schedules rotation at a fixed interval.
+     *
+     * @param executor The executor that is used to run the rotation, normally an IO thread of the worker
+     * @param interval The rotation interval
+     * @param unit     The unit of the interval
+     */
+    public synchronized void start(final XnioExecutor executor, final long interval, final TimeUnit unit) {
+        if (timerKey != null) {
+            throw new IllegalStateException();
+        }
+        rotate();
+        schedule(executor, interval, unit);
+    }
+
+    public synchronized void stop() {
+        if (timerKey != null) {
+            timerKey.remove();
+            timerKey = null;
+        }
+    }
+
+    private void schedule(final XnioExecutor executor, final long interval, final TimeUnit unit) {
+        timerKey = executor.executeAfter(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (SessionTicketKeyRotator.this) {
+                    if (timerKey == null) {
+                        //stopped
+                        return;
+                    }
+                    rotate();
+                    schedule(executor, interval, unit);
+                }
+            }
+        }, interval, unit);
+    }
+}
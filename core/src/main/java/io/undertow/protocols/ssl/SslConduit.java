@@ -124,6 +124,12 @@ public class SslConduit implements StreamSourceConduit, StreamSinkConduit {
     private final StreamSinkConduit sink;
     private final StreamSourceConduit source;
     private final ByteBufferPool bufferPool;
+
+    /**
+     * The pool that outbound data is wrapped into. If this is not the same as the buffer pool then it is big enough to
+     * hold several records, and records are wrapped until it is full before it is written out.
+     */
+    private final ByteBufferPool wrapBufferPool;
     private final Runnable handshakeCallback;
 
     private volatile int state = 0;
@@ -185,6 +191,10 @@ public class SslConduit implements StreamSourceConduit, StreamSinkConduit {
     };
 
     SslConduit(UndertowSslConnection connection, StreamConnection delegate, SSLEngine engine, ByteBufferPool bufferPool, Runnable handshakeCallback) {
+        this(connection, delegate, engine, bufferPool, null, handshakeCallback);
+    }
+
+    SslConduit(UndertowSslConnection connection, StreamConnection delegate, SSLEngine engine, ByteBufferPool bufferPool, ByteBufferPool wrapBufferPool, Runnable handshakeCallback) {
         this.connection = connection;
         this.delegate = delegate;
         this.handshakeCallback = handshakeCallback;
@@ -192,6 +202,7 @@ public class SslConduit implements StreamSourceConduit, StreamSinkConduit {
         this.source = delegate.getSourceChannel().getConduit();
         this.engine = engine;
         this.bufferPool = bufferPool;
+        this.wrapBufferPool = wrapBufferPool == null ? bufferPool : wrapBufferPool;
         delegate.getSourceChannel().getConduit().setReadReadyHandler(readReadyHandler = new SslReadReadyHandler(null));
         delegate.getSinkChannel().getConduit().setWriteReadyHandler(writeReadyHandler = new SslWriteReadyHandler(null));
         if(engine.getUseClientMode()) {
@@ -859,7 +870,7 @@ public class SslConduit implements StreamSourceConduit, StreamSinkConduit {
             }
             wrappedData.getBuffer().clear();
         } else {
-            wrappedData = bufferPool.allocate();
+            wrappedData = wrapBufferPool.allocate();
         }
         try {
             SSLEngineResult result = null;
@@ -870,6 +881,9 @@ public class SslConduit implements StreamSourceConduit, StreamSinkConduit {
                     result = engine.wrap(userBuffers, off, len, wrappedData.getBuffer());
                 }
             }
+            if (userBuffers != null && wrapBufferPool != bufferPool) {
+                result = wrapBatch(result, userBuffers, off, len, wrappedData.getBuffer());
+            }
             wrappedData.getBuffer().flip();
 
             if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
@@ -912,6 +926,36 @@ public class SslConduit implements StreamSourceConduit, StreamSinkConduit {
         }
     }
 
+    /**
+     * Wraps further records into the wrapped data buffer, so they can all be written out with a single write. This
+     * only happens once the handshake is complete, and stops when there is no room for another full record.
+     *
+     * @return A result that covers all the records that were wrapped
+     */
+    private SSLEngineResult wrapBatch(SSLEngineResult result, ByteBuffer[] userBuffers, int off, int len, ByteBuffer wrapped) throws SSLException {
+        int consumed = result.bytesConsumed();
+        int produced = result.bytesProduced();
+        if (consumed == 0) {
+            return result;
+        }
+        int packetBufferSize = engine.getSession().getPacketBufferSize();
+        while (result.getStatus() == SSLEngineResult.Status.OK
+                && result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+                && wrapped.remaining() >= packetBufferSize
+                && Buffers.hasRemaining(userBuffers, off, len)) {
+            result = engine.wrap(userBuffers, off, len, wrapped);
+            if (result.bytesConsumed() == 0) {
+                break;
+            }
+            consumed += result.bytesConsumed();
+            produced += result.bytesProduced();
+        }
+        if (consumed == result.bytesConsumed()) {
+            return result;
+        }
+        return new SSLEngineResult(result.getStatus(), result.getHandshakeStatus(), consumed, produced);
+    }
+
     private boolean handleHandshakeResult(SSLEngineResult result) throws IOException {
         switch (result.getHandshakeStatus()) {
             case NEED_TASK: {
@@ -21,6 +21,7 @@ package io.undertow.protocols.ssl;
 import io.undertow.UndertowLogger;
 import io.undertow.UndertowOptions;
 import io.undertow.connector.ByteBufferPool;
+import io.undertow.server.DefaultByteBufferPool;
 import org.xnio.ChannelListener;
 import org.xnio.ChannelListeners;
 import org.xnio.IoUtils;
@@ -30,7 +31,6 @@ import org.xnio.Options;
 import org.xnio.Sequence;
 import org.xnio.SslClientAuthMode;
 import org.xnio.StreamConnection;
-import org.xnio.Xnio;
 import org.xnio.XnioExecutor;
 import org.xnio.XnioIoThread;
 import org.xnio.XnioWorker;
@@ -40,7 +40,6 @@ import org.xnio.ssl.SslConnection;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.ArrayList;
@@ -94,6 +93,16 @@ class UndertowAcceptingSslChannel implements AcceptingChannel<SslConnection> {
     protected final boolean startTls;
     protected final ByteBufferPool applicationBufferPool;
     private final boolean useCipherSuitesOrder;
+    private final int batchedWrapRecords;
+    private ByteBufferPool wrapBufferPool;
+    private int wrapBufferPoolUsers;
+    private boolean closed;
+    private final Runnable wrapBufferPoolReleaseTask = new Runnable() {
+        @Override
+        public void run() {
+            releaseWrapBufferPool();
+        }
+    };
 
     UndertowAcceptingSslChannel(final UndertowXnioSsl ssl, final AcceptingChannel<? extends StreamConnection> tcpServer, final OptionMap optionMap, final ByteBufferPool applicationBufferPool, final boolean startTls) {
         this.tcpServer = tcpServer;
@@ -112,6 +121,7 @@ class UndertowAcceptingSslChannel implements AcceptingChannel<SslConnection> {
         //noinspection ThisEscapedInObjectConstruction
         acceptSetter = ChannelListeners.<AcceptingChannel<SslConnection>>getDelegatingSetter(tcpServer.getAcceptSetter(), this);
         useCipherSuitesOrder = optionMap.get(UndertowOptions.SSL_USER_CIPHER_SUITES_ORDER, false);
+        batchedWrapRecords = optionMap.get(UndertowOptions.SSL_BATCHED_WRAP_RECORDS, 1);
     }
 
     private static final Set<Option<?>> SUPPORTED_OPTIONS = Option.setBuilder()
@@ -158,7 +168,7 @@ class UndertowAcceptingSslChannel implements AcceptingChannel<SslConnection> {
         }
         try {
             final InetSocketAddress peerAddress = tcpConnection.getPeerAddress(InetSocketAddress.class);
-            final SSLEngine engine = ssl.getSslContext().createSSLEngine(getHostNameNoResolve(peerAddress), peerAddress.getPort());
+            final SSLEngine engine = ssl.createSSLEngine(OptionMap.EMPTY, peerAddress);
 
             if(USE_CIPHER_SUITES_METHOD != null && useCipherSuitesOrder) {
                 SSLParameters sslParameters = engine.getSSLParameters();
@@ -220,7 +230,45 @@ class UndertowAcceptingSslChannel implements AcceptingChannel<SslConnection> {
     }
 
     protected UndertowSslConnection accept(StreamConnection tcpServer, SSLEngine sslEngine) throws IOException {
-        return new UndertowSslConnection(tcpServer, sslEngine, applicationBufferPool);
+        ByteBufferPool wrapBufferPool = acquireWrapBufferPool(sslEngine);
+        if (wrapBufferPool == null) {
+            return new UndertowSslConnection(tcpServer, sslEngine, applicationBufferPool);
+        }
+        return new UndertowSslConnection(tcpServer, sslEngine, applicationBufferPool, wrapBufferPool, wrapBufferPoolReleaseTask);
+    }
+
+    /**
+     * Returns the pool that outbound data is wrapped into if batched wrapping is enabled. The buffer size is based on
+     * the packet buffer size of the engine, so it is created when the first connection is accepted.
+     * <p>
+     * Every connection that is given the pool must call {@link #releaseWrapBufferPool()} when it closes. The pool is
+     * closed once this channel and all the connections that use it have been closed.
+     *
+     * @return The pool, or null if batched wrapping is not enabled
+     */
+    private synchronized ByteBufferPool acquireWrapBufferPool(SSLEngine sslEngine) {
+        if (batchedWrapRecords <= 1 || closed) {
+            return null;
+        }
+        if (wrapBufferPool == null) {
+            int packetBufferSize = sslEngine.getSession().getPacketBufferSize();
+            wrapBufferPool = new DefaultByteBufferPool(true, packetBufferSize * batchedWrapRecords, -1, 4);
+        }
+        ++wrapBufferPoolUsers;
+        return wrapBufferPool;
+    }
+
+    private synchronized void releaseWrapBufferPool() {
+        if (--wrapBufferPoolUsers == 0 && closed) {
+            closeWrapBufferPool();
+        }
+    }
+
+    private void closeWrapBufferPool() {
+        if (wrapBufferPool != null) {
+            wrapBufferPool.close();
+            wrapBufferPool = null;
+        }
     }
 
     public ChannelListener.Setter<? extends AcceptingChannel<SslConnection>> getCloseSetter() {
@@ -232,7 +280,17 @@ class UndertowAcceptingSslChannel implements AcceptingChannel<SslConnection> {
     }
 
     public void close() throws IOException {
-        tcpServer.close();
+        try {
+            tcpServer.close();
+        } finally {
+            synchronized (this) {
+                closed = true;
+                //connections that are still open keep using the pool, the last one to close will close it
+                if (wrapBufferPoolUsers == 0) {
+                    closeWrapBufferPool();
+                }
+            }
+        }
     }
 
     public boolean supportsOption(final Option<?> option) {
@@ -302,28 +360,4 @@ class UndertowAcceptingSslChannel implements AcceptingChannel<SslConnection> {
     public XnioIoThread getIoThread() {
         return tcpServer.getIoThread();
     }
-
-
-    private static String getHostNameNoResolve(InetSocketAddress socketAddress) {
-        if (Xnio.NIO2) {
-            return socketAddress.getHostString();
-        } else {
-            String hostName;
-            if (socketAddress.isUnresolved()) {
-                hostName = socketAddress.getHostName();
-            } else {
-                final InetAddress address = socketAddress.getAddress();
-                final String string = address.toString();
-                final int slash = string.indexOf('/');
-                if (slash == -1 || slash == 0) {
-                    // unresolved both ways
-                    hostName = string.substring(slash + 1);
-                } else {
-                    // has a cached host name
-                    hostName = string.substring(0, slash);
-                }
-            }
-            return hostName;
-        }
-    }
 }
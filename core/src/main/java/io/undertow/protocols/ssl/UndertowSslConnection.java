@@ -44,6 +44,7 @@ class UndertowSslConnection extends SslConnection {
     private final SslConduit sslConduit;
     private final ChannelListener.SimpleSetter<SslConnection> handshakeSetter = new ChannelListener.SimpleSetter<>();
     private final SSLEngine engine;
+    private final Runnable closeTask;
 
     /**
      * Construct a new instance.
@@ -51,10 +52,22 @@ class UndertowSslConnection extends SslConnection {
      * @param delegate the underlying connection
      */
     UndertowSslConnection(StreamConnection delegate, SSLEngine engine, ByteBufferPool bufferPool) {
+        this(delegate, engine, bufferPool, null, null);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param delegate the underlying connection
+     * @param wrapBufferPool the pool that outbound data is wrapped into, or null to use the buffer pool
+     * @param closeTask a task that is run once the connection has closed, may be null
+     */
+    UndertowSslConnection(StreamConnection delegate, SSLEngine engine, ByteBufferPool bufferPool, ByteBufferPool wrapBufferPool, Runnable closeTask) {
         super(delegate.getIoThread());
         this.delegate = delegate;
         this.engine = engine;
-        sslConduit = new SslConduit(this, delegate, engine, bufferPool, new HandshakeCallback());
+        this.closeTask = closeTask;
+        sslConduit = new SslConduit(this, delegate, engine, bufferPool, wrapBufferPool, new HandshakeCallback());
         setSourceConduit(sslConduit);
         setSinkConduit(sslConduit);
     }
@@ -146,7 +159,13 @@ class UndertowSslConnection extends SslConnection {
     }
 
     protected void closeAction() {
-        sslConduit.close();
+        try {
+            sslConduit.close();
+        } finally {
+            if (closeTask != null) {
+                closeTask.run();
+            }
+        }
     }
 
     private final class HandshakeCallback implements Runnable {
@@ -50,6 +50,7 @@ import java.net.SocketAddress;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.util.ServiceLoader;
 import java.util.concurrent.TimeUnit;
 
 import static org.xnio.IoUtils.safeClose;
@@ -61,7 +62,10 @@ public class UndertowXnioSsl extends XnioSsl {
 
     private static final ByteBufferPool DEFAULT_BUFFER_POOL = new DefaultByteBufferPool(true, 17 * 1024, -1, 12);
 
+    private static final SSLEngineFactory DEFAULT_ENGINE_FACTORY = loadEngineFactory();
+
     private final ByteBufferPool bufferPool;
+    private final SSLEngineFactory engineFactory;
     private volatile SSLContext sslContext;
 
     /**
@@ -87,6 +91,17 @@ public class UndertowXnioSsl extends XnioSsl {
         this(xnio, optionMap, DEFAULT_BUFFER_POOL, sslContext);
     }
 
+    /**
+     * Construct a new instance.
+     *  @param xnio the XNIO instance to associate with
+     * @param optionMap the options for this provider
+     * @param sslContext the SSL context to use for this instance
+     * @param engineFactory the factory that creates the SSL engines
+     */
+    public UndertowXnioSsl(final Xnio xnio, final OptionMap optionMap, final SSLContext sslContext, final SSLEngineFactory engineFactory) {
+        this(xnio, optionMap, DEFAULT_BUFFER_POOL, sslContext, engineFactory);
+    }
+
     /**
      * Construct a new instance.
      *
@@ -109,9 +124,32 @@ public class UndertowXnioSsl extends XnioSsl {
      * @param sslContext the SSL context to use for this instance
      */
     public UndertowXnioSsl(final Xnio xnio, final OptionMap optionMap, ByteBufferPool bufferPool, final SSLContext sslContext) {
+        this(xnio, optionMap, bufferPool, sslContext, DEFAULT_ENGINE_FACTORY);
+    }
+
+    /**
+     * Construct a new instance.
+     *  @param xnio the XNIO instance to associate with
+     * @param optionMap the options for this provider
+     * @param bufferPool
+     * @param sslContext the SSL context to use for this instance
+     * @param engineFactory the factory that creates the SSL engines
+     */
+    public UndertowXnioSsl(final Xnio xnio, final OptionMap optionMap, ByteBufferPool bufferPool, final SSLContext sslContext, final SSLEngineFactory engineFactory) {
         super(xnio, sslContext, optionMap);
         this.bufferPool = bufferPool;
         this.sslContext = sslContext;
+        this.engineFactory = engineFactory;
+    }
+
+    /**
+     * Loads the engine factory that has been registered as a service, or returns the JSSE factory if there is none.
+     */
+    private static SSLEngineFactory loadEngineFactory() {
+        for (SSLEngineFactory factory : ServiceLoader.load(SSLEngineFactory.class, UndertowXnioSsl.class.getClassLoader())) {
+            return factory;
+        }
+        return JsseSSLEngineFactory.INSTANCE;
     }
 
     /**
@@ -124,6 +162,19 @@ public class UndertowXnioSsl extends XnioSsl {
         return sslContext;
     }
 
+    /**
+     * Get the factory that creates the SSL engines for this provider instance.
+     *
+     * @return the engine factory
+     */
+    public SSLEngineFactory getEngineFactory() {
+        return engineFactory;
+    }
+
+    SSLEngine createSSLEngine(OptionMap optionMap, InetSocketAddress peerAddress) {
+        return engineFactory.createSSLEngine(sslContext, optionMap, peerAddress);
+    }
+
     /**
      * Get the SSL engine for a given connection.
      *
@@ -184,7 +235,7 @@ public class UndertowXnioSsl extends XnioSsl {
     }
 
     public SslConnection wrapExistingConnection(StreamConnection connection, OptionMap optionMap) {
-        return new UndertowSslConnection(connection, JsseSslUtils.createSSLEngine(sslContext, optionMap, (InetSocketAddress) connection.getPeerAddress()), bufferPool);
+        return new UndertowSslConnection(connection, createSSLEngine(optionMap, (InetSocketAddress) connection.getPeerAddress()), bufferPool);
     }
 
     private IoFuture<SslConnection> setupSslConnection(FutureResult<SslConnection> futureResult, IoFuture<StreamConnection> connection) {
@@ -318,7 +369,7 @@ public class UndertowXnioSsl extends XnioSsl {
 
         public void handleEvent(final StreamConnection connection) {
             try {
-                final SslConnection wrappedConnection = new UndertowSslConnection(connection, JsseSslUtils.createSSLEngine(sslContext, optionMap, destination), bufferPool);
+                final SslConnection wrappedConnection = new UndertowSslConnection(connection, createSSLEngine(optionMap, destination), bufferPool);
                 if (!futureResult.setResult(wrappedConnection)) {
                     IoUtils.safeClose(connection);
                 } else {
@@ -22,13 +22,20 @@ import io.undertow.server.ExchangeCompletionListener;
 import io.undertow.server.HandlerWrapper;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.util.LatencyHistogram;
 
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Handler that records some metrics
+ * <p>
+ * In high resolution mode request times are measured in nanoseconds and recorded into striped
+ * {@link LatencyHistogram}s, one per response status class. This avoids contention on a single shared
+ * result object, and allows percentiles to be reported via {@link #getLatencyMetrics()}. The values returned
+ * by {@link #getMetrics()} are derived from the histograms in this mode.
  *
  * @author Stuart Douglas
  */
@@ -41,15 +48,47 @@ public class MetricsHandler implements HttpHandler {
         }
     };
 
+    public static final HandlerWrapper HIGH_RESOLUTION_WRAPPER = new HandlerWrapper() {
+        @Override
+        public HttpHandler wrap(HttpHandler handler) {
+            return new MetricsHandler(handler, true);
+        }
+    };
+
     private volatile MetricResult totalResult = new MetricResult(new Date());
+    private volatile LatencyResult latencyResult;
     private final HttpHandler next;
 
     public MetricsHandler(HttpHandler next) {
+        this(next, false);
+    }
+
+    /**
+     * @param next           The next handler
+     * @param highResolution If request times should be recorded in nanoseconds into latency histograms
+     */
+    public MetricsHandler(HttpHandler next, boolean highResolution) {
         this.next = next;
+        if (highResolution) {
+            this.latencyResult = new LatencyResult(new Date());
+        }
     }
 
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
+        final LatencyResult latencyResult = this.latencyResult;
+        if (latencyResult != null) {
+            final long start = System.nanoTime();
+            exchange.addExchangeCompleteListener(new ExchangeCompletionListener() {
+                @Override
+                public void exchangeEvent(HttpServerExchange exchange, NextListener nextListener) {
+                    latencyResult.update(System.nanoTime() - start, exchange.getStatusCode());
+                    nextListener.proceed();
+                }
+            });
+            next.handleRequest(exchange);
+            return;
+        }
         final long start = System.currentTimeMillis();
         exchange.addExchangeCompleteListener(new ExchangeCompletionListener() {
             @Override
@@ -64,12 +103,26 @@ public class MetricsHandler implements HttpHandler {
 
     public void reset() {
         this.totalResult = new MetricResult(new Date());
+        if (latencyResult != null) {
+            this.latencyResult = new LatencyResult(new Date());
+        }
     }
 
     public MetricResult getMetrics() {
+        LatencyResult latencyResult = this.latencyResult;
+        if (latencyResult != null) {
+            return latencyResult.toMetricResult();
+        }
         return new MetricResult(this.totalResult);
     }
 
+    /**
+     * @return The latency histograms, or <code>null</code> if this handler is not in high resolution mode
+     */
+    public LatencyResult getLatencyMetrics() {
+        return latencyResult;
+    }
+
     public static class MetricResult {
 
         private static final AtomicLongFieldUpdater<MetricResult> totalRequestTimeUpdater = AtomicLongFieldUpdater.newUpdater(MetricResult.class, "totalRequestTime");
@@ -90,6 +143,15 @@ public class MetricsHandler implements HttpHandler {
             this.metricsStartDate = metricsStartDate;
         }
 
+        MetricResult(Date metricsStartDate, long totalRequestTime, int maxRequestTime, int minRequestTime, long totalRequests, long totalErrors) {
+            this.metricsStartDate = metricsStartDate;
+            this.totalRequestTime = totalRequestTime;
+            this.maxRequestTime = maxRequestTime;
+            this.minRequestTime = minRequestTime;
+            this.totalRequests = totalRequests;
+            this.totalErrors = totalErrors;
+        }
+
         public MetricResult(MetricResult copy) {
             this.metricsStartDate = copy.metricsStartDate;
             this.totalRequestTime = copy.totalRequestTime;
@@ -148,4 +210,64 @@ public class MetricsHandler implements HttpHandler {
             return totalErrors;
         }
     }
+
+    /**
+     * Nanosecond latency histograms, broken down by response status class.
+     */
+    public static class LatencyResult {
+
+        private static final int STATUS_CLASSES = 5;
+
+        private final Date metricsStartDate;
+        private final LatencyHistogram[] histograms = new LatencyHistogram[STATUS_CLASSES];
+
+        LatencyResult(Date metricsStartDate) {
+            this.metricsStartDate = metricsStartDate;
+            for (int i = 0; i < STATUS_CLASSES; ++i) {
+                histograms[i] = new LatencyHistogram();
+            }
+        }
+
+        void update(long requestTime, int statusCode) {
+            histograms[statusClassIndex(statusCode / 100)].record(requestTime);
+        }
+
+        private static int statusClassIndex(int statusClass) {
+            return Math.min(Math.max(statusClass, 1), STATUS_CLASSES) - 1;
+        }
+
+        public Date getMetricsStartDate() {
+            return metricsStartDate;
+        }
+
+        /**
+         * @param statusClass The status class, e.g. 2 for 2xx responses
+         * @return The request times in nanoseconds for responses with the given status class
+         */
+        public LatencyHistogram.Snapshot getStatusClass(int statusClass) {
+            if (statusClass < 1 || statusClass > STATUS_CLASSES) {
+                throw new IllegalArgumentException("statusClass");
+            }
+            return histograms[statusClass - 1].snapshot();
+        }
+
+        /**
+         * @return The request times in nanoseconds for all responses
+         */
+        public LatencyHistogram.Snapshot getTotal() {
+            LatencyHistogram.Snapshot result = histograms[0].snapshot();
+            for (int i = 1; i < STATUS_CLASSES; ++i) {
+                result = result.merge(histograms[i].snapshot());
+            }
+            return result;
+        }
+
+        MetricResult toMetricResult() {
+            LatencyHistogram.Snapshot total = getTotal();
+            long errors = histograms[3].snapshot().getCount() + histograms[4].snapshot().getCount();
+            int min = total.getCount() == 0 ? -1 : (int) TimeUnit.NANOSECONDS.toMillis(total.getMin());
+            return new MetricResult(metricsStartDate, TimeUnit.NANOSECONDS.toMillis(total.getTotal()),
+                    (int) TimeUnit.NANOSECONDS.toMillis(total.getMax()), min, total.getCount(), errors);
+        }
+    }
 }
@@ -0,0 +1,571 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.accesslog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.undertow.UndertowLogger;
+import io.undertow.UndertowMessages;
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.util.ImmediatePooledByteBuffer;
+
+/**
+ * Log receiver that encodes log lines directly into pooled buffers, and writes them to a file in batches.
+ * <p>
+ * Each thread appends lines to its own buffer taken from a {@link ByteBufferPool}, which is normally the server's
+ * buffer pool. Once that buffer is full it is queued for writing, and the queued buffers are written with a single
+ * gather write on the flush thread. Partially filled buffers are collected once per flush interval, so a line
+ * reaches the file at most one interval after it was logged. Lines from the same thread are written in order, but
+ * lines from different threads may be interleaved in batches.
+ * <p>
+ * The number of queued buffers is bounded. If the disk cannot keep up, lines are dropped rather than queued, and
+ * the number of dropped lines is available from {@link #getDroppedLines()}. Lines that could not be written
+ * because of an IO error are also counted as dropped.
+ * <p>
+ * Log files are rotated in the same way as {@link DefaultAccessLogReceiver}.
+ */
+public class BatchedAccessLogReceiver implements AccessLogReceiver, Closeable {
+
+    private static final String DEFAULT_LOG_SUFFIX = "log";
+
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    public static final int DEFAULT_MAX_PENDING_BUFFERS = 256;
+
+    private final ByteBufferPool bufferPool;
+    private final ScheduledExecutorService flushExecutor;
+    private final boolean ownsFlushExecutor;
+    private final int maxPendingBuffers;
+
+    private final Queue<LogBuffer> pendingBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong droppedLines = new AtomicLong();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    /**
+     * The buffers of all threads that have logged a line, so the flush thread can collect partially filled buffers
+     */
+    private final Queue<ThreadBuffer> threadBuffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ThreadBuffer> currentThreadBuffer = new ThreadLocal<ThreadBuffer>() {
+        @Override
+        protected ThreadBuffer initialValue() {
+            ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread());
+            threadBuffers.add(buffer);
+            return buffer;
+        }
+    };
+    private volatile boolean closed;
+
+    private final ScheduledFuture<?> periodicFlush;
+
+    private final Path outputDirectory;
+    private final Path defaultLogFile;
+    private final String logBaseName;
+    private final String logNameSuffix;
+    private final boolean rotate;
+    private final LogFileHeaderGenerator fileHeaderGenerator;
+
+    //the following are only accessed from the flush thread
+    private FileChannel channel;
+    private long changeOverPoint;
+    private String currentDateString;
+    private boolean initialRun = true;
+    private volatile boolean forceLogRotation;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private BatchedAccessLogReceiver(Builder builder) {
+        this.outputDirectory = builder.outputDirectory;
+        this.logBaseName = builder.logBaseName;
+        this.logNameSuffix = builder.logNameSuffix != null ? builder.logNameSuffix : DEFAULT_LOG_SUFFIX;
+        this.rotate = builder.rotate;
+        this.fileHeaderGenerator = builder.logFileHeaderGenerator;
+        this.defaultLogFile = outputDirectory.resolve(logBaseName + this.logNameSuffix);
+        this.maxPendingBuffers = builder.maxPendingBuffers;
+        this.bufferPool = builder.byteBufferPool;
+        if (builder.flushExecutor != null) {
+            this.flushExecutor = builder.flushExecutor;
+            this.ownsFlushExecutor = false;
+        } else {
+            final String threadName = "access-log-writer-" + logBaseName;
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.ownsFlushExecutor = true;
+        }
+        calculateChangeOverPoint();
+        this.periodicFlush = flushExecutor.scheduleWithFixedDelay(flushTask, builder.flushInterval, builder.flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void calculateChangeOverPoint() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.add(Calendar.DATE, 1);
+        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        currentDateString = df.format(new Date());
+        changeOverPoint = calendar.getTimeInMillis();
+    }
+
+    @Override
+    public void logMessage(final String message) {
+        if (closed) {
+            droppedLines.incrementAndGet();
+            return;
+        }
+        final int length = message.length();
+        byte[] encoded = null;
+        for (int i = 0; i < length; ++i) {
+            if (message.charAt(i) > 0x7F) {
+                encoded = message.getBytes(StandardCharsets.UTF_8);
+                break;
+            }
+        }
+        final int required = (encoded == null ? length : encoded.length) + 1;
+        final ThreadBuffer threadBuffer = currentThreadBuffer.get();
+        //this lock is only contended while the flush thread collects the buffer
+        synchronized (threadBuffer) {
+            if (closed) {
+                droppedLines.incrementAndGet();
+                return;
+            }
+            LogBuffer current = threadBuffer.current;
+            if (current == null || current.pooled.getBuffer().remaining() < required) {
+                if (current != null) {
+                    if (!queue(current)) {
+                        //the buffer is kept, and will be written by the next flush
+                        droppedLines.incrementAndGet();
+                        return;
+                    }
+                    threadBuffer.current = current = null;
+                }
+                if (required > bufferPool.getBufferSize()) {
+                    //too big for a pooled buffer, so it gets a buffer of its own
+                    ByteBuffer large = ByteBuffer.allocate(required);
+                    put(large, message, encoded);
+                    LogBuffer largeBuffer = new LogBuffer(new ImmediatePooledByteBuffer(large));
+                    largeBuffer.lines = 1;
+                    if (!queue(largeBuffer)) {
+                        droppedLines.incrementAndGet();
+                    }
+                    return;
+                }
+                PooledByteBuffer pooled = bufferPool.allocate();
+                pooled.getBuffer().clear();
+                threadBuffer.current = current = new LogBuffer(pooled);
+            }
+            put(current.pooled.getBuffer(), message, encoded);
+            current.lines++;
+        }
+    }
+
+    private static void put(ByteBuffer buffer, String message, byte[] encoded) {
+        if (encoded == null) {
+            for (int i = 0; i < message.length(); ++i) {
+                buffer.put((byte) message.charAt(i));
+            }
+        } else {
+            buffer.put(encoded);
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Queues a full buffer to be written, and schedules a flush if enough data is waiting. Must be called while
+     * holding the lock of the thread buffer, so buffers from the same thread are queued in the order they were filled.
+     *
+     * @return <code>false</code> if the maximum number of buffers are already waiting to be written
+     */
+    private boolean queue(LogBuffer buffer) {
+        int pending;
+        do {
+            pending = pendingCount.get();
+            if (pending >= maxPendingBuffers) {
+                return false;
+            }
+        } while (!pendingCount.compareAndSet(pending, pending + 1));
+        pendingBuffers.add(buffer);
+        if (pending + 1 >= Math.max(maxPendingBuffers / 4, 1) && flushQueued.compareAndSet(false, true)) {
+            flushExecutor.execute(flushTask);
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of log lines that have been dropped because the writer could not keep up
+     */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    /**
+     * Writes all pending buffers, including the buffer that is currently being filled. Always runs on the flush thread.
+     */
+    private void flush() {
+        flushQueued.set(false);
+        Iterator<ThreadBuffer> it = threadBuffers.iterator();
+        while (it.hasNext()) {
+            ThreadBuffer threadBuffer = it.next();
+            synchronized (threadBuffer) {
+                LogBuffer current = threadBuffer.current;
+                if (current != null) {
+                    //partially filled buffers are queued behind any full buffers from the same thread
+                    if (current.lines > 0) {
+                        pendingBuffers.add(current);
+                        pendingCount.incrementAndGet();
+                    } else {
+                        current.pooled.close();
+                    }
+                    threadBuffer.current = null;
+                }
+                if (!threadBuffer.thread.isAlive()) {
+                    it.remove();
+                }
+            }
+        }
+        if (forceLogRotation) {
+            doRotate();
+        } else if (initialRun && Files.exists(defaultLogFile)) {
+            //if there is an existing log file check if it should be rotated
+            long lm = 0;
+            try {
+                lm = Files.getLastModifiedTime(defaultLogFile).toMillis();
+            } catch (IOException e) {
+                UndertowLogger.ROOT_LOGGER.errorRotatingAccessLog(e);
+            }
+            Calendar c = Calendar.getInstance();
+            c.setTimeInMillis(changeOverPoint);
+            c.add(Calendar.DATE, -1);
+            if (lm <= c.getTimeInMillis()) {
+                doRotate();
+            }
+        }
+        initialRun = false;
+        List<LogBuffer> buffers = new ArrayList<>();
+        LogBuffer buffer = pendingBuffers.poll();
+        while (buffer != null) {
+            buffers.add(buffer);
+            buffer = pendingBuffers.poll();
+        }
+        if (buffers.isEmpty()) {
+            return;
+        }
+        try {
+            write(buffers);
+        } finally {
+            pendingCount.addAndGet(-buffers.size());
+            for (LogBuffer b : buffers) {
+                b.pooled.close();
+            }
+        }
+    }
+
+    private void write(List<LogBuffer> buffers) {
+        if (System.currentTimeMillis() > changeOverPoint) {
+            doRotate();
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(defaultLogFile, StandardOpenOption.APPEND, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                if (channel.size() == 0 && fileHeaderGenerator != null) {
+                    String header = fileHeaderGenerator.generateHeader();
+                    if (header != null) {
+                        ByteBuffer headerBuffer = ByteBuffer.wrap((header + "\n").getBytes(StandardCharsets.UTF_8));
+                        while (headerBuffer.hasRemaining()) {
+                            channel.write(headerBuffer);
+                        }
+                    }
+                }
+            }
+            ByteBuffer[] data = new ByteBuffer[buffers.size()];
+            long remaining = 0;
+            for (int i = 0; i < data.length; ++i) {
+                data[i] = buffers.get(i).pooled.getBuffer();
+                data[i].flip();
+                remaining += data[i].remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(data);
+            }
+        } catch (IOException e) {
+            UndertowLogger.ROOT_LOGGER.errorWritingAccessLog(e);
+            long lines = 0;
+            for (LogBuffer buffer : buffers) {
+                lines += buffer.lines;
+            }
+            droppedLines.addAndGet(lines);
+        }
+    }
+
+    private void doRotate() {
+        forceLogRotation = false;
+        if (!rotate) {
+            return;
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (!Files.exists(defaultLogFile)) {
+                return;
+            }
+            Path newFile = outputDirectory.resolve(logBaseName + currentDateString + "." + logNameSuffix);
+            int count = 0;
+            while (Files.exists(newFile)) {
+                ++count;
+                newFile = outputDirectory.resolve(logBaseName + currentDateString + "-" + count + "." + logNameSuffix);
+            }
+            Files.move(defaultLogFile, newFile);
+        } catch (IOException e) {
+            UndertowLogger.ROOT_LOGGER.errorRotatingAccessLog(e);
+        } finally {
+            calculateChangeOverPoint();
+        }
+    }
+
+    /**
+     * forces a log rotation. This rotation is performed in an async manner, you cannot rely on the rotation
+     * being performed immediately after this method returns.
+     */
+    public void rotate() {
+        forceLogRotation = true;
+        flushExecutor.execute(flushTask);
+    }
+
+    /**
+     * For tests only. Blocks the current thread until all messages logged so far have been written.
+     * <p/>
+     * DO NOT USE THIS OUTSIDE OF A TEST
+     */
+    void awaitWrittenForTest() throws InterruptedException {
+        try {
+            flushExecutor.submit(flushTask).get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        periodicFlush.cancel(false);
+        flushExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+                try {
+                    if (channel != null) {
+                        channel.close();
+                        channel = null;
+                    }
+                } catch (IOException e) {
+                    UndertowLogger.ROOT_LOGGER.errorWritingAccessLog(e);
+                }
+            }
+        });
+        if (ownsFlushExecutor) {
+            flushExecutor.shutdown();
+        }
+    }
+
+    /**
+     * A buffer of encoded log lines
+     */
+    private static final class LogBuffer {
+        final PooledByteBuffer pooled;
+        int lines;
+
+        LogBuffer(PooledByteBuffer pooled) {
+            this.pooled = pooled;
+        }
+    }
+
+    /**
+     * The buffer that a thread is currently appending lines to. Guarded by the lock on this object, which is taken by
+     * the owning thread for every line, and by the flush thread when it collects the buffer.
+     */
+    private static final class ThreadBuffer {
+        final Thread thread;
+        LogBuffer current;
+
+        ThreadBuffer(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Path outputDirectory;
+        private String logBaseName;
+        private String logNameSuffix;
+        private boolean rotate = true;
+        private LogFileHeaderGenerator logFileHeaderGenerator;
+        private ByteBufferPool byteBufferPool;
+        private ScheduledExecutorService flushExecutor;
+        private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+        private int maxPendingBuffers = DEFAULT_MAX_PENDING_BUFFERS;
+
+        public Path getOutputDirectory() {
+            return outputDirectory;
+        }
+
+        public Builder setOutputDirectory(Path outputDirectory) {
+            this.outputDirectory = outputDirectory;
+            return this;
+        }
+
+        public String getLogBaseName() {
+            return logBaseName;
+        }
+
+        public Builder setLogBaseName(String logBaseName) {
+            this.logBaseName = logBaseName;
+            return this;
+        }
+
+        public String getLogNameSuffix() {
+            return logNameSuffix;
+        }
+
+        public Builder setLogNameSuffix(String logNameSuffix) {
+            this.logNameSuffix = logNameSuffix;
+            return this;
+        }
+
+        public boolean isRotate() {
+            return rotate;
+        }
+
+        public Builder setRotate(boolean rotate) {
+            this.rotate = rotate;
+            return this;
+        }
+
+        public LogFileHeaderGenerator getLogFileHeaderGenerator() {
+            return logFileHeaderGenerator;
+        }
+
+        public Builder setLogFileHeaderGenerator(LogFileHeaderGenerator logFileHeaderGenerator) {
+            this.logFileHeaderGenerator = logFileHeaderGenerator;
+            return this;
+        }
+
+        public ByteBufferPool getByteBufferPool() {
+            return byteBufferPool;
+        }
+
+        /**
+         * @param byteBufferPool The pool that log lines are encoded into, this is normally the pool that the server
+         *                       uses for its connections. It is not closed by the receiver.
+         */
+        public Builder setByteBufferPool(ByteBufferPool byteBufferPool) {
+            this.byteBufferPool = byteBufferPool;
+            return this;
+        }
+
+        public ScheduledExecutorService getFlushExecutor() {
+            return flushExecutor;
+        }
+
+        /**
+         * @param flushExecutor The executor that writes to the log file. It must run tasks one at a time. If this is
+         *                      not set a single daemon thread is created
+         */
+        public Builder setFlushExecutor(ScheduledExecutorService flushExecutor) {
+            this.flushExecutor = flushExecutor;
+            return this;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        /**
+         * @param flushInterval The maximum time in milliseconds that a line will wait before it is written
+         */
+        public Builder setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        public int getMaxPendingBuffers() {
+            return maxPendingBuffers;
+        }
+
+        /**
+         * @param maxPendingBuffers The maximum number of full buffers that can wait to be written before lines are dropped
+         */
+        public Builder setMaxPendingBuffers(int maxPendingBuffers) {
+            this.maxPendingBuffers = maxPendingBuffers;
+            return this;
+        }
+
+        public BatchedAccessLogReceiver build() {
+            if (byteBufferPool == null) {
+                throw UndertowMessages.MESSAGES.argumentCannotBeNull("byteBufferPool");
+            }
+            return new BatchedAccessLogReceiver(this);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.cache;
+
+import java.util.List;
+
+/**
+ * Policy that decides if a new entry is allowed into a full cache, at the expense of the entries that would
+ * have to be evicted to make room for it.
+ * <p>
+ * The victims are chosen by the cache in eviction order, and are only evicted if the candidate is admitted.
+ * If the candidate is rejected the cache is left unchanged.
+ *
+ * @see TinyLfuAdmissionPolicy
+ */
+public interface CacheAdmissionPolicy {
+
+    /**
+     * Policy that admits every candidate, so the cache behaves as a plain LRU cache.
+     */
+    CacheAdmissionPolicy ALWAYS = new CacheAdmissionPolicy() {
+        @Override
+        public void recordAccess(Object key) {
+        }
+
+        @Override
+        public boolean admit(Object candidate, List<Object> victims) {
+            return true;
+        }
+    };
+
+    /**
+     * Records a lookup of the given key, whether or not it is present in the cache.
+     *
+     * @param key The key
+     */
+    void recordAccess(Object key);
+
+    /**
+     * @param candidate The key of the entry that wants to be added to the cache
+     * @param victims   The keys of the entries that would be evicted to make room for the candidate
+     * @return <code>true</code> if the victims should be evicted in favour of the candidate
+     */
+    boolean admit(Object candidate, List<Object> victims);
+}
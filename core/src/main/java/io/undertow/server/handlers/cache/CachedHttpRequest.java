@@ -25,7 +25,10 @@ import io.undertow.server.handlers.encoding.AllowedContentEncodings;
 import io.undertow.util.DateUtils;
 import io.undertow.util.ETag;
 import io.undertow.util.ETagUtils;
+import io.undertow.util.HeaderMap;
 import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.PreEncodedHeaders;
 
 /**
  * @author Stuart Douglas
@@ -39,7 +42,7 @@ public class CachedHttpRequest {
     private final String contentType;
     private final Date lastModified;
     private final int responseCode;
-
+    private volatile PreEncodedHeaders responseHeaders;
 
     public CachedHttpRequest(final HttpServerExchange exchange) {
         this.path = exchange.getRequestPath();
@@ -96,6 +99,37 @@ public class CachedHttpRequest {
         return responseCode;
     }
 
+    /**
+     * Gets the headers that are sent when this response is served from the cache. These are encoded once and then
+     * shared by every response that is served from the cache entry.
+     */
+    PreEncodedHeaders getResponseHeaders() {
+        PreEncodedHeaders responseHeaders = this.responseHeaders;
+        if (responseHeaders == null) {
+            HeaderMap headers = new HeaderMap();
+            if (contentType != null) {
+                headers.put(Headers.CONTENT_TYPE, contentType);
+            }
+            if (contentEncoding != null && !Headers.IDENTITY.equals(HttpString.tryFromString(contentEncoding))) {
+                headers.put(Headers.CONTENT_ENCODING, contentEncoding);
+            }
+            if (lastModified != null) {
+                headers.put(Headers.LAST_MODIFIED, DateUtils.toDateString(lastModified));
+            }
+            if (contentLocation != null) {
+                headers.put(Headers.CONTENT_LOCATION, contentLocation);
+            }
+            if (language != null) {
+                headers.put(Headers.CONTENT_LANGUAGE, language);
+            }
+            if (etag != null) {
+                headers.put(Headers.ETAG, etag.toString());
+            }
+            this.responseHeaders = responseHeaders = new PreEncodedHeaders(headers);
+        }
+        return responseHeaders;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
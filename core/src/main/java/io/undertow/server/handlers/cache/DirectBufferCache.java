@@ -21,7 +21,9 @@ package io.undertow.server.handlers.cache;
 import static io.undertow.server.handlers.cache.LimitedBufferSlicePool.PooledByteBuffer;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -40,6 +42,9 @@ import org.xnio.BufferAllocator;
  * fashion (entry hits modulo N). Eviction follows an LRU approach (oldest sampled
  * entries are removed first) when the cache is out of capacity</p>
  *
+ * <p>Before entries are evicted to make room the {@link CacheAdmissionPolicy} is consulted, which
+ * can reject the new entry and leave the cache unchanged. By default every entry is admitted.</p>
+ *
  * <p>In order to expedite reclamation, cache entries are reference counted as
  * opposed to garbage collected.</p>
  *
@@ -53,6 +58,7 @@ public class DirectBufferCache {
     private final ConcurrentDirectDeque<CacheEntry> accessQueue;
     private final int sliceSize;
     private final int maxAge;
+    private final CacheAdmissionPolicy admissionPolicy;
 
     public DirectBufferCache(int sliceSize, int slicesPerPage, int maxMemory) {
         this(sliceSize, slicesPerPage, maxMemory, BufferAllocator.DIRECT_BYTE_BUFFER_ALLOCATOR);
@@ -63,11 +69,16 @@ public class DirectBufferCache {
     }
 
     public DirectBufferCache(int sliceSize, int slicesPerPage, int maxMemory, final BufferAllocator<ByteBuffer> bufferAllocator, int maxAge) {
+        this(sliceSize, slicesPerPage, maxMemory, bufferAllocator, maxAge, CacheAdmissionPolicy.ALWAYS);
+    }
+
+    public DirectBufferCache(int sliceSize, int slicesPerPage, int maxMemory, final BufferAllocator<ByteBuffer> bufferAllocator, int maxAge, CacheAdmissionPolicy admissionPolicy) {
         this.sliceSize = sliceSize;
         this.pool = new LimitedBufferSlicePool(bufferAllocator, sliceSize, sliceSize * slicesPerPage, maxMemory / (sliceSize * slicesPerPage));
         this.cache = new ConcurrentHashMap<>(16);
         this.accessQueue = ConcurrentDirectDeque.newInstance();
         this.maxAge = maxAge;
+        this.admissionPolicy = admissionPolicy;
     }
 
     public CacheEntry add(Object key, int size) {
@@ -90,6 +101,7 @@ public class DirectBufferCache {
     }
 
     public CacheEntry get(Object key) {
+        admissionPolicy.recordAccess(key);
         CacheEntry cacheEntry = cache.get(key);
         if (cacheEntry == null) {
             return null;
@@ -110,6 +122,8 @@ public class DirectBufferCache {
             if (! cacheEntry.allocate()) {
                 // Try and make room
                 int reclaimSize = cacheEntry.size();
+                List<CacheEntry> victims = new ArrayList<>();
+                List<Object> allocatedVictims = new ArrayList<>();
                 for (CacheEntry oldest : accessQueue) {
                     if (oldest == cacheEntry) {
                         continue;
@@ -117,17 +131,24 @@ public class DirectBufferCache {
 
                     if (oldest.buffers().length > 0) {
                         reclaimSize -= oldest.size();
+                        allocatedVictims.add(oldest.key());
                     }
 
-                    this.remove(oldest.key());
+                    victims.add(oldest);
 
                     if (reclaimSize <= 0) {
                         break;
                     }
                 }
 
-                // Maybe lucky?
-                cacheEntry.allocate();
+                if (admissionPolicy.admit(key, allocatedVictims)) {
+                    for (CacheEntry victim : victims) {
+                        this.remove(victim.key());
+                    }
+
+                    // Maybe lucky?
+                    cacheEntry.allocate();
+                }
             }
         }
 
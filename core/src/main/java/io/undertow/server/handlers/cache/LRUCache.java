@@ -18,6 +18,7 @@
 
 package io.undertow.server.handlers.cache;
 
+import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -34,6 +35,9 @@ import io.undertow.util.ConcurrentDirectDeque;
  * <p>
  *
  * This cache can also be configured to run in FIFO mode, rather than LRU.
+ * <p>
+ * When the cache is full the {@link CacheAdmissionPolicy} decides if a new entry replaces the oldest entry,
+ * or is dropped instead. Accesses are recorded with the policy on every {@link #get(Object)}.
  *
  * @author Jason T. Greene
  * @author Stuart Douglas
@@ -53,20 +57,23 @@ public class LRUCache<K, V> {
      */
     private final int maxAge;
     private final boolean fifo;
+    private final CacheAdmissionPolicy admissionPolicy;
 
     public LRUCache(int maxEntries, final int maxAge) {
-        this.maxAge = maxAge;
-        this.cache = new ConcurrentHashMap<>(16);
-        this.accessQueue = ConcurrentDirectDeque.newInstance();
-        this.maxEntries = maxEntries;
-        this.fifo = false;
+        this(maxEntries, maxAge, false);
     }
+
     public LRUCache(int maxEntries, final int maxAge, boolean fifo) {
+        this(maxEntries, maxAge, fifo, CacheAdmissionPolicy.ALWAYS);
+    }
+
+    public LRUCache(int maxEntries, final int maxAge, boolean fifo, CacheAdmissionPolicy admissionPolicy) {
         this.maxAge = maxAge;
         this.cache = new ConcurrentHashMap<>(16);
         this.accessQueue = ConcurrentDirectDeque.newInstance();
         this.maxEntries = maxEntries;
         this.fifo = fifo;
+        this.admissionPolicy = admissionPolicy;
     }
 
     public void add(K key, V newValue) {
@@ -86,16 +93,21 @@ public class LRUCache<K, V> {
             }
             bumpAccess(value);
             if (cache.size() > maxEntries) {
-                //remove the oldest
-                CacheEntry<K, V> oldest = accessQueue.poll();
-                if (oldest != value) {
-                    this.remove(oldest.key());
+                //remove the oldest, unless the policy prefers it to the new entry
+                CacheEntry<K, V> oldest = accessQueue.peek();
+                if (oldest != null && oldest != value) {
+                    if (admissionPolicy.admit(key, Collections.<Object>singletonList(oldest.key()))) {
+                        this.remove(oldest.key());
+                    } else {
+                        this.remove(key);
+                    }
                 }
             }
         }
     }
 
     public V get(K key) {
+        admissionPolicy.recordAccess(key);
         CacheEntry<K, V> cacheEntry = cache.get(key);
         if (cacheEntry == null) {
             return null;
@@ -30,7 +30,6 @@ import io.undertow.util.DateUtils;
 import io.undertow.util.ETag;
 import io.undertow.util.ETagUtils;
 import io.undertow.util.Headers;
-import io.undertow.util.HttpString;
 import io.undertow.util.StatusCodes;
 
 import static io.undertow.util.Methods.GET;
@@ -145,24 +144,7 @@ public class ResponseCache {
         }
 
         //we are going to proceed. Set the appropriate headers
-        if(existingKey.getContentType() != null) {
-            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, existingKey.getContentType());
-        }
-        if(existingKey.getContentEncoding() != null && !Headers.IDENTITY.equals(HttpString.tryFromString(existingKey.getContentEncoding()))) {
-            exchange.getResponseHeaders().put(Headers.CONTENT_ENCODING, existingKey.getContentEncoding());
-        }
-        if(existingKey.getLastModified() != null) {
-            exchange.getResponseHeaders().put(Headers.LAST_MODIFIED, DateUtils.toDateString(existingKey.getLastModified()));
-        }
-        if(existingKey.getContentLocation() != null) {
-            exchange.getResponseHeaders().put(Headers.CONTENT_LOCATION, existingKey.getContentLocation());
-        }
-        if(existingKey.getLanguage() != null) {
-            exchange.getResponseHeaders().put(Headers.CONTENT_LANGUAGE, existingKey.getLanguage());
-        }
-        if(etag != null) {
-            exchange.getResponseHeaders().put(Headers.CONTENT_LANGUAGE, etag.toString());
-        }
+        existingKey.getResponseHeaders().addTo(exchange);
 
         //TODO: support if-range
         exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, Long.toString(entry.size()));
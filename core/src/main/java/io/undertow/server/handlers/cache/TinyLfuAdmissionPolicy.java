@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.cache;
+
+import java.util.List;
+
+/**
+ * A TinyLFU admission policy. The recent access frequency of every key is estimated with a frequency sketch, and a
+ * candidate is only admitted if it has been accessed more often than all of its victims combined.
+ * <p>
+ * As a cache of variable sized entries will evict as many entries as are needed to free enough memory for the
+ * candidate, the comparison is weighted by size: a large entry has to be more popular than every smaller entry it
+ * would displace. This stops a scan over rarely requested files from flushing the working set out of the cache.
+ */
+public class TinyLfuAdmissionPolicy implements CacheAdmissionPolicy {
+
+    private final FrequencySketch sketch;
+
+    /**
+     * @param expectedEntries The maximum number of entries that are expected to be in the cache
+     */
+    public TinyLfuAdmissionPolicy(int expectedEntries) {
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    @Override
+    public void recordAccess(Object key) {
+        sketch.increment(key);
+    }
+
+    @Override
+    public boolean admit(Object candidate, List<Object> victims) {
+        int candidateFrequency = sketch.frequency(candidate);
+        int victimFrequency = 0;
+        for (Object victim : victims) {
+            victimFrequency += sketch.frequency(victim);
+            if (victimFrequency >= candidateFrequency) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int frequency(Object key) {
+        return sketch.frequency(key);
+    }
+}
@@ -23,7 +23,11 @@ import io.undertow.predicate.Predicate;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.resource.CachingResourceManager;
 import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
 import io.undertow.util.ImmediateConduitFactory;
+import io.undertow.util.QValueParser;
 import org.xnio.IoUtils;
 import org.xnio.XnioIoThread;
 import org.xnio.XnioWorker;
@@ -40,6 +44,14 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -51,6 +63,17 @@ import java.util.concurrent.TimeUnit;
  */
 public class ContentEncodedResourceManager {
 
+    /**
+     * The default sidecar file suffixes, in order of preference
+     */
+    public static final Map<String, String> DEFAULT_SIDECAR_SUFFIXES;
+
+    static {
+        Map<String, String> suffixes = new LinkedHashMap<>();
+        suffixes.put(Headers.BR.toString(), ".br");
+        suffixes.put(Headers.GZIP.toString(), ".gz");
+        DEFAULT_SIDECAR_SUFFIXES = Collections.unmodifiableMap(suffixes);
+    }
 
     private final Path encodedResourcesRoot;
     private final CachingResourceManager encoded;
@@ -58,16 +81,44 @@ public class ContentEncodedResourceManager {
     private final int minResourceSize;
     private final int maxResourceSize;
     private final Predicate encodingAllowed;
+    private final ResourceManager sidecarResourceManager;
+    private final Map<String, String> sidecarSuffixes;
 
     private final ConcurrentMap<LockKey, Object> fileLocks = new ConcurrentHashMap<>();
 
     public ContentEncodedResourceManager(Path encodedResourcesRoot, CachingResourceManager encodedResourceManager, ContentEncodingRepository contentEncodingRepository, int minResourceSize, int maxResourceSize, Predicate encodingAllowed) {
+        this(encodedResourcesRoot, encodedResourceManager, contentEncodingRepository, minResourceSize, maxResourceSize, encodingAllowed, null, null);
+    }
+
+    /**
+     * Creates a manager that only serves precompressed sidecar files, such as <code>app.js.br</code> or
+     * <code>app.js.gz</code> next to <code>app.js</code>. Resources without a sidecar are served uncompressed.
+     *
+     * @param sidecarResourceManager The resource manager that the sidecar files are loaded from, normally the same one
+     *                               that serves the original resources
+     */
+    public ContentEncodedResourceManager(ResourceManager sidecarResourceManager) {
+        this(null, null, null, 0, 0, null, sidecarResourceManager, DEFAULT_SIDECAR_SUFFIXES);
+    }
+
+    /**
+     * Creates a manager that serves precompressed sidecar files if they are present, and otherwise compresses the
+     * resource using the given content encodings and caches the result.
+     *
+     * @param sidecarResourceManager The resource manager that the sidecar files are loaded from, or <code>null</code>
+     *                               to disable sidecar files
+     * @param sidecarSuffixes        A map of content encoding to sidecar file suffix. If the client accepts several of
+     *                               the encodings with the same q value the first one in iteration order is used.
+     */
+    public ContentEncodedResourceManager(Path encodedResourcesRoot, CachingResourceManager encodedResourceManager, ContentEncodingRepository contentEncodingRepository, int minResourceSize, int maxResourceSize, Predicate encodingAllowed, ResourceManager sidecarResourceManager, Map<String, String> sidecarSuffixes) {
         this.encodedResourcesRoot = encodedResourcesRoot;
         this.encoded = encodedResourceManager;
         this.contentEncodingRepository = contentEncodingRepository;
         this.minResourceSize = minResourceSize;
         this.maxResourceSize = maxResourceSize;
         this.encodingAllowed = encodingAllowed;
+        this.sidecarResourceManager = sidecarResourceManager;
+        this.sidecarSuffixes = sidecarSuffixes == null ? DEFAULT_SIDECAR_SUFFIXES : new LinkedHashMap<>(sidecarSuffixes);
     }
 
     /**
@@ -82,6 +133,20 @@ public class ContentEncodedResourceManager {
      */
     public ContentEncodedResource getResource(final Resource resource, final HttpServerExchange exchange) throws IOException {
         final String path = resource.getPath();
+        if (sidecarResourceManager != null) {
+            //the response depends on the accepted encodings even if no sidecar file is served, so caches must not
+            //reuse it for clients that accept different encodings
+            addVaryHeader(exchange);
+        }
+        if (sidecarResourceManager != null && (encodingAllowed == null || encodingAllowed.resolve(exchange))) {
+            ContentEncodedResource sidecar = getSidecarResource(resource, exchange);
+            if (sidecar != null) {
+                return sidecar;
+            }
+        }
+        if (contentEncodingRepository == null) {
+            return null;
+        }
         Path file = resource.getFilePath();
         if (file == null) {
             return null;
@@ -152,6 +217,81 @@ public class ContentEncodedResourceManager {
         }
     }
 
+    /**
+     * Finds a precompressed sidecar file for the most preferred encoding that the client accepts. Sidecar files that
+     * are older than the resource are ignored, as they are probably stale.
+     * <p>
+     * A <code>*</code> entry matches any encoding that is not listed explicitly, so an explicit <code>br;q=0</code>
+     * still rules out the brotli sidecar.
+     */
+    private ContentEncodedResource getSidecarResource(final Resource resource, final HttpServerExchange exchange) throws IOException {
+        final List<String> res = exchange.getRequestHeaders().get(Headers.ACCEPT_ENCODING);
+        if (res == null || res.isEmpty()) {
+            return null;
+        }
+        final List<List<QValueParser.QValueResult>> found = QValueParser.parse(res);
+        Set<String> listed = null;
+        for (List<QValueParser.QValueResult> result : found) {
+            for (QValueParser.QValueResult value : result) {
+                if (!value.getValue().equals("*")) {
+                    if (listed == null) {
+                        listed = new HashSet<>();
+                    }
+                    listed.add(value.getValue().toLowerCase(Locale.ENGLISH));
+                }
+            }
+        }
+        for (List<QValueParser.QValueResult> result : found) {
+            if (result.get(0).isQValueZero()) {
+                //all remaining encodings are not acceptable
+                return null;
+            }
+            for (Map.Entry<String, String> entry : sidecarSuffixes.entrySet()) {
+                if (!accepts(result, entry.getKey(), listed)) {
+                    continue;
+                }
+                Resource sidecar = sidecarResourceManager.getResource(resource.getPath() + entry.getValue());
+                if (sidecar == null || sidecar.isDirectory()) {
+                    continue;
+                }
+                Date lastModified = resource.getLastModified();
+                Date sidecarLastModified = sidecar.getLastModified();
+                if (lastModified != null && sidecarLastModified != null && sidecarLastModified.before(lastModified)) {
+                    continue;
+                }
+                return new ContentEncodedResource(sidecar, entry.getKey());
+            }
+        }
+        return null;
+    }
+
+    private static void addVaryHeader(final HttpServerExchange exchange) {
+        HeaderValues vary = exchange.getResponseHeaders().get(Headers.VARY);
+        if (vary != null) {
+            for (String value : vary) {
+                if (value.equalsIgnoreCase(Headers.ACCEPT_ENCODING_STRING)) {
+                    return;
+                }
+            }
+        }
+        exchange.getResponseHeaders().add(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+    }
+
+    /**
+     * @param listed The encodings that are listed explicitly in the header, in lower case, or null if there are none
+     */
+    private static boolean accepts(List<QValueParser.QValueResult> result, String encoding, Set<String> listed) {
+        for (QValueParser.QValueResult value : result) {
+            if (value.getValue().equalsIgnoreCase(encoding)) {
+                return true;
+            }
+            if (value.getValue().equals("*") && (listed == null || !listed.contains(encoding.toLowerCase(Locale.ENGLISH)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static final class LockKey {
         private final String path;
         private final String encoding;
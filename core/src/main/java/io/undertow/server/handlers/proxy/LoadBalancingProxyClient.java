@@ -33,8 +33,10 @@ import org.xnio.ssl.XnioSsl;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -365,6 +367,10 @@ public class LoadBalancingProxyClient implements ProxyClient {
         return null;
     }
 
+    Host[] getHosts() {
+        return hosts;
+    }
+
     /**
      * Should only be used for tests
      *
@@ -425,6 +431,20 @@ public class LoadBalancingProxyClient implements ProxyClient {
             return uri;
         }
 
+        /**
+         * @return The number of requests that are currently being proxied to this host
+         */
+        public int getActiveRequests() {
+            return connectionPool.getActiveRequests();
+        }
+
+        /**
+         * @return An exponentially weighted moving average of the request time to this host in nanoseconds
+         */
+        public long getAverageRequestTime() {
+            return connectionPool.getAverageRequestTime();
+        }
+
         void closeCurrentConnections() {
             connectionPool.closeCurrentConnections();
         }
@@ -450,4 +470,96 @@ public class LoadBalancingProxyClient implements ProxyClient {
             return currentHost.incrementAndGet() % availableHosts.length;
         }
     }
+
+    /**
+     * Host selector that picks the available host with the fewest requests in progress, using the average request
+     * time to break ties. If no host is available it falls back to round robin, and the normal problem server
+     * handling applies. Sticky sessions take precedence over the selector.
+     */
+    public static class LeastOutstandingHostSelector implements HostSelector {
+
+        private final AtomicInteger currentHost = new AtomicInteger(0);
+
+        @Override
+        public int selectHost(Host[] availableHosts) {
+            //start from a different host each time, so idle hosts with no history share the load
+            int start = (currentHost.incrementAndGet() & Integer.MAX_VALUE) % availableHosts.length;
+            int selected = -1;
+            int selectedActive = Integer.MAX_VALUE;
+            long selectedTime = Long.MAX_VALUE;
+            for (int i = 0; i < availableHosts.length; ++i) {
+                int index = (start + i) % availableHosts.length;
+                Host host = availableHosts[index];
+                if (host.connectionPool.available() != AVAILABLE) {
+                    continue;
+                }
+                int active = host.getActiveRequests();
+                long time = host.getAverageRequestTime();
+                if (active < selectedActive || (active == selectedActive && time < selectedTime)) {
+                    selected = index;
+                    selectedActive = active;
+                    selectedTime = time;
+                }
+            }
+            return selected == -1 ? start : selected;
+        }
+    }
+
+    /**
+     * Host selector that picks two hosts at random, and uses the one with the lower expected cost. The cost is the
+     * number of requests in progress, weighted by the average request time, so slow hosts get less traffic.
+     * <p>
+     * This is cheaper than scanning every host, and avoids the herd behaviour of always choosing the least loaded
+     * host. Sticky sessions take precedence over the selector.
+     */
+    public static class PowerOfTwoChoicesHostSelector implements HostSelector {
+
+        private final Random random;
+
+        public PowerOfTwoChoicesHostSelector() {
+            this(null);
+        }
+
+        /**
+         * @param random The source of the random choices, or null to use {@link ThreadLocalRandom}
+         */
+        PowerOfTwoChoicesHostSelector(Random random) {
+            this.random = random;
+        }
+
+        @Override
+        public int selectHost(Host[] availableHosts) {
+            int length = availableHosts.length;
+            if (length == 1) {
+                return 0;
+            }
+            Random random = this.random == null ? ThreadLocalRandom.current() : this.random;
+            int first = random.nextInt(length);
+            int second = random.nextInt(length - 1);
+            if (second >= first) {
+                second++;
+            }
+            Host firstHost = availableHosts[first];
+            Host secondHost = availableHosts[second];
+            boolean firstAvailable = isAvailable(firstHost);
+            boolean secondAvailable = isAvailable(secondHost);
+            if (firstAvailable != secondAvailable) {
+                return firstAvailable ? first : second;
+            }
+            return cost(firstHost) <= cost(secondHost) ? first : second;
+        }
+
+        boolean isAvailable(Host host) {
+            return host.connectionPool.available() == AVAILABLE;
+        }
+
+        double cost(Host host) {
+            return cost(host.getActiveRequests(), host.getAverageRequestTime());
+        }
+
+        static double cost(int activeRequests, long averageRequestTime) {
+            //hosts without any history are treated as fast, so they are tried
+            return (activeRequests + 1) * (double) Math.max(averageRequestTime, 1);
+        }
+    }
 }
@@ -109,6 +109,16 @@ public class ProxyConnectionPool implements Closeable {
      */
     private final AtomicInteger openConnections = new AtomicInteger(0);
 
+    /**
+     * The number of requests that currently hold a connection from this pool, across all threads
+     */
+    private final AtomicInteger activeRequests = new AtomicInteger(0);
+
+    /**
+     * Exponentially weighted moving average of the request time in nanoseconds, or 0 if no request has completed yet
+     */
+    private final AtomicLong averageRequestTime = new AtomicLong();
+
     /**
      * request count for all closed connections
      */
@@ -320,10 +330,13 @@ public class ProxyConnectionPool implements Closeable {
     }
 
     private void connectionReady(final ConnectionHolder result, final ProxyCallback<ProxyConnection> callback, final HttpServerExchange exchange, final boolean exclusive) {
+        final long start = System.nanoTime();
+        activeRequests.incrementAndGet();
         try {
             exchange.addExchangeCompleteListener(new ExchangeCompletionListener() {
                 @Override
                 public void exchangeEvent(HttpServerExchange exchange, NextListener nextListener) {
+                    requestDone(System.nanoTime() - start);
                     if (!exclusive) {
                         returnConnection(result);
                     }
@@ -331,6 +344,7 @@ public class ProxyConnectionPool implements Closeable {
                 }
             });
         } catch (Exception e) {
+            activeRequests.decrementAndGet();
             returnConnection(result);
             callback.failed(exchange);
             return;
@@ -338,6 +352,16 @@ public class ProxyConnectionPool implements Closeable {
         callback.completed(exchange, new ProxyConnection(result.clientConnection, uri.getPath() == null ? "/" : uri.getPath()));
     }
 
+    private void requestDone(long requestTime) {
+        activeRequests.decrementAndGet();
+        long current;
+        long updated;
+        do {
+            current = averageRequestTime.get();
+            updated = current == 0 ? requestTime : current + ((requestTime - current) >> 3);
+        } while (!averageRequestTime.compareAndSet(current, updated));
+    }
+
     public AvailabilityType available() {
         if (closed) {
             return AvailabilityType.CLOSED;
@@ -508,6 +532,23 @@ public class ProxyConnectionPool implements Closeable {
         return openConnections.get();
     }
 
+    /**
+     *
+     * @return The number of requests that are currently using a connection from this pool
+     */
+    public int getActiveRequests() {
+        return activeRequests.get();
+    }
+
+    /**
+     * The time is measured from when the request is given a connection until the exchange is complete.
+     *
+     * @return An exponentially weighted moving average of the request time in nanoseconds, or 0 if no requests have completed
+     */
+    public long getAverageRequestTime() {
+        return averageRequestTime.get();
+    }
+
     /**
      * @param exclusive - Is connection for the exclusive use of one client?
      */
@@ -149,6 +149,7 @@ public class CachedResource implements Resource, RangeAwareResource {
         }
         //it is not cached yet, install a wrapper to grab the data
         if (existing == null || !existing.enabled() || !existing.reference()) {
+            cachingResourceManager.dataCacheMiss();
             Sender newSender = sender;
 
             final DirectBufferCache.CacheEntry entry;
@@ -168,6 +169,7 @@ public class CachedResource implements Resource, RangeAwareResource {
             underlyingResource.serve(newSender, exchange, completionCallback);
         } else {
             UndertowLogger.REQUEST_LOGGER.tracef("Serving resource %s from the buffer cache to %s", name, exchange);
+            cachingResourceManager.dataCacheHit();
             //serve straight from the cache
             ByteBuffer[] buffers;
             boolean ok = false;
@@ -252,8 +254,10 @@ public class CachedResource implements Resource, RangeAwareResource {
         //it is not cached yet, just serve it directly
         if (existing == null || !existing.enabled() || !existing.reference()) {
             //it is not cached yet, install a wrapper to grab the data
+            cachingResourceManager.dataCacheMiss();
             ((RangeAwareResource)underlyingResource).serveRange(sender, exchange, start, end, completionCallback);
         } else {
+            cachingResourceManager.dataCacheHit();
             //serve straight from the cache
             ByteBuffer[] buffers;
             boolean ok = false;
@@ -21,6 +21,7 @@ package io.undertow.server.handlers.resource;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 import io.undertow.UndertowLogger;
 import io.undertow.server.handlers.cache.DirectBufferCache;
@@ -53,6 +54,11 @@ public class CachingResourceManager implements ResourceManager {
 
     private final int maxAge;
 
+    private final LongAdder metadataCacheHits = new LongAdder();
+    private final LongAdder metadataCacheMisses = new LongAdder();
+    private final LongAdder dataCacheHits = new LongAdder();
+    private final LongAdder dataCacheMisses = new LongAdder();
+
     public CachingResourceManager(final int metadataCacheSize, final long maxFileSize, final DirectBufferCache dataCache, final ResourceManager underlyingResourceManager, final int maxAge) {
         this.maxFileSize = maxFileSize;
         this.underlyingResourceManager = underlyingResourceManager;
@@ -88,22 +94,27 @@ public class CachingResourceManager implements ResourceManager {
                     if(underlyingResourceManager.getResource(path) != null) {
                         cache.remove(path);
                     } else {
+                        metadataCacheHits.increment();
                         return null;
                     }
                 } else {
+                    metadataCacheHits.increment();
                     return null;
                 }
             } else {
+                metadataCacheHits.increment();
                 return null;
             }
         } else if (res != null) {
             CachedResource resource = (CachedResource) res;
             if (resource.checkStillValid()) {
+                metadataCacheHits.increment();
                 return resource;
             } else {
                 invalidate(path);
             }
         }
+        metadataCacheMisses.increment();
         final Resource underlying = underlyingResourceManager.getResource(path);
         if (underlying == null) {
             cache.add(path, new NoResourceMarker(maxAge > 0 ? System.currentTimeMillis() + maxAge : -1));
@@ -140,6 +151,61 @@ public class CachingResourceManager implements ResourceManager {
         return dataCache;
     }
 
+    void dataCacheHit() {
+        dataCacheHits.increment();
+    }
+
+    void dataCacheMiss() {
+        dataCacheMisses.increment();
+    }
+
+    /**
+     * @return The number of resource lookups that were answered from the metadata cache
+     */
+    public long getMetadataCacheHits() {
+        return metadataCacheHits.sum();
+    }
+
+    /**
+     * @return The number of resource lookups that had to go to the underlying resource manager
+     */
+    public long getMetadataCacheMisses() {
+        return metadataCacheMisses.sum();
+    }
+
+    /**
+     * @return The number of times resource content was served from the buffer cache
+     */
+    public long getDataCacheHits() {
+        return dataCacheHits.sum();
+    }
+
+    /**
+     * @return The number of times cacheable resource content had to be read from the underlying resource
+     */
+    public long getDataCacheMisses() {
+        return dataCacheMisses.sum();
+    }
+
+    /**
+     * @return The fraction of resource lookups answered from the metadata cache, or 0 if there have been no lookups
+     */
+    public double getMetadataCacheHitRatio() {
+        return hitRatio(getMetadataCacheHits(), getMetadataCacheMisses());
+    }
+
+    /**
+     * @return The fraction of cacheable content served from the buffer cache, or 0 if nothing has been served
+     */
+    public double getDataCacheHitRatio() {
+        return hitRatio(getDataCacheHits(), getDataCacheMisses());
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
     public long getMaxFileSize() {
         return maxFileSize;
     }
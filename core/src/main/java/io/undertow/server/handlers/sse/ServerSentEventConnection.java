@@ -19,6 +19,7 @@
 package io.undertow.server.handlers.sse;
 
 import io.undertow.UndertowLogger;
+import io.undertow.UndertowMessages;
 import io.undertow.connector.PooledByteBuffer;
 import io.undertow.security.api.SecurityContext;
 import io.undertow.security.idm.Account;
@@ -32,6 +33,7 @@ import org.xnio.ChannelListener;
 import org.xnio.ChannelListeners;
 import org.xnio.IoUtils;
 import org.xnio.XnioExecutor;
+import org.xnio.XnioIoThread;
 import org.xnio.channels.StreamSinkChannel;
 
 import java.io.IOException;
@@ -77,6 +79,11 @@ public class ServerSentEventConnection implements Channel, Attachable {
     private Map<String, String> parameters;
     private Map<String, Object> properties = new HashMap<>();
 
+    /**
+     * The number of events that are queued but have not been copied into the buffer yet
+     */
+    private int queuedEvents;
+
     private static final AtomicIntegerFieldUpdater<ServerSentEventConnection> openUpdater = AtomicIntegerFieldUpdater.newUpdater(ServerSentEventConnection.class, "open");
     private volatile int open = 1;
     private volatile boolean shutdown = false;
@@ -219,6 +226,7 @@ public class ServerSentEventConnection implements Channel, Attachable {
             return;
         }
         queue.add(new SSEData(retry, callback));
+        queuedEvents++;
         sink.getIoThread().execute(new Runnable() {
             @Override
             public void run() {
@@ -247,7 +255,8 @@ public class ServerSentEventConnection implements Channel, Attachable {
             }
             return;
         }
-        queue.add(new SSEData(event, data, id, callback));
+        queue.add(new SSEData(event, data, id, callback, null));
+        queuedEvents++;
         sink.getIoThread().execute(new Runnable() {
             @Override
             public void run() {
@@ -261,6 +270,48 @@ public class ServerSentEventConnection implements Channel, Attachable {
         });
     }
 
+    /**
+     * Queues an event that has already been encoded, and starts writing it out if the connection is idle. This must
+     * be invoked from the IO thread of this connection, and is used when an event is broadcast to many connections.
+     * <p>
+     * If more than the maximum number of events are already queued then the connection is considered to be a slow
+     * consumer, and the event is either dropped or the connection is closed.
+     *
+     * @param encoded         The encoded event, which is not modified and may be shared between connections
+     * @param maxQueuedEvents The maximum number of queued events, or -1 for no limit
+     * @param disconnect      If slow consumers should be disconnected rather than have the event dropped
+     */
+    synchronized void sendEncoded(String data, String event, String id, byte[] encoded, EventCallback callback, int maxQueuedEvents, boolean disconnect) {
+        if (open == 0 || shutdown) {
+            if (callback != null) {
+                callback.failed(this, data, event, id, new ClosedChannelException());
+            }
+            return;
+        }
+        if (maxQueuedEvents >= 0 && queuedEvents >= maxQueuedEvents) {
+            if (disconnect) {
+                UndertowLogger.REQUEST_LOGGER.debugf("Closing SSE connection to %s as it has %s events queued", exchange, queuedEvents);
+                if (callback != null) {
+                    callback.failed(this, data, event, id, new ClosedChannelException());
+                }
+                IoUtils.safeClose(this);
+            } else if (callback != null) {
+                callback.failed(this, data, event, id, UndertowMessages.MESSAGES.eventQueueFull(queuedEvents));
+            }
+            return;
+        }
+        queue.add(new SSEData(event, data, id, callback, encoded));
+        queuedEvents++;
+        if (pooled == null) {
+            fillBuffer();
+            writeListener.handleEvent(sink);
+        }
+    }
+
+    XnioIoThread getIoThread() {
+        return sink.getIoThread();
+    }
+
     public String getParameter(String name) {
         if(parameters == null) {
             return null;
@@ -341,40 +392,18 @@ public class ServerSentEventConnection implements Channel, Attachable {
             SSEData data = queue.poll();
             buffered.add(data);
             if (data.leftOverData == null) {
-                StringBuilder message = new StringBuilder();
-                if(data.retry > 0) {
-                    message.append("retry:");
-                    message.append(data.retry);
-                    message.append('\n');
+                byte[] messageBytes;
+                if (data.encoded != null) {
+                    messageBytes = data.encoded;
+                } else if (data.retry > 0) {
+                    messageBytes = ("retry:" + data.retry + "\n\n").getBytes(StandardCharsets.UTF_8);
                 } else {
-                    if (data.id != null) {
-                        message.append("id:");
-                        message.append(data.id);
-                        message.append('\n');
-                    }
-                    if (data.event != null) {
-                        message.append("event:");
-                        message.append(data.event);
-                        message.append('\n');
-                    }
-                    if (data.data != null) {
-                        message.append("data:");
-                        for (int i = 0; i < data.data.length(); ++i) {
-                            char c = data.data.charAt(i);
-                            if (c == '\n') {
-                                message.append("\ndata:");
-                            } else {
-                                message.append(c);
-                            }
-                        }
-                        message.append('\n');
-                    }
+                    messageBytes = encode(data.data, data.event, data.id);
                 }
-                message.append('\n');
-                byte[] messageBytes = message.toString().getBytes(StandardCharsets.UTF_8);
                 if (messageBytes.length < buffer.remaining()) {
                     buffer.put(messageBytes);
                     data.endBufferPosition = buffer.position();
+                    queuedEvents--;
                 } else {
                     queue.addFirst(data);
                     int rem = buffer.remaining();
@@ -393,6 +422,7 @@ public class ServerSentEventConnection implements Channel, Attachable {
                     buffer.put(data.leftOverData, data.leftOverDataOffset, remainingData);
                     data.endBufferPosition = buffer.position();
                     data.leftOverData = null;
+                    queuedEvents--;
                 }
             }
         }
@@ -400,6 +430,42 @@ public class ServerSentEventConnection implements Channel, Attachable {
         sink.resumeWrites();
     }
 
+    /**
+     * Encodes an event in the text/event-stream format
+     *
+     * @param data  The event data
+     * @param event The event name
+     * @param id    The event ID
+     * @return The UTF-8 encoded event
+     */
+    static byte[] encode(String data, String event, String id) {
+        StringBuilder message = new StringBuilder();
+        if (id != null) {
+            message.append("id:");
+            message.append(id);
+            message.append('\n');
+        }
+        if (event != null) {
+            message.append("event:");
+            message.append(event);
+            message.append('\n');
+        }
+        if (data != null) {
+            message.append("data:");
+            for (int i = 0; i < data.length(); ++i) {
+                char c = data.charAt(i);
+                if (c == '\n') {
+                    message.append("\ndata:");
+                } else {
+                    message.append(c);
+                }
+            }
+            message.append('\n');
+        }
+        message.append('\n');
+        return message.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * execute a graceful shutdown once all data has been sent
      */
@@ -449,6 +515,7 @@ public class ServerSentEventConnection implements Channel, Attachable {
             queue.clear();
             buffered.clear();
             flushingMessages.clear();
+            queuedEvents = 0;
             for (SSEData i : cb) {
                 if (i.callback != null) {
                     try {
@@ -527,15 +594,20 @@ public class ServerSentEventConnection implements Channel, Attachable {
         final String id;
         final long retry;
         final EventCallback callback;
+        /**
+         * The encoded event if it was encoded in advance, this may be shared with other connections
+         */
+        final byte[] encoded;
         private int endBufferPosition = -1;
         private byte[] leftOverData;
         private int leftOverDataOffset;
 
-        private SSEData(String event, String data, String id, EventCallback callback) {
+        private SSEData(String event, String data, String id, EventCallback callback, byte[] encoded) {
             this.event = event;
             this.data = data;
             this.id = id;
             this.callback = callback;
+            this.encoded = encoded;
             this.retry = -1;
         }
 
@@ -544,6 +616,7 @@ public class ServerSentEventConnection implements Channel, Attachable {
             this.data = null;
             this.id = null;
             this.callback = callback;
+            this.encoded = null;
             this.retry = retry;
         }
 
@@ -28,10 +28,14 @@ import org.xnio.ChannelExceptionHandler;
 import org.xnio.ChannelListener;
 import org.xnio.ChannelListeners;
 import org.xnio.IoUtils;
+import org.xnio.XnioIoThread;
 import org.xnio.channels.StreamSinkChannel;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -47,6 +51,9 @@ public class ServerSentEventHandler implements HttpHandler {
 
     private final Set<ServerSentEventConnection> connections = Collections.newSetFromMap(new ConcurrentHashMap<ServerSentEventConnection, Boolean>());
 
+    private volatile int maxQueuedEvents = -1;
+    private volatile boolean disconnectSlowConsumers = false;
+
     public ServerSentEventHandler(ServerSentEventConnectionCallback callback) {
         this.callback = callback;
     }
@@ -107,4 +114,96 @@ public class ServerSentEventHandler implements HttpHandler {
     public Set<ServerSentEventConnection> getConnections() {
         return Collections.unmodifiableSet(connections);
     }
+
+    /**
+     * Sends an event to all open connections.
+     *
+     * @param data The event data
+     */
+    public void broadcast(String data) {
+        broadcast(data, null, null, null);
+    }
+
+    /**
+     * Sends an event to all open connections.
+     *
+     * @param data  The event data
+     * @param event The event name
+     * @param id    The event ID
+     */
+    public void broadcast(String data, String event, String id) {
+        broadcast(data, event, id, null);
+    }
+
+    /**
+     * Sends an event to all open connections.
+     * <p>
+     * The event is only encoded once, and the encoded form is shared between all connections. Rather than
+     * executing a task per connection a single task is executed on each IO thread, which queues the event on all the
+     * connections that belong to that thread.
+     * <p>
+     * If a connection has more than {@link #getMaxQueuedEvents()} events queued the event is either dropped for that
+     * connection, or the connection is closed, depending on {@link #isDisconnectSlowConsumers()}.
+     *
+     * @param data     The event data
+     * @param event    The event name
+     * @param id       The event ID
+     * @param callback A callback that is notified of the result for each connection, may be null
+     */
+    public void broadcast(final String data, final String event, final String id, final ServerSentEventConnection.EventCallback callback) {
+        final byte[] encoded = ServerSentEventConnection.encode(data, event, id);
+        final int maxQueuedEvents = this.maxQueuedEvents;
+        final boolean disconnect = this.disconnectSlowConsumers;
+        Map<XnioIoThread, List<ServerSentEventConnection>> byThread = new HashMap<>();
+        for (ServerSentEventConnection connection : connections) {
+            List<ServerSentEventConnection> list = byThread.get(connection.getIoThread());
+            if (list == null) {
+                byThread.put(connection.getIoThread(), list = new ArrayList<>());
+            }
+            list.add(connection);
+        }
+        for (Map.Entry<XnioIoThread, List<ServerSentEventConnection>> entry : byThread.entrySet()) {
+            final List<ServerSentEventConnection> threadConnections = entry.getValue();
+            entry.getKey().execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (ServerSentEventConnection connection : threadConnections) {
+                        connection.sendEncoded(data, event, id, encoded, callback, maxQueuedEvents, disconnect);
+                    }
+                }
+            });
+        }
+    }
+
+    public int getMaxQueuedEvents() {
+        return maxQueuedEvents;
+    }
+
+    /**
+     * Sets the maximum number of events that can be queued on a connection by {@link #broadcast(String)}. Once this
+     * is exceeded the connection is considered a slow consumer. A value of -1 means there is no limit.
+     *
+     * @param maxQueuedEvents The maximum number of queued events
+     * @return this handler
+     */
+    public ServerSentEventHandler setMaxQueuedEvents(int maxQueuedEvents) {
+        this.maxQueuedEvents = maxQueuedEvents;
+        return this;
+    }
+
+    public boolean isDisconnectSlowConsumers() {
+        return disconnectSlowConsumers;
+    }
+
+    /**
+     * If this is true slow consumers will be disconnected, otherwise broadcast events will be dropped for them
+     * until they have caught up.
+     *
+     * @param disconnectSlowConsumers If slow consumers should be disconnected
+     * @return this handler
+     */
+    public ServerSentEventHandler setDisconnectSlowConsumers(boolean disconnectSlowConsumers) {
+        this.disconnectSlowConsumers = disconnectSlowConsumers;
+        return this;
+    }
 }
@@ -79,6 +79,20 @@ public abstract class AbstractFramedChannel<C extends AbstractFramedChannel<C, R
      */
     private final int maxQueuedBuffers;
 
+    /**
+     * The size of the per IO thread buffer that is used for reads when {@link UndertowOptions#LAZY_READ_BUFFERS} is enabled
+     */
+    private static final int LAZY_READ_SCRATCH_SIZE = 1024;
+
+    private static final ThreadLocal<ByteBuffer> LAZY_READ_SCRATCH = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(LAZY_READ_SCRATCH_SIZE);
+        }
+    };
+
+    private final boolean lazyReadBuffers;
+
     private final StreamConnection channel;
     private final IdleTimeoutConduit idleTimeoutConduit;
 
@@ -184,6 +198,7 @@ public abstract class AbstractFramedChannel<C extends AbstractFramedChannel<C, R
     protected AbstractFramedChannel(final StreamConnection connectedStreamChannel, ByteBufferPool bufferPool, FramePriority<C, R, S> framePriority, final PooledByteBuffer readData, OptionMap settings) {
         this.framePriority = framePriority;
         this.maxQueuedBuffers = settings.get(UndertowOptions.MAX_QUEUED_READ_BUFFERS, 10);
+        this.lazyReadBuffers = settings.get(UndertowOptions.LAZY_READ_BUFFERS, false);
         this.settings = settings;
         if (readData != null) {
             if(readData.getBuffer().hasRemaining()) {
@@ -339,6 +354,32 @@ public abstract class AbstractFramedChannel<C extends AbstractFramedChannel<C, R
             return null;
         }
         ReferenceCountedPooled pooled = this.readData;
+        ByteBuffer scratch = null;
+        if (lazyReadBuffers && (pooled == null || pooled.isFreed()) && !isReadBufferLimitReached() && Thread.currentThread() instanceof XnioIoThread) {
+            //there is no buffered data, so we read into the scratch buffer first and only acquire a pooled buffer
+            //if something has actually arrived. The scratch buffer is only used on IO threads, so there is one per
+            //IO thread rather than one for every thread that ever calls receive()
+            scratch = LAZY_READ_SCRATCH.get();
+            scratch.clear();
+            //make sure the data will always fit in a pooled buffer
+            scratch.limit(Math.min(LAZY_READ_SCRATCH_SIZE, bufferPool.getBufferSize()));
+            int read;
+            try {
+                read = channel.getSourceChannel().read(scratch);
+            } catch (IOException|RuntimeException e) {
+                markReadsBroken(e);
+                throw e;
+            }
+            if (read == 0) {
+                return null;
+            } else if (read == -1) {
+                readData = null;
+                readChannelDone = true;
+                lastDataRead();
+                return null;
+            }
+            scratch.flip();
+        }
         boolean hasData;
         if (pooled == null) {
             pooled = allocateReferenceCountedBuffer();
@@ -365,7 +406,21 @@ public abstract class AbstractFramedChannel<C extends AbstractFramedChannel<C, R
         try {
             if (!hasData) {
                 pooled.getBuffer().clear();
-                read = channel.getSourceChannel().read(pooled.getBuffer());
+                if (scratch != null) {
+                    read = scratch.remaining();
+                    boolean scratchFull = read == Math.min(LAZY_READ_SCRATCH_SIZE, bufferPool.getBufferSize());
+                    pooled.getBuffer().put(scratch);
+                    if (scratchFull) {
+                        //the scratch buffer was full, so there may be more data available
+                        //if this returns -1 it will be reported by the next read
+                        int more = channel.getSourceChannel().read(pooled.getBuffer());
+                        if (more > 0) {
+                            read += more;
+                        }
+                    }
+                } else {
+                    read = channel.getSourceChannel().read(pooled.getBuffer());
+                }
                 if (read == 0) {
                     //no data, we just free the buffer
                     forceFree = true;
@@ -506,6 +561,10 @@ public abstract class AbstractFramedChannel<C extends AbstractFramedChannel<C, R
         }
     }
 
+    private boolean isReadBufferLimitReached() {
+        return maxQueuedBuffers > 0 && outstandingBuffersUpdater.get(this) >= maxQueuedBuffers;
+    }
+
     private ReferenceCountedPooled allocateReferenceCountedBuffer() {
         if(maxQueuedBuffers > 0) {
             int expect;
@@ -115,8 +115,42 @@ public abstract class AbstractFramedStreamSinkChannel<C extends AbstractFramedCh
         this.channel = channel;
     }
 
+    /**
+     * Reads the file directly into the write buffer, which is then sent as the body of the next frame. This avoids
+     * the intermediate copy that {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * makes when the target is not a file or socket channel.
+     * <p>
+     * Frames from all streams are gathered into a single write to the underlying connection, so the file cannot
+     * be handed to the socket directly, however this means there is only a single copy out of the page cache.
+     */
     public long transferFrom(final FileChannel src, final long position, final long count) throws IOException {
-        return src.transferTo(position, count, this);
+        if(count == 0 || !safeToSend()) {
+            return 0;
+        }
+        if(writeBuffer == null) {
+            writeBuffer = getChannel().getBufferPool().allocate();
+        }
+        ByteBuffer buffer = writeBuffer.getBuffer();
+        int res;
+        if(count < buffer.remaining()) {
+            int oldLimit = buffer.limit();
+            buffer.limit(buffer.position() + (int) count);
+            try {
+                res = src.read(buffer, position);
+            } finally {
+                buffer.limit(oldLimit);
+            }
+        } else {
+            res = src.read(buffer, position);
+        }
+        if(res <= 0) {
+            //the position is past the end of the file
+            return 0;
+        }
+        if(!buffer.hasRemaining()) {
+            handleBufferFull();
+        }
+        return res;
     }
 
     public long transferFrom(final StreamSourceChannel source, final long count, final ByteBuffer throughBuffer) throws IOException {
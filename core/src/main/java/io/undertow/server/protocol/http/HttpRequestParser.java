@@ -22,6 +22,7 @@ import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
@@ -166,6 +167,7 @@ public abstract class HttpRequestParser {
     private final boolean decode;
     private final String charset;
     private final int maxCachedHeaderSize;
+    private final SharedHeaderValueCache sharedHeaderValueCache;
 
     static {
         try {
@@ -183,6 +185,8 @@ public abstract class HttpRequestParser {
         decode = options.get(UndertowOptions.DECODE_URL, true);
         charset = options.get(UndertowOptions.URL_CHARSET, StandardCharsets.UTF_8.name());
         maxCachedHeaderSize = options.get(UndertowOptions.MAX_CACHED_HEADER_SIZE, UndertowOptions.DEFAULT_MAX_CACHED_HEADER_SIZE);
+        int sharedCacheSize = options.get(UndertowOptions.SHARED_HTTP_HEADERS_CACHE_SIZE, 0);
+        sharedHeaderValueCache = sharedCacheSize > 0 ? new SharedHeaderValueCache(sharedCacheSize) : null;
     }
 
     public static final HttpRequestParser instance(final OptionMap options) {
@@ -347,6 +351,12 @@ public abstract class HttpRequestParser {
         boolean urlDecodeRequired = state.urlDecodeRequired;
 
         while (buffer.hasRemaining()) {
+            if (parseState == IN_PATH || parseState == HOST_DONE) {
+                appendPathRun(buffer, stringBuilder);
+                if (!buffer.hasRemaining()) {
+                    break;
+                }
+            }
             char next = (char) (buffer.get() & 0xFF);
             if (next == ' ' || next == '\t') {
                 if (stringBuilder.length() != 0) {
@@ -648,11 +658,21 @@ public abstract class HttpRequestParser {
         HttpString headerName = state.nextHeader;
         StringBuilder stringBuilder = state.stringBuilder;
         CacheMap<HttpString, String> headerValuesCache = state.headerValuesCache;
-        if (headerName != null && stringBuilder.length() == 0 && headerValuesCache != null) {
-            String existing = headerValuesCache.get(headerName);
-            if (existing != null) {
-                if (handleCachedHeader(existing, buffer, state, builder)) {
-                    return;
+        if (headerName != null && stringBuilder.length() == 0) {
+            if (headerValuesCache != null) {
+                String existing = headerValuesCache.get(headerName);
+                if (existing != null) {
+                    if (handleCachedHeader(existing, buffer, state, builder)) {
+                        return;
+                    }
+                }
+            }
+            if (sharedHeaderValueCache != null && SharedHeaderValueCache.isCacheable(headerName)) {
+                String shared = sharedHeaderValueCache.get(headerName, buffer);
+                if (shared != null) {
+                    if (handleCachedHeader(shared, buffer, state, builder)) {
+                        return;
+                    }
                 }
             }
         }
@@ -663,20 +683,13 @@ public abstract class HttpRequestParser {
     private void handleHeaderValueCacheMiss(ByteBuffer buffer, ParseState state, HttpServerExchange builder, HttpString headerName, CacheMap<HttpString, String> headerValuesCache, StringBuilder stringBuilder) throws BadRequestException {
 
         int parseState = state.parseState;
-        while (buffer.hasRemaining() && parseState == NORMAL) {
-            final byte next = buffer.get();
-            if (next == '\r') {
-                parseState = BEGIN_LINE_END;
-            } else if (next == '\n') {
-                parseState = LINE_END;
-            } else if (next == ' ' || next == '\t') {
-                parseState = WHITESPACE;
-            } else {
-                stringBuilder.append((char) (next & 0xFF));
-            }
-        }
-
         while (buffer.hasRemaining()) {
+            if (parseState == NORMAL) {
+                appendHeaderValueRun(buffer, stringBuilder);
+                if (!buffer.hasRemaining()) {
+                    break;
+                }
+            }
             final byte next = buffer.get();
             switch (parseState) {
                 case NORMAL: {
@@ -727,6 +740,9 @@ public abstract class HttpRequestParser {
                         if(headerValuesCache != null && headerName.length() + headerValue.length() < maxCachedHeaderSize) {
                             headerValuesCache.put(headerName, headerValue);
                         }
+                        if(sharedHeaderValueCache != null) {
+                            sharedHeaderValueCache.put(headerName, headerValue);
+                        }
 
                         state.nextHeader = null;
 
@@ -755,6 +771,88 @@ public abstract class HttpRequestParser {
         state.parseState = parseState;
     }
 
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * Appends the run of header value bytes at the current position that cannot end the value, i.e. everything
+     * above 0x20, to the string builder. The buffer is left positioned at the first byte that has to go through
+     * the state machine.
+     * <p>
+     * Bytes are examined eight at a time (SIMD within a register), so long values such as cookies are scanned
+     * without a branch per byte. If fewer than eight bytes remain nothing is consumed.
+     */
+    private static void appendHeaderValueRun(ByteBuffer buffer, StringBuilder stringBuilder) {
+        if (buffer.order() != ByteOrder.BIG_ENDIAN) {
+            return;
+        }
+        final int start = buffer.position();
+        final int end = buffer.limit() - 7;
+        int pos = start;
+        while (pos < end) {
+            long mask = matchControlOrSpace(buffer.getLong(pos));
+            if (mask != 0) {
+                pos += Long.numberOfLeadingZeros(mask) >>> 3;
+                break;
+            }
+            pos += 8;
+        }
+        appendRun(buffer, stringBuilder, start, pos);
+    }
+
+    /**
+     * Appends the run of path bytes at the current position that cannot change the state of the path parser. This
+     * must only be used once the path parser is in the {@link #IN_PATH} or {@link #HOST_DONE} state.
+     * <p>
+     * The run ends at whitespace, control characters, a query string or path parameter delimiter, a percent sign,
+     * or a non-ASCII byte.
+     */
+    private static void appendPathRun(ByteBuffer buffer, StringBuilder stringBuilder) {
+        if (buffer.order() != ByteOrder.BIG_ENDIAN) {
+            return;
+        }
+        final int start = buffer.position();
+        final int end = buffer.limit() - 7;
+        int pos = start;
+        while (pos < end) {
+            long word = buffer.getLong(pos);
+            long mask = matchControlOrSpace(word) | (word & HIGH_BITS) | matchByte(word, '?') | matchByte(word, ';') | matchByte(word, '%');
+            if (mask != 0) {
+                pos += Long.numberOfLeadingZeros(mask) >>> 3;
+                break;
+            }
+            pos += 8;
+        }
+        appendRun(buffer, stringBuilder, start, pos);
+    }
+
+    private static void appendRun(ByteBuffer buffer, StringBuilder stringBuilder, int start, int end) {
+        if (start == end) {
+            return;
+        }
+        for (int i = start; i < end; ++i) {
+            stringBuilder.append((char) (buffer.get(i) & 0xFF));
+        }
+        buffer.position(end);
+    }
+
+    /**
+     * @return A mask with the high bit set in each byte of the word that is less than 0x21, and no other bits set
+     */
+    private static long matchControlOrSpace(long word) {
+        return ~(((word & LOW_BITS) + 0x5F5F5F5F5F5F5F5FL) | word) & HIGH_BITS;
+    }
+
+    /**
+     * @return A mask with the high bit set in each byte of the word that is equal to the given byte, and no other
+     * bits set
+     */
+    private static long matchByte(long word, int b) {
+        long x = word ^ (ONES * b);
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
     protected boolean handleCachedHeader(String existing, ByteBuffer buffer, ParseState state, HttpServerExchange builder) throws BadRequestException {
         int pos = buffer.position();
         while (pos < buffer.limit() && buffer.get(pos) == ' ') {
@@ -24,6 +24,7 @@ import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.HeaderValues;
 import io.undertow.util.HttpString;
+import io.undertow.util.PreEncodedHeaders;
 import io.undertow.util.StatusCodes;
 import org.xnio.Buffers;
 import org.xnio.IoUtils;
@@ -62,6 +63,7 @@ final class HttpResponseConduit extends AbstractStreamSinkConduit<StreamSinkCond
     private PooledByteBuffer pooledBuffer;
     private PooledByteBuffer pooledFileTransferBuffer;
     private HttpServerExchange exchange;
+    private PreEncodedHeaders preEncodedHeaders;
 
     private ByteBuffer[] writevBuffer;
     private boolean done = false;
@@ -102,6 +104,7 @@ final class HttpResponseConduit extends AbstractStreamSinkConduit<StreamSinkCond
         headerValues = null;
         valueIdx = 0;
         charIndex = 0;
+        preEncodedHeaders = null;
     }
 
     /**
@@ -193,7 +196,18 @@ final class HttpResponseConduit extends AbstractStreamSinkConduit<StreamSinkCond
 
 
             HeaderMap headers = exchange.getResponseHeaders();
-            long fiCookie = headers.fastIterateNonEmpty();
+            PreEncodedHeaders preEncodedHeaders = exchange.getAttachment(PreEncodedHeaders.ATTACHMENT_KEY);
+            if (preEncodedHeaders != null) {
+                //we can only use the encoded block if it fits and the headers have not been changed since it was added
+                if (preEncodedHeaders.length() <= remaining - 2 && preEncodedHeaders.isCurrent(headers)) {
+                    preEncodedHeaders.appendTo(buffer);
+                    remaining -= preEncodedHeaders.length();
+                } else {
+                    preEncodedHeaders = null;
+                }
+            }
+            this.preEncodedHeaders = preEncodedHeaders;
+            long fiCookie = skipPreEncoded(headers, headers.fastIterateNonEmpty());
             while (fiCookie != -1) {
                 HeaderValues headerValues = headers.fiCurrent(fiCookie);
 
@@ -231,7 +245,7 @@ final class HttpResponseConduit extends AbstractStreamSinkConduit<StreamSinkCond
                     writeString(buffer, string);
                     buffer.put((byte) '\r').put((byte) '\n');
                 }
-                fiCookie = headers.fiNextNonEmpty(fiCookie);
+                fiCookie = skipPreEncoded(headers, headers.fiNextNonEmpty(fiCookie));
             }
             buffer.put((byte) '\r').put((byte) '\n');
             buffer.flip();
@@ -289,6 +303,20 @@ final class HttpResponseConduit extends AbstractStreamSinkConduit<StreamSinkCond
         }
     }
 
+    /**
+     * Skips over any headers that have already been written as part of a pre-encoded header block
+     */
+    private long skipPreEncoded(HeaderMap headers, long fiCookie) {
+        final PreEncodedHeaders preEncodedHeaders = this.preEncodedHeaders;
+        if (preEncodedHeaders == null) {
+            return fiCookie;
+        }
+        while (fiCookie != -1L && preEncodedHeaders.contains(headers.fiCurrent(fiCookie).getHeaderName())) {
+            fiCookie = headers.fiNextNonEmpty(fiCookie);
+        }
+        return fiCookie;
+    }
+
     private static void writeString(ByteBuffer buffer, String string) {
         int length = string.length();
         for (int charIndex = 0; charIndex < length; charIndex++) {
@@ -428,7 +456,7 @@ final class HttpResponseConduit extends AbstractStreamSinkConduit<StreamSinkCond
                                 return STATE_HDR_EOL_LF;
                         }
                         buffer.put((byte) 10); // LF
-                        if ((fiCookie = headers.fiNextNonEmpty(fiCookie)) != -1L) {
+                        if ((fiCookie = skipPreEncoded(headers, headers.fiNextNonEmpty(fiCookie))) != -1L) {
                             headerValues = headers.fiCurrent(fiCookie);
                             valueIdx = 0;
                             state = STATE_HDR_NAME;
@@ -499,7 +527,7 @@ final class HttpResponseConduit extends AbstractStreamSinkConduit<StreamSinkCond
                     if (valueIdx < headerValues.size()) {
                         state = STATE_HDR_NAME;
                         break;
-                    } else if ((fiCookie = headers.fiNextNonEmpty(fiCookie)) != -1L) {
+                    } else if ((fiCookie = skipPreEncoded(headers, headers.fiNextNonEmpty(fiCookie))) != -1L) {
                         headerValues = headers.fiCurrent(fiCookie);
                         valueIdx = 0;
                         state = STATE_HDR_NAME;
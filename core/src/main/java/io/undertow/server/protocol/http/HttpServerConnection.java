@@ -280,6 +280,21 @@ public final class HttpServerConnection extends AbstractServerConnection {
         this.fixedLengthStreamSinkConduit = new ServerFixedLengthStreamSinkConduit(responseConduit, false, false);
     }
 
+    /**
+     * Stops using the pipeline buffer, so responses are written directly to the channel again. This must only be called
+     * between requests, once the buffer has been flushed.
+     */
+    void removePipelineBuffer() {
+        if (pipelineBuffer == null) {
+            return;
+        }
+        this.pipelineBuffer = null;
+        this.responseConduit.freeBuffers();
+        this.responseConduit = new HttpResponseConduit(getOriginalSinkConduit(), bufferPool, this);
+        this.fixedLengthStreamSinkConduit = new ServerFixedLengthStreamSinkConduit(responseConduit, false, false);
+        channel.getSinkChannel().setConduit(getOriginalSinkConduit());
+    }
+
     @Override
     public String getTransportProtocol() {
         return "http/1.1";
@@ -80,8 +80,8 @@ class HttpTransferEncoding {
             if (persistentConnection
                     && connection.getExtraBytes() != null
                     && pipeliningBuffer == null
-                    && connection.getUndertowOptions().get(UndertowOptions.BUFFER_PIPELINED_DATA, false)) {
-                pipeliningBuffer = new PipeliningBufferingStreamSinkConduit(connection.getOriginalSinkConduit(), connection.getByteBufferPool());
+                    && isPipelineBufferingEnabled(connection)) {
+                pipeliningBuffer = createPipelineBuffer(connection);
                 connection.setPipelineBuffer(pipeliningBuffer);
                 pipeliningBuffer.setupPipelineBuffer(exchange);
             }
@@ -101,6 +101,16 @@ class HttpTransferEncoding {
 
     }
 
+    private static boolean isPipelineBufferingEnabled(HttpServerConnection connection) {
+        return connection.getUndertowOptions().get(UndertowOptions.BUFFER_PIPELINED_DATA, false)
+                || connection.getUndertowOptions().get(UndertowOptions.ADAPTIVE_PIPELINED_DATA_BUFFERING, false);
+    }
+
+    private static PipeliningBufferingStreamSinkConduit createPipelineBuffer(HttpServerConnection connection) {
+        boolean adaptive = !connection.getUndertowOptions().get(UndertowOptions.BUFFER_PIPELINED_DATA, false);
+        return new PipeliningBufferingStreamSinkConduit(connection.getOriginalSinkConduit(), connection.getByteBufferPool(), adaptive);
+    }
+
     private static boolean handleRequestEncoding(final HttpServerExchange exchange, String transferEncodingHeader, String contentLengthHeader, HttpServerConnection connection, PipeliningBufferingStreamSinkConduit pipeliningBuffer, boolean persistentConnection) {
 
         HttpString transferEncoding = Headers.IDENTITY;
@@ -132,8 +142,8 @@ class HttpTransferEncoding {
             //performance
             if (connection.getExtraBytes() != null
                     && pipeliningBuffer == null
-                    && connection.getUndertowOptions().get(UndertowOptions.BUFFER_PIPELINED_DATA, false)) {
-                pipeliningBuffer = new PipeliningBufferingStreamSinkConduit(connection.getOriginalSinkConduit(), connection.getByteBufferPool());
+                    && isPipelineBufferingEnabled(connection)) {
+                pipeliningBuffer = createPipelineBuffer(connection);
                 connection.setPipelineBuffer(pipeliningBuffer);
                 pipeliningBuffer.setupPipelineBuffer(exchange);
             }
@@ -62,11 +62,21 @@ public class PipeliningBufferingStreamSinkConduit extends AbstractStreamSinkCond
     private int state;
 
     private final ByteBufferPool pool;
+    private final boolean adaptive;
     private PooledByteBuffer buffer;
 
     public PipeliningBufferingStreamSinkConduit(StreamSinkConduit next, final ByteBufferPool pool) {
+        this(next, pool, false);
+    }
+
+    /**
+     * @param adaptive If the buffer should be removed from the connection each time it is flushed at the end of a
+     *                 batch of pipelined requests
+     */
+    public PipeliningBufferingStreamSinkConduit(StreamSinkConduit next, final ByteBufferPool pool, final boolean adaptive) {
         super(next);
         this.pool = pool;
+        this.adaptive = adaptive;
     }
 
     @Override
@@ -317,8 +327,7 @@ public class PipeliningBufferingStreamSinkConduit extends AbstractStreamSinkCond
                             if (flushPipelinedData()) {
                                 channel.getSinkChannel().setWriteListener(null);
                                 channel.getSinkChannel().suspendWrites();
-                                connection.restoreChannel(oldState);
-                                connection.getReadListener().exchangeComplete(exchange);
+                                flushComplete(exchange, connection, oldState);
                             }
                         } catch (IOException e) {
                             UndertowLogger.REQUEST_IO_LOGGER.ioException(e);
@@ -329,8 +338,7 @@ public class PipeliningBufferingStreamSinkConduit extends AbstractStreamSinkCond
                 connection.getChannel().getSinkChannel().resumeWrites();
                 return;
             } else {
-                connection.restoreChannel(oldState);
-                connection.getReadListener().exchangeComplete(exchange);
+                flushComplete(exchange, connection, oldState);
             }
         } catch (IOException e) {
             UndertowLogger.REQUEST_IO_LOGGER.ioException(e);
@@ -338,5 +346,14 @@ public class PipeliningBufferingStreamSinkConduit extends AbstractStreamSinkCond
         }
     }
 
+    private void flushComplete(final HttpServerExchange exchange, final HttpServerConnection connection, final HttpServerConnection.ConduitState oldState) {
+        connection.restoreChannel(oldState);
+        if (adaptive && !exchange.isUpgrade()) {
+            //the client has stopped pipelining for now, so we stop buffering until it starts again
+            connection.removePipelineBuffer();
+        }
+        connection.getReadListener().exchangeComplete(exchange);
+    }
+
 }
 
@@ -0,0 +1,135 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.protocol.http;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+
+/**
+ * A bounded table of request header values that is shared between all connections that use the same parser.
+ * <p>
+ * The per connection {@link ParseState#headerValuesCache} only helps once a connection has already served a request.
+ * Values of headers such as User-Agent and Accept are normally the same across many connections, so this table
+ * allows them to be matched directly against the request bytes without decoding a new string.
+ * <p>
+ * The table is direct mapped and lock free. An entry is chosen from the header name and the hash of the value, and a
+ * colliding value simply replaces it. Entries are immutable, so a reader will always see a complete entry.
+ */
+final class SharedHeaderValueCache {
+
+    static final int MAX_VALUE_LENGTH = 512;
+
+    private static final Set<HttpString> CACHEABLE_HEADERS;
+
+    static {
+        Set<HttpString> headers = new HashSet<>();
+        headers.add(Headers.HOST);
+        headers.add(Headers.USER_AGENT);
+        headers.add(Headers.ACCEPT);
+        headers.add(Headers.ACCEPT_ENCODING);
+        headers.add(Headers.ACCEPT_LANGUAGE);
+        headers.add(Headers.CONNECTION);
+        CACHEABLE_HEADERS = headers;
+    }
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+
+    SharedHeaderValueCache(int size) {
+        int capacity = 1;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    static boolean isCacheable(HttpString headerName) {
+        return CACHEABLE_HEADERS.contains(headerName);
+    }
+
+    /**
+     * Looks up a value for the given header that may match the bytes at the current buffer position. The buffer
+     * position is not changed, and the caller must still verify that the bytes actually match the returned value.
+     *
+     * @return The candidate value, or <code>null</code> if there is none
+     */
+    String get(HttpString headerName, ByteBuffer buffer) {
+        final int limit = buffer.limit();
+        int pos = buffer.position();
+        while (pos < limit && buffer.get(pos) == ' ') {
+            pos++;
+        }
+        final int start = pos;
+        final int end = Math.min(limit, start + MAX_VALUE_LENGTH);
+        int hash = 0;
+        for (;;) {
+            if (pos == end) {
+                return null;
+            }
+            byte b = buffer.get(pos);
+            if (b == '\r') {
+                break;
+            }
+            //this is the same hash as String.hashCode()
+            hash = 31 * hash + (b & 0xFF);
+            pos++;
+        }
+        Entry entry = entries.get(index(headerName, hash));
+        if (entry != null && entry.hash == hash && entry.value.length() == pos - start && entry.name.equals(headerName)) {
+            return entry.value;
+        }
+        return null;
+    }
+
+    void put(HttpString headerName, String value) {
+        if (value.length() > MAX_VALUE_LENGTH || !isCacheable(headerName)) {
+            return;
+        }
+        final int hash = value.hashCode();
+        final int index = index(headerName, hash);
+        Entry existing = entries.get(index);
+        if (existing != null && existing.hash == hash && existing.value.equals(value) && existing.name.equals(headerName)) {
+            return;
+        }
+        entries.lazySet(index, new Entry(headerName, value, hash));
+    }
+
+    private int index(HttpString headerName, int hash) {
+        int h = hash ^ (headerName.hashCode() * 0x9E3779B9);
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static final class Entry {
+        final HttpString name;
+        final String value;
+        final int hash;
+
+        private Entry(HttpString name, String value, int hash) {
+            this.name = name;
+            this.value = value;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.session;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Attribute storage that just keeps attributes in a concurrent hash map.
+ */
+final class HeapSessionAttributeStorage implements SessionAttributeStorage {
+
+    @Override
+    public Attributes createAttributes() {
+        return new HeapAttributes();
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        return -1;
+    }
+
+    private static final class HeapAttributes implements Attributes {
+
+        private final ConcurrentMap<String, Object> attributes = new ConcurrentHashMap<>();
+
+        @Override
+        public Object get(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Object put(String name, Object value) {
+            return attributes.put(name, value);
+        }
+
+        @Override
+        public Object remove(String name) {
+            return attributes.remove(name);
+        }
+
+        @Override
+        public Set<String> getNames() {
+            return attributes.keySet();
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+}
@@ -47,6 +47,9 @@ import org.xnio.XnioWorker;
 /**
  * The default in memory session manager. This basically just stores sessions in an in memory hash map.
  * <p>
+ * By default every session schedules its own expiry timer on an IO thread. If timing wheel expiry is enabled
+ * sessions are instead expired in batches by a timing wheel that is shared by all session managers on the same
+ * worker, which scales better to very large numbers of sessions.
  *
  * @author Stuart Douglas
  */
@@ -84,6 +87,9 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
 
     private final boolean expireOldestUnusedSessionOnMax;
 
+    private final boolean timingWheelExpiry;
+
+    private final SessionAttributeStorage attributeStorage;
 
     public InMemorySessionManager(String deploymentName, int maxSessions, boolean expireOldestUnusedSessionOnMax) {
         this(new SecureRandomSessionIdGenerator(), deploymentName, maxSessions, expireOldestUnusedSessionOnMax);
@@ -94,6 +100,21 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
     }
 
     public InMemorySessionManager(SessionIdGenerator sessionIdGenerator, String deploymentName, int maxSessions, boolean expireOldestUnusedSessionOnMax, boolean statisticsEnabled) {
+        this(sessionIdGenerator, deploymentName, maxSessions, expireOldestUnusedSessionOnMax, statisticsEnabled, false);
+    }
+
+    /**
+     * @param timingWheelExpiry If sessions should be expired by a timing wheel shared by the worker, rather than each
+     *                          session scheduling its own timer
+     */
+    public InMemorySessionManager(SessionIdGenerator sessionIdGenerator, String deploymentName, int maxSessions, boolean expireOldestUnusedSessionOnMax, boolean statisticsEnabled, boolean timingWheelExpiry) {
+        this(sessionIdGenerator, deploymentName, maxSessions, expireOldestUnusedSessionOnMax, statisticsEnabled, timingWheelExpiry, SessionAttributeStorage.HEAP);
+    }
+
+    /**
+     * @param attributeStorage The storage used for session attributes
+     */
+    public InMemorySessionManager(SessionIdGenerator sessionIdGenerator, String deploymentName, int maxSessions, boolean expireOldestUnusedSessionOnMax, boolean statisticsEnabled, boolean timingWheelExpiry, SessionAttributeStorage attributeStorage) {
         this.sessionIdGenerator = sessionIdGenerator;
         this.deploymentName = deploymentName;
         this.statisticsEnabled = statisticsEnabled;
@@ -105,6 +126,8 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
             evictionQueue = ConcurrentDirectDeque.newInstance();
         }
         this.evictionQueue = evictionQueue;
+        this.timingWheelExpiry = timingWheelExpiry;
+        this.attributeStorage = attributeStorage;
     }
 
     public InMemorySessionManager(String deploymentName, int maxSessions) {
@@ -134,6 +157,7 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
         for (Map.Entry<String, SessionImpl> session : sessions.entrySet()) {
             session.getValue().destroy();
             sessionListeners.sessionDestroyed(session.getValue(), null, SessionListener.SessionDestroyedReason.UNDEPLOY);
+            session.getValue().attributes.release();
         }
         sessions.clear();
     }
@@ -180,7 +204,9 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
         } else {
             evictionToken = null;
         }
-        final SessionImpl session = new SessionImpl(this, sessionID, config, serverExchange.getIoThread(), serverExchange.getConnection().getWorker(), evictionToken, defaultSessionTimeout);
+        final XnioWorker worker = serverExchange.getConnection().getWorker();
+        final SessionTimeoutWheel timeoutWheel = timingWheelExpiry ? SessionTimeoutWheel.forWorker(worker) : null;
+        final SessionImpl session = new SessionImpl(this, sessionID, config, serverExchange.getIoThread(), worker, timeoutWheel, evictionToken, defaultSessionTimeout);
 
         UndertowLogger.SESSION_LOGGER.debugf("Created session with id %s for exchange %s", sessionID, serverExchange);
         sessions.put(sessionID, session);
@@ -335,6 +361,11 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
         return startTime;
     }
 
+    @Override
+    public long getAttributeMemoryUsage() {
+        return attributeStorage.getMemoryUsage();
+    }
+
 
     /**
      * session implementation for the in memory session manager
@@ -343,7 +374,7 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
 
 
         final InMemorySessionManager sessionManager;
-        final ConcurrentMap<String, Object> attributes = new ConcurrentHashMap<>();
+        final SessionAttributeStorage.Attributes attributes;
         volatile long lastAccessed;
         final long creationTime;
         volatile int maxInactiveInterval;
@@ -375,32 +406,39 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
 
         final XnioIoThread executor;
         final XnioWorker worker;
+        final SessionTimeoutWheel timeoutWheel;
 
         XnioExecutor.Key timerCancelKey;
 
+        Runnable expireTask = new Runnable() {
+            @Override
+            public void run() {
+                long currentTime = System.currentTimeMillis();
+                if(currentTime >= expireTime) {
+                    invalidate(null, SessionListener.SessionDestroyedReason.TIMEOUT);
+                } else if(timeoutWheel != null) {
+                    timerCancelKey = timeoutWheel.schedule(executor, expireTask, expireTime - currentTime);
+                } else {
+                    timerCancelKey = WorkerUtils.executeAfter(executor, cancelTask, expireTime - currentTime, TimeUnit.MILLISECONDS);
+                }
+            }
+        };
+
         Runnable cancelTask = new Runnable() {
             @Override
             public void run() {
-                worker.execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        long currentTime = System.currentTimeMillis();
-                        if(currentTime >= expireTime) {
-                            invalidate(null, SessionListener.SessionDestroyedReason.TIMEOUT);
-                        } else {
-                            timerCancelKey = WorkerUtils.executeAfter(executor, cancelTask, expireTime - currentTime, TimeUnit.MILLISECONDS);
-                        }
-                    }
-                });
+                worker.execute(expireTask);
             }
         };
 
-        private SessionImpl(final InMemorySessionManager sessionManager, final String sessionId, final SessionConfig sessionCookieConfig, final XnioIoThread executor, final XnioWorker worker, final Object evictionToken, final int maxInactiveInterval) {
+        private SessionImpl(final InMemorySessionManager sessionManager, final String sessionId, final SessionConfig sessionCookieConfig, final XnioIoThread executor, final XnioWorker worker, final SessionTimeoutWheel timeoutWheel, final Object evictionToken, final int maxInactiveInterval) {
             this.sessionManager = sessionManager;
             this.sessionId = sessionId;
             this.sessionCookieConfig = sessionCookieConfig;
             this.executor = executor;
             this.worker = worker;
+            this.timeoutWheel = timeoutWheel;
+            this.attributes = sessionManager.attributeStorage.createAttributes();
             this.evictionToken = evictionToken;
             creationTime = lastAccessed = System.currentTimeMillis();
             this.maxInactiveInterval = maxInactiveInterval;
@@ -427,7 +465,12 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
                     //+500ms, to make sure that the time has actually expired
                     //we don't re-schedule every time, as it is expensive
                     //instead when it expires we check if the timeout has been bumped, and if so we re-schedule
-                    timerCancelKey = executor.executeAfter(cancelTask, (maxInactiveInterval * 1000L) + 500L, TimeUnit.MILLISECONDS);
+                    if(timeoutWheel != null) {
+                        //the wheel runs expired tasks on the worker itself, so there is no need to dispatch
+                        timerCancelKey = timeoutWheel.schedule(executor, expireTask, (maxInactiveInterval * 1000L) + 500L);
+                    } else {
+                        timerCancelKey = executor.executeAfter(cancelTask, (maxInactiveInterval * 1000L) + 500L, TimeUnit.MILLISECONDS);
+                    }
                 }
             } else {
                 expireTime = -1;
@@ -507,7 +550,7 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
                 throw UndertowMessages.MESSAGES.sessionIsInvalid(sessionId);
             }
             bumpTimeout();
-            return attributes.keySet();
+            return attributes.getNames();
         }
 
         @Override
@@ -567,6 +610,7 @@ public class InMemorySessionManager implements SessionManager, SessionManagerSta
 
             sessionManager.sessionListeners.sessionDestroyed(this, exchange, reason);
             invalid = true;
+            attributes.release();
 
             if(sessionManager.statisticsEnabled) {
                 long life = System.currentTimeMillis() - creationTime;
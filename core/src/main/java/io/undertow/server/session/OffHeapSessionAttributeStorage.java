@@ -0,0 +1,293 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.undertow.UndertowLogger;
+import io.undertow.UndertowMessages;
+
+/**
+ * Attribute storage that serializes attribute values into direct memory, so large numbers of sessions do not
+ * fill up the heap.
+ * <p>
+ * Memory is allocated from an arena of fixed size slabs, which are split into blocks of power of two size classes.
+ * Freed blocks are kept on a free list for their size class and are reused, slabs are never returned. Values that
+ * are larger than the largest size class get their own direct buffer.
+ * <p>
+ * Values are serialized when they are set, and are deserialized every time they are read. As with a replicated
+ * session manager, changes made to a value after it has been set are not seen unless it is set again. Values that
+ * cannot be serialized are kept on the heap.
+ */
+public class OffHeapSessionAttributeStorage implements SessionAttributeStorage {
+
+    public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_BLOCK_SIZE = 64 * 1024;
+
+    private static final int MIN_BLOCK_SHIFT = 6;
+
+    private final int slabSize;
+    private final int maxBlockShift;
+    private final ConcurrentLinkedQueue<ByteBuffer>[] freeBlocks;
+    private final AtomicLong reservedMemory = new AtomicLong();
+    private final AtomicLong usedMemory = new AtomicLong();
+
+    public OffHeapSessionAttributeStorage() {
+        this(DEFAULT_SLAB_SIZE, DEFAULT_MAX_BLOCK_SIZE);
+    }
+
+    /**
+     * @param slabSize     The size of each slab that is allocated from the arena
+     * @param maxBlockSize The largest block size that is allocated from a slab, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public OffHeapSessionAttributeStorage(int slabSize, int maxBlockSize) {
+        int maxBlockShift = MIN_BLOCK_SHIFT;
+        while ((1 << maxBlockShift) < maxBlockSize) {
+            maxBlockShift++;
+        }
+        if (slabSize < (1 << maxBlockShift)) {
+            throw new IllegalArgumentException("slabSize");
+        }
+        this.slabSize = slabSize;
+        this.maxBlockShift = maxBlockShift;
+        this.freeBlocks = new ConcurrentLinkedQueue[maxBlockShift - MIN_BLOCK_SHIFT + 1];
+        for (int i = 0; i < freeBlocks.length; ++i) {
+            freeBlocks[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @Override
+    public Attributes createAttributes() {
+        return new OffHeapAttributes();
+    }
+
+    /**
+     * @return The number of bytes that have been reserved from the operating system
+     */
+    @Override
+    public long getMemoryUsage() {
+        return reservedMemory.get();
+    }
+
+    /**
+     * @return The number of bytes in blocks that currently hold attribute values
+     */
+    public long getUsedMemory() {
+        return usedMemory.get();
+    }
+
+    Block allocate(int length) {
+        int shift = MIN_BLOCK_SHIFT;
+        while ((1 << shift) < length) {
+            shift++;
+        }
+        if (shift > maxBlockShift) {
+            reservedMemory.addAndGet(length);
+            usedMemory.addAndGet(length);
+            return new Block(ByteBuffer.allocateDirect(length), -1, length);
+        }
+        int sizeClass = shift - MIN_BLOCK_SHIFT;
+        ByteBuffer buffer = freeBlocks[sizeClass].poll();
+        if (buffer == null) {
+            buffer = allocateSlab(sizeClass, 1 << shift);
+        }
+        usedMemory.addAndGet(1 << shift);
+        return new Block(buffer, sizeClass, length);
+    }
+
+    void free(Block block) {
+        if (block.sizeClass == -1) {
+            //the buffer is released when it is garbage collected
+            reservedMemory.addAndGet(-block.length);
+            usedMemory.addAndGet(-block.length);
+        } else {
+            usedMemory.addAndGet(-(1 << (block.sizeClass + MIN_BLOCK_SHIFT)));
+            freeBlocks[block.sizeClass].add(block.buffer);
+        }
+    }
+
+    /**
+     * Allocates a new slab and splits it into blocks of the given size class. The first block is returned and the
+     * rest are added to the free list.
+     */
+    private ByteBuffer allocateSlab(int sizeClass, int blockSize) {
+        ByteBuffer slab = ByteBuffer.allocateDirect(slabSize);
+        reservedMemory.addAndGet(slabSize);
+        ByteBuffer first = null;
+        for (int offset = 0; offset + blockSize <= slabSize; offset += blockSize) {
+            slab.limit(offset + blockSize);
+            slab.position(offset);
+            ByteBuffer block = slab.slice();
+            if (first == null) {
+                first = block;
+            } else {
+                freeBlocks[sizeClass].add(block);
+            }
+        }
+        return first;
+    }
+
+    static final class Block {
+        final ByteBuffer buffer;
+        final int sizeClass;
+        final int length;
+
+        Block(ByteBuffer buffer, int sizeClass, int length) {
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The attributes of a single session. The map values are either a {@link Block} holding the serialized value,
+     * or the value itself if it could not be serialized.
+     * <p>
+     * All access is synchronized, so a block cannot be freed while it is being read. Once the attributes have been
+     * released no more blocks can be allocated, as nothing would ever free them.
+     */
+    private final class OffHeapAttributes implements Attributes {
+
+        private final ConcurrentMap<String, Object> attributes = new ConcurrentHashMap<>();
+        private boolean released;
+
+        @Override
+        public synchronized Object get(String name) {
+            return read(name, attributes.get(name));
+        }
+
+        @Override
+        public synchronized Object put(String name, Object value) {
+            if (released) {
+                throw UndertowMessages.MESSAGES.sessionAttributesReleased();
+            }
+            Object stored = value;
+            if (value instanceof Serializable) {
+                byte[] data = serialize(name, value);
+                if (data != null) {
+                    Block block = allocate(data.length);
+                    ByteBuffer buffer = block.buffer.duplicate();
+                    buffer.clear();
+                    buffer.put(data);
+                    stored = block;
+                }
+            }
+            return release(name, attributes.put(name, stored));
+        }
+
+        @Override
+        public synchronized Object remove(String name) {
+            return release(name, attributes.remove(name));
+        }
+
+        @Override
+        public Set<String> getNames() {
+            return attributes.keySet();
+        }
+
+        @Override
+        public synchronized void release() {
+            released = true;
+            for (Object value : attributes.values()) {
+                if (value instanceof Block) {
+                    free((Block) value);
+                }
+            }
+            attributes.clear();
+        }
+
+        private Object release(String name, Object old) {
+            if (old instanceof Block) {
+                try {
+                    return read(name, old);
+                } finally {
+                    free((Block) old);
+                }
+            }
+            return old;
+        }
+
+        private Object read(String name, Object stored) {
+            if (!(stored instanceof Block)) {
+                return stored;
+            }
+            Block block = (Block) stored;
+            byte[] data = new byte[block.length];
+            ByteBuffer buffer = block.buffer.duplicate();
+            buffer.clear();
+            buffer.get(data);
+            try (ObjectInputStream in = new ContextClassLoaderObjectInputStream(new ByteArrayInputStream(data))) {
+                return in.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw UndertowMessages.MESSAGES.failedToDeserializeSessionAttribute(name, e);
+            }
+        }
+    }
+
+    /**
+     * @return The serialized value, or <code>null</code> if it could not be serialized
+     */
+    private static byte[] serialize(String name, Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(value);
+        } catch (IOException e) {
+            UndertowLogger.SESSION_LOGGER.debugf(e, "Session attribute %s could not be serialized, storing it on the heap", name);
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Resolves classes using the thread context class loader, so attributes can be read from within a deployment.
+     */
+    private static final class ContextClassLoaderObjectInputStream extends ObjectInputStream {
+
+        ContextClassLoaderObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    //fall back to the default resolution
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
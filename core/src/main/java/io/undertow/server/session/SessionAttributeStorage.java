@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.session;
+
+import java.util.Set;
+
+/**
+ * SPI that controls where the {@link InMemorySessionManager} keeps session attributes.
+ *
+ * @see OffHeapSessionAttributeStorage
+ */
+public interface SessionAttributeStorage {
+
+    /**
+     * Storage that keeps attributes in a map on the heap, this is the default.
+     */
+    SessionAttributeStorage HEAP = new HeapSessionAttributeStorage();
+
+    /**
+     * @return The attribute store for a newly created session
+     */
+    Attributes createAttributes();
+
+    /**
+     * @return The number of bytes of memory outside the heap that are used by this storage, or -1 if this is not tracked
+     */
+    long getMemoryUsage();
+
+    /**
+     * The attributes of a single session. Implementations must be thread safe.
+     */
+    interface Attributes {
+
+        Object get(String name);
+
+        /**
+         * @return The previous value, or <code>null</code> if there was none
+         */
+        Object put(String name, Object value);
+
+        /**
+         * @return The removed value, or <code>null</code> if there was none
+         */
+        Object remove(String name);
+
+        Set<String> getNames();
+
+        /**
+         * Called once the session has been destroyed, to release any resources held by the attributes.
+         */
+        void release();
+    }
+}
@@ -81,4 +81,12 @@ public interface SessionManagerStatistics {
      * @return The timestamp at which the session manager started
      */
     long getStartTime();
+
+    /**
+     *
+     * @return The number of bytes of memory outside the heap that are used to store session attributes, or -1 if this statistic is not supported
+     */
+    default long getAttributeMemoryUsage() {
+        return -1;
+    }
 }
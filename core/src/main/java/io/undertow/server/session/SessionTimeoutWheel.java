@@ -0,0 +1,232 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.session;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.undertow.UndertowLogger;
+import io.undertow.util.WorkerUtils;
+import org.xnio.XnioExecutor;
+import org.xnio.XnioIoThread;
+import org.xnio.XnioWorker;
+
+/**
+ * A hashed timing wheel that is used to expire sessions, shared between all session managers that use the same worker.
+ * <p>
+ * Rather than each session having its own timer on an IO thread, session timeouts are placed into one of a fixed
+ * number of buckets, based on their deadline. A single tick task walks the buckets once per tick, and all timeouts
+ * that are due are run together as one task on the worker. Timeouts that are more than one rotation of the wheel in
+ * the future just stay in their bucket until a later rotation.
+ * <p>
+ * The tick task only runs while there are pending timeouts.
+ */
+final class SessionTimeoutWheel {
+
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final long TICK_MILLIS = 500;
+
+    private static final Map<XnioWorker, WeakReference<SessionTimeoutWheel>> WHEELS = new WeakHashMap<>();
+
+    private final XnioWorker worker;
+    private final Bucket[] buckets = new Bucket[WHEEL_SIZE];
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean ticking = new AtomicBoolean();
+
+    /**
+     * The last tick that was processed. Only accessed by the tick task, and when ticking is started.
+     */
+    private long lastTick;
+    private XnioIoThread tickThread;
+
+    private final Runnable tickTask = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+        }
+    };
+
+    private SessionTimeoutWheel(XnioWorker worker) {
+        this.worker = worker;
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    static SessionTimeoutWheel forWorker(XnioWorker worker) {
+        synchronized (WHEELS) {
+            WeakReference<SessionTimeoutWheel> ref = WHEELS.get(worker);
+            SessionTimeoutWheel wheel = ref == null ? null : ref.get();
+            if (wheel == null) {
+                wheel = new SessionTimeoutWheel(worker);
+                WHEELS.put(worker, new WeakReference<>(wheel));
+            }
+            return wheel;
+        }
+    }
+
+    /**
+     * Schedules a task to be run on a worker thread after the given delay.
+     *
+     * @param thread The IO thread to run the tick task on, if the wheel is not already ticking
+     * @param task   The task
+     * @param delay  The delay in milliseconds
+     * @return A key that can be used to cancel the task
+     */
+    XnioExecutor.Key schedule(XnioIoThread thread, Runnable task, long delay) {
+        long deadline = System.currentTimeMillis() + Math.max(delay, 0);
+        Bucket bucket = buckets[(int) (deadline / TICK_MILLIS) & WHEEL_MASK];
+        Timeout timeout = new Timeout(task, deadline, bucket);
+        pending.incrementAndGet();
+        bucket.add(timeout);
+        if (ticking.compareAndSet(false, true)) {
+            startTicking(thread);
+        }
+        return timeout;
+    }
+
+    int getPendingCount() {
+        return pending.get();
+    }
+
+    private void startTicking(XnioIoThread thread) {
+        tickThread = thread;
+        lastTick = System.currentTimeMillis() / TICK_MILLIS;
+        WorkerUtils.executeAfter(thread, tickTask, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / TICK_MILLIS;
+        //the bucket before the last processed one is visited again, as a timeout with a very short delay
+        //may have been added to it while it was being processed
+        long ticks = Math.min(currentTick - lastTick + 1, WHEEL_SIZE - 1);
+        final List<Runnable> expired = new ArrayList<>();
+        for (long i = currentTick - ticks; i <= currentTick; ++i) {
+            buckets[(int) i & WHEEL_MASK].expire(now, expired);
+        }
+        lastTick = currentTick;
+        if (!expired.isEmpty()) {
+            try {
+                worker.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (Runnable task : expired) {
+                            try {
+                                task.run();
+                            } catch (Throwable t) {
+                                UndertowLogger.SESSION_LOGGER.failedToExpireSession(t);
+                            }
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                UndertowLogger.SESSION_LOGGER.debugf(e, "Failed to expire %s sessions as the worker is shutting down", expired.size());
+            }
+        }
+        if (pending.get() > 0) {
+            WorkerUtils.executeAfter(tickThread, tickTask, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            ticking.set(false);
+            //a timeout may have been added after the check, but before the wheel was marked as stopped
+            if (pending.get() > 0 && ticking.compareAndSet(false, true)) {
+                WorkerUtils.executeAfter(tickThread, tickTask, TICK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * A bucket of the wheel, this is an intrusive doubly linked list of timeouts.
+     */
+    private final class Bucket {
+
+        private Timeout head;
+
+        synchronized void add(Timeout timeout) {
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        synchronized boolean remove(Timeout timeout) {
+            if (timeout.removed) {
+                return false;
+            }
+            unlink(timeout);
+            return true;
+        }
+
+        synchronized void expire(long now, List<Runnable> expired) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.deadline <= now) {
+                    unlink(timeout);
+                    expired.add(timeout.task);
+                }
+                timeout = next;
+            }
+        }
+
+        private void unlink(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = timeout.next = null;
+            timeout.removed = true;
+            pending.decrementAndGet();
+        }
+    }
+
+    private static final class Timeout implements XnioExecutor.Key {
+
+        final Runnable task;
+        final long deadline;
+        final Bucket bucket;
+        Timeout prev;
+        Timeout next;
+        boolean removed;
+
+        Timeout(Runnable task, long deadline, Bucket bucket) {
+            this.task = task;
+            this.deadline = deadline;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean remove() {
+            return bucket.remove(this);
+        }
+    }
+}
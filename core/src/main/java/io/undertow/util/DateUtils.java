@@ -86,6 +86,12 @@ public class DateUtils {
         }
     };
 
+    /**
+     * The most recently formatted common log date. The format only has second precision, so this is valid for all
+     * log lines that are written within the same second.
+     */
+    private static volatile CommonLogDate cachedCommonLogDate;
+
     /**
      * Converts a date to a format suitable for use in a HTTP request
      *
@@ -109,7 +115,25 @@ public class DateUtils {
     }
 
     public static String toCommonLogFormat(final Date date) {
-        return COMMON_LOG_PATTERN_FORMAT.get().format(date);
+        return toCommonLogFormat(date.getTime());
+    }
+
+    /**
+     * Formats the given time in the common log format. The result is cached, so the format is only evaluated
+     * once per second.
+     *
+     * @param time The time in milliseconds since the epoch
+     * @return The formatted date
+     */
+    public static String toCommonLogFormat(final long time) {
+        final long second = Math.floorDiv(time, 1000);
+        CommonLogDate cached = cachedCommonLogDate;
+        if (cached != null && cached.second == second) {
+            return cached.value;
+        }
+        String value = COMMON_LOG_PATTERN_FORMAT.get().format(new Date(time));
+        cachedCommonLogDate = new CommonLogDate(second, value);
+        return value;
     }
 
     /**
@@ -258,4 +282,13 @@ public class DateUtils {
 
     }
 
+    private static final class CommonLogDate {
+        final long second;
+        final String value;
+
+        private CommonLogDate(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
 }
@@ -204,6 +204,7 @@ public final class Headers {
     public static final HttpString IDENTITY = new HttpString("identity");
     public static final HttpString GZIP = new HttpString("gzip");
     public static final HttpString X_GZIP = new HttpString("x-gzip");
+    public static final HttpString BR = new HttpString("br");
 
     // Transfer codings
 
@@ -0,0 +1,278 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A concurrent histogram of latency values with log scaled buckets, in the style of HdrHistogram.
+ * <p>
+ * Every power of two is split into 16 linear sub buckets, so a recorded value is reported with a relative
+ * error of at most 1/16. Values are recorded into one of a number of stripes that is selected by the
+ * recording thread, so threads on different cores do not contend on the same counters. The stripes are
+ * merged when a {@link Snapshot} is taken.
+ * <p>
+ * Stripes are allocated lazily, so a histogram that is never recorded into is cheap.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+    /**
+     * The default highest trackable value, one hour in nanoseconds. Larger values are recorded in the last bucket.
+     */
+    public static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toNanos(1);
+
+    private static final int MAX_STRIPES = 64;
+
+    private final long highestTrackableValue;
+    private final int bucketCount;
+    private final int stripeMask;
+    private final AtomicReferenceArray<Stripe> stripes;
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    public LatencyHistogram(long highestTrackableValue) {
+        if (highestTrackableValue < SUB_BUCKET_COUNT) {
+            throw new IllegalArgumentException("highestTrackableValue");
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.bucketCount = bucketIndex(highestTrackableValue) + 1;
+        int stripeCount = 1;
+        int target = Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors() * 2);
+        while (stripeCount < target) {
+            stripeCount <<= 1;
+        }
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new AtomicReferenceArray<>(stripeCount);
+    }
+
+    /**
+     * Records a single value.
+     *
+     * @param value The value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int index = (int) Thread.currentThread().getId() & stripeMask;
+        Stripe stripe = stripes.get(index);
+        if (stripe == null) {
+            stripe = new Stripe(bucketCount);
+            if (!stripes.compareAndSet(index, null, stripe)) {
+                stripe = stripes.get(index);
+            }
+        }
+        stripe.record(value, Math.min(bucketIndex(value), bucketCount - 1));
+    }
+
+    /**
+     * Merges all stripes into a point in time snapshot. Values that are recorded concurrently with this method
+     * may or may not be reflected in the snapshot.
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[bucketCount];
+        long count = 0;
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < stripes.length(); ++i) {
+            Stripe stripe = stripes.get(i);
+            if (stripe == null) {
+                continue;
+            }
+            for (int j = 0; j < bucketCount; ++j) {
+                long c = stripe.counts.get(j);
+                counts[j] += c;
+                count += c;
+            }
+            total += stripe.total;
+            min = Math.min(min, stripe.min);
+            max = Math.max(max, stripe.max);
+        }
+        return new Snapshot(counts, count, total, count == 0 ? 0 : min, max);
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & SUB_BUCKET_MASK;
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * @return The highest value that is recorded into the given bucket
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = ((long) (SUB_BUCKET_COUNT + (index & SUB_BUCKET_MASK))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private static final class Stripe {
+
+        private static final AtomicLongFieldUpdater<Stripe> totalUpdater = AtomicLongFieldUpdater.newUpdater(Stripe.class, "total");
+        private static final AtomicLongFieldUpdater<Stripe> minUpdater = AtomicLongFieldUpdater.newUpdater(Stripe.class, "min");
+        private static final AtomicLongFieldUpdater<Stripe> maxUpdater = AtomicLongFieldUpdater.newUpdater(Stripe.class, "max");
+
+        final AtomicLongArray counts;
+
+        private volatile long total;
+        private volatile long min = Long.MAX_VALUE;
+        private volatile long max;
+
+        Stripe(int buckets) {
+            counts = new AtomicLongArray(buckets);
+        }
+
+        void record(long value, int index) {
+            counts.incrementAndGet(index);
+            totalUpdater.addAndGet(this, value);
+            long current;
+            do {
+                current = this.max;
+                if (value <= current) {
+                    break;
+                }
+            } while (!maxUpdater.compareAndSet(this, current, value));
+            do {
+                current = this.min;
+                if (value >= current) {
+                    break;
+                }
+            } while (!minUpdater.compareAndSet(this, current, value));
+        }
+    }
+
+    /**
+     * An immutable view of the histogram at a point in time.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long min;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long total, long min, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * Merges two snapshots, the snapshots must come from histograms with the same highest trackable value.
+         *
+         * @param other The other snapshot
+         * @return A new snapshot containing the values from both snapshots
+         */
+        public Snapshot merge(Snapshot other) {
+            if (other.counts.length != counts.length) {
+                throw new IllegalArgumentException();
+            }
+            if (other.count == 0) {
+                return this;
+            } else if (count == 0) {
+                return other;
+            }
+            long[] merged = new long[counts.length];
+            for (int i = 0; i < merged.length; ++i) {
+                merged[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(merged, count + other.count, total + other.total, Math.min(min, other.min), Math.max(max, other.max));
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        /**
+         * Returns the value at the given percentile. The result is the highest value that is equivalent to the
+         * recorded values, limited to the range of values that were actually recorded.
+         *
+         * @param percentile The percentile, between 0 and 100
+         * @return The value at the percentile, or 0 if there are no values
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            double p = Math.min(Math.max(percentile, 0), 100);
+            long target = Math.max(1, (long) Math.ceil((p / 100) * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; ++i) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.max(min, Math.min(max, highestEquivalentValue(i)));
+                }
+            }
+            return max;
+        }
+
+        public long get50thPercentile() {
+            return getValueAtPercentile(50);
+        }
+
+        public long get99thPercentile() {
+            return getValueAtPercentile(99);
+        }
+
+        public long get999thPercentile() {
+            return getValueAtPercentile(99.9);
+        }
+    }
+}
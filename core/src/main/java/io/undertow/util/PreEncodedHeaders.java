@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.undertow.server.HttpServerExchange;
+
+/**
+ * An immutable block of response headers that has been encoded in HTTP/1.1 wire format ahead of time.
+ * <p>
+ * This is intended for responses that send the same headers over and over again, such as cached static content.
+ * When the block is added to an exchange the headers are put into the response header map as normal, so handlers
+ * and other protocols still see them. The HTTP/1.1 connector copies the encoded block into the response instead
+ * of encoding the headers again, as long as the values in the header map are still the ones that were added from
+ * the block. If a handler replaces one of them then the block is ignored and all headers are encoded as usual.
+ * <p>
+ * Framing headers such as <code>Content-Length</code> and <code>Transfer-Encoding</code> should not be part of the
+ * block, as they are generally different for every response.
+ */
+public final class PreEncodedHeaders {
+
+    public static final AttachmentKey<PreEncodedHeaders> ATTACHMENT_KEY = AttachmentKey.create(PreEncodedHeaders.class);
+
+    private final HttpString[] names;
+    private final List<String>[] values;
+    private final byte[] data;
+
+    @SuppressWarnings("unchecked")
+    public PreEncodedHeaders(final HeaderMap headers) {
+        List<HttpString> names = new ArrayList<>();
+        List<List<String>> values = new ArrayList<>();
+        int length = 0;
+        long fiCookie = headers.fastIterateNonEmpty();
+        while (fiCookie != -1L) {
+            HeaderValues headerValues = headers.fiCurrent(fiCookie);
+            HttpString name = headerValues.getHeaderName();
+            names.add(name);
+            values.add(Arrays.asList(headerValues.toArray()));
+            for (String value : headerValues) {
+                length += name.length() + value.length() + 4;
+            }
+            fiCookie = headers.fiNextNonEmpty(fiCookie);
+        }
+        byte[] data = new byte[length];
+        int pos = 0;
+        for (int i = 0; i < names.size(); ++i) {
+            HttpString name = names.get(i);
+            for (String value : values.get(i)) {
+                name.copyTo(data, pos);
+                pos += name.length();
+                data[pos++] = ':';
+                data[pos++] = ' ';
+                for (int j = 0; j < value.length(); ++j) {
+                    char c = value.charAt(j);
+                    data[pos++] = c == '\r' || c == '\n' ? (byte) ' ' : (byte) c;
+                }
+                data[pos++] = '\r';
+                data[pos++] = '\n';
+            }
+        }
+        this.names = names.toArray(new HttpString[names.size()]);
+        this.values = values.toArray(new List[values.size()]);
+        this.data = data;
+    }
+
+    /**
+     * Puts the headers into the response header map of the exchange, replacing any existing values, and attaches
+     * the encoded block so it can be used when the response is written.
+     *
+     * @param exchange The exchange
+     */
+    public void addTo(final HttpServerExchange exchange) {
+        HeaderMap responseHeaders = exchange.getResponseHeaders();
+        for (int i = 0; i < names.length; ++i) {
+            responseHeaders.putAll(names[i], values[i]);
+        }
+        exchange.putAttachment(ATTACHMENT_KEY, this);
+    }
+
+    /**
+     * @return <code>true</code> if the header map still contains exactly the values that were added from this block
+     */
+    public boolean isCurrent(final HeaderMap headers) {
+        for (int i = 0; i < names.length; ++i) {
+            HeaderValues headerValues = headers.get(names[i]);
+            List<String> expected = values[i];
+            if (headerValues == null || headerValues.size() != expected.size()) {
+                return false;
+            }
+            for (int j = 0; j < expected.size(); ++j) {
+                if (headerValues.get(j) != expected.get(j)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if the given header is part of this block
+     */
+    public boolean contains(final HttpString headerName) {
+        for (HttpString name : names) {
+            if (name.equals(headerName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The length of the encoded block in bytes
+     */
+    public int length() {
+        return data.length;
+    }
+
+    /**
+     * Copies the encoded block into the buffer.
+     */
+    public void appendTo(final ByteBuffer buffer) {
+        buffer.put(data);
+    }
+}
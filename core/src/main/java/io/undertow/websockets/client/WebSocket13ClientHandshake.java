@@ -80,7 +80,7 @@ public class WebSocket13ClientHandshake extends WebSocketClientHandshake {
                 for (WebSocketExtension ext : selected) {
                     for (ExtensionHandshake extHandshake : extensions) {
                         if (ext.getName().equals(extHandshake.getName())) {
-                            negotiated.add(extHandshake.create());
+                            negotiated.add(extHandshake.create(ext));
                         }
                     }
                 }
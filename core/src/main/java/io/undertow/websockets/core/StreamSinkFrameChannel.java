@@ -28,6 +28,8 @@ public abstract class StreamSinkFrameChannel extends AbstractFramedStreamSinkCha
 
     private int rsv;
 
+    private boolean preFramed;
+
     protected StreamSinkFrameChannel(WebSocketChannel channel, WebSocketFrameType type) {
         super(channel);
         this.type = type;
@@ -54,6 +56,22 @@ public abstract class StreamSinkFrameChannel extends AbstractFramedStreamSinkCha
         this.rsv = rsv;
     }
 
+    /**
+     * Returns {@code true} if the data that is sent on this channel already contains the frame header, so no
+     * header should be generated and no extensions should be applied.
+     */
+    protected boolean isPreFramed() {
+        return preFramed;
+    }
+
+    /**
+     * Marks this channel as sending a complete frame that has been generated in advance. This is used by
+     * {@link WebSocketBroadcaster} so the same frame can be sent to many peers.
+     */
+    void setPreFramed(boolean preFramed) {
+        this.preFramed = preFramed;
+    }
+
     /**
      * {@code true} if fragmentation is supported for the {@link WebSocketFrameType}.
      */
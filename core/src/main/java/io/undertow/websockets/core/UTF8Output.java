@@ -21,13 +21,24 @@ package io.undertow.websockets.core;
 import org.xnio.Buffers;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Utility class which allows to extract a UTF8 String from bytes respecting valid code-points
+ * <p>
+ * Runs of ASCII characters are detected 8 bytes at a time and converted in bulk, and only the remaining bytes go
+ * through the state machine. If the whole text is a single ASCII run it is returned without being copied into a
+ * {@link StringBuilder}.
  */
 public final class UTF8Output {
     private static final int UTF8_ACCEPT = 0;
     private static final byte HIGH_BIT = (byte) (1 << 7);
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * ASCII runs shorter than this are appended one character at a time, as creating a String is not worth it
+     */
+    private static final int MIN_BULK_ASCII = 16;
 
     private static final byte[] TYPES = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
             0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
@@ -53,6 +64,11 @@ public final class UTF8Output {
 
     private final StringBuilder stringBuilder;
 
+    /**
+     * ASCII text that has been decoded but not yet added to the string builder
+     */
+    private String ascii;
+
     public UTF8Output(ByteBuffer... payload) {
         stringBuilder = new StringBuilder((int) Buffers.remaining(payload));
         write(payload);
@@ -65,12 +81,74 @@ public final class UTF8Output {
     public void write(ByteBuffer... bytes) {
         for (ByteBuffer buf : bytes) {
             while (buf.hasRemaining()) {
+                if (state == UTF8_ACCEPT) {
+                    int run = asciiLength(buf, buf.position(), buf.limit());
+                    if (run >= MIN_BULK_ASCII) {
+                        writeAscii(buf, run);
+                        continue;
+                    } else if (run > 0) {
+                        appendAscii(buf, run);
+                        continue;
+                    }
+                }
                 write(buf.get());
             }
         }
     }
 
+    /**
+     * Returns the number of ASCII bytes at the start of the given range. Eight bytes are checked at a time.
+     */
+    static int asciiLength(ByteBuffer buf, int start, int end) {
+        int i = start;
+        while (i + 8 <= end && (buf.getLong(i) & HIGH_BITS) == 0) {
+            i += 8;
+        }
+        while (i < end && buf.get(i) >= 0) {
+            ++i;
+        }
+        return i - start;
+    }
+
+    private void writeAscii(ByteBuffer buf, int length) {
+        String text;
+        if (buf.hasArray()) {
+            text = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.ISO_8859_1);
+            buf.position(buf.position() + length);
+        } else {
+            byte[] data = new byte[length];
+            buf.get(data);
+            text = new String(data, StandardCharsets.ISO_8859_1);
+        }
+        if (ascii == null && stringBuilder.length() == 0) {
+            ascii = text;
+        } else {
+            flushAscii();
+            stringBuilder.append(text);
+        }
+    }
+
+    /**
+     * Appends a short ASCII run that has already been measured, so it does not need to be scanned again.
+     */
+    private void appendAscii(ByteBuffer buf, int length) {
+        flushAscii();
+        int pos = buf.position();
+        for (int i = pos; i < pos + length; ++i) {
+            stringBuilder.append((char) buf.get(i));
+        }
+        buf.position(pos + length);
+    }
+
+    private void flushAscii() {
+        if (ascii != null) {
+            stringBuilder.append(ascii);
+            ascii = null;
+        }
+    }
+
     private void write(byte b) {
+        flushAscii();
         if(state == UTF8_ACCEPT && (b & HIGH_BIT) == 0) {
             stringBuilder.append((char)b);
             return;
@@ -92,12 +170,18 @@ public final class UTF8Output {
      * Extract a String holding the utf8 text
      */
     public String extract() {
+        if (ascii != null && stringBuilder.length() == 0) {
+            String text = ascii;
+            ascii = null;
+            return text;
+        }
+        flushAscii();
         String text = stringBuilder.toString();
         stringBuilder.setLength(0);
         return text;
     }
 
     public boolean hasData() {
-        return stringBuilder.length() != 0;
+        return ascii != null || stringBuilder.length() != 0;
     }
 }
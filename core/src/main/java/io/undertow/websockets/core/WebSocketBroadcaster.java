@@ -0,0 +1,278 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.websockets.core;
+
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.util.ImmediatePooledByteBuffer;
+import io.undertow.util.ReferenceCountedPooled;
+import org.xnio.IoUtils;
+import org.xnio.XnioIoThread;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Sends the same message to a large number of web socket peers.
+ * <p>
+ * The frame is generated once into a reference counted buffer, and a view of this buffer is queued on every peer,
+ * so there is no per peer framing or copying. Peers that cannot accept a pre-generated frame (clients, which must
+ * mask their frames, and peers that have negotiated extensions) are sent a copy of the message in the normal way.
+ * <p>
+ * Rather than executing a task per peer the peers are grouped by IO thread, and a single task is executed on each
+ * thread.
+ * <p>
+ * The number of broadcast messages that are queued but not yet written is tracked for every peer. If this exceeds
+ * the configured maximum then the peer is considered to be a slow consumer, and either the message is dropped for
+ * that peer or the peer is disconnected.
+ */
+public class WebSocketBroadcaster {
+
+    private static final byte OPCODE_TEXT = 0x1;
+    private static final byte OPCODE_BINARY = 0x2;
+
+    private static final AtomicLongFieldUpdater<WebSocketBroadcaster> messagesSentUpdater = AtomicLongFieldUpdater.newUpdater(WebSocketBroadcaster.class, "messagesSent");
+    private static final AtomicLongFieldUpdater<WebSocketBroadcaster> messagesDroppedUpdater = AtomicLongFieldUpdater.newUpdater(WebSocketBroadcaster.class, "messagesDropped");
+    private static final AtomicLongFieldUpdater<WebSocketBroadcaster> slowConsumersDisconnectedUpdater = AtomicLongFieldUpdater.newUpdater(WebSocketBroadcaster.class, "slowConsumersDisconnected");
+
+    private final int maxQueuedMessages;
+    private final boolean disconnectSlowConsumers;
+
+    private volatile long messagesSent;
+    private volatile long messagesDropped;
+    private volatile long slowConsumersDisconnected;
+
+    public WebSocketBroadcaster() {
+        this(-1, false);
+    }
+
+    /**
+     * @param maxQueuedMessages       The maximum number of broadcast messages that can be queued on a peer, or -1 for no limit
+     * @param disconnectSlowConsumers If peers that exceed the limit should be disconnected, rather than have the message dropped
+     */
+    public WebSocketBroadcaster(int maxQueuedMessages, boolean disconnectSlowConsumers) {
+        this.maxQueuedMessages = maxQueuedMessages;
+        this.disconnectSlowConsumers = disconnectSlowConsumers;
+    }
+
+    /**
+     * Sends a text message to all the given peers
+     *
+     * @param message  The text to send
+     * @param peers    The peers to send to
+     * @param callback The callback that is invoked once for every peer, may be null
+     */
+    public void sendText(final String message, final Collection<WebSocketChannel> peers, final WebSocketCallback<Void> callback) {
+        broadcast(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)), WebSocketFrameType.TEXT, peers, callback);
+    }
+
+    /**
+     * Sends a binary message to all the given peers. The contents of the buffer must not be modified until the
+     * callback has been invoked for every peer.
+     *
+     * @param data     The data to send
+     * @param peers    The peers to send to
+     * @param callback The callback that is invoked once for every peer, may be null
+     */
+    public void sendBinary(final ByteBuffer data, final Collection<WebSocketChannel> peers, final WebSocketCallback<Void> callback) {
+        broadcast(data.duplicate(), WebSocketFrameType.BINARY, peers, callback);
+    }
+
+    private void broadcast(final ByteBuffer payload, final WebSocketFrameType type, final Collection<WebSocketChannel> peers, final WebSocketCallback<Void> callback) {
+        ReferenceCountedPooled frame = null;
+        final Map<XnioIoThread, List<WebSocketChannel>> byThread = new HashMap<>();
+        for (WebSocketChannel peer : peers) {
+            if (frame == null && isPreFrameSupported(peer)) {
+                frame = createFrame(payload, type, peer.getBufferPool());
+            }
+            List<WebSocketChannel> list = byThread.get(peer.getIoThread());
+            if (list == null) {
+                byThread.put(peer.getIoThread(), list = new ArrayList<>());
+            }
+            list.add(peer);
+        }
+        final ReferenceCountedPooled sharedFrame = frame;
+        final ByteBuffer frameBuffer = frame == null ? null : frame.getBuffer();
+        try {
+            for (Map.Entry<XnioIoThread, List<WebSocketChannel>> entry : byThread.entrySet()) {
+                final List<WebSocketChannel> threadPeers = entry.getValue();
+                //make sure the frame is not freed until the task has run
+                final PooledByteBuffer reference = sharedFrame == null ? null : sharedFrame.createView(frameBuffer);
+                entry.getKey().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (WebSocketChannel peer : threadPeers) {
+                                send(peer, payload, type, sharedFrame, frameBuffer, callback);
+                            }
+                        } finally {
+                            if (reference != null) {
+                                reference.close();
+                            }
+                        }
+                    }
+                });
+            }
+        } finally {
+            if (sharedFrame != null) {
+                sharedFrame.close();
+            }
+        }
+    }
+
+    private void send(final WebSocketChannel peer, ByteBuffer payload, WebSocketFrameType type, ReferenceCountedPooled frame, ByteBuffer frameBuffer, final WebSocketCallback<Void> callback) {
+        int queued = peer.getQueuedBroadcastMessages();
+        if (maxQueuedMessages >= 0 && queued >= maxQueuedMessages) {
+            if (disconnectSlowConsumers) {
+                slowConsumersDisconnectedUpdater.incrementAndGet(this);
+                WebSocketLogger.REQUEST_LOGGER.debugf("Closing web socket %s as it has %s broadcast messages queued", peer, queued);
+                IoUtils.safeClose(peer);
+                if (callback != null) {
+                    callback.onError(peer, null, WebSocketMessages.MESSAGES.channelClosed());
+                }
+            } else {
+                messagesDroppedUpdater.incrementAndGet(this);
+                if (callback != null) {
+                    callback.onError(peer, null, WebSocketMessages.MESSAGES.broadcastQueueFull(queued));
+                }
+            }
+            return;
+        }
+        final WebSocketCallback<Void> trackingCallback = new WebSocketCallback<Void>() {
+            @Override
+            public void complete(WebSocketChannel channel, Void context) {
+                peer.broadcastMessageWritten();
+                messagesSentUpdater.incrementAndGet(WebSocketBroadcaster.this);
+                if (callback != null) {
+                    callback.complete(channel, context);
+                }
+            }
+
+            @Override
+            public void onError(WebSocketChannel channel, Void context, Throwable throwable) {
+                peer.broadcastMessageWritten();
+                if (callback != null) {
+                    callback.onError(channel, context, throwable);
+                } else {
+                    IoUtils.safeClose(channel);
+                }
+            }
+        };
+        peer.broadcastMessageQueued();
+        if (frame != null && isPreFrameSupported(peer)) {
+            PooledByteBuffer view = frame.createView(frameBuffer.duplicate());
+            boolean closeView = true;
+            StreamSinkFrameChannel channel = null;
+            try {
+                channel = peer.send(type);
+                channel.setPreFramed(true);
+                if (!channel.send(view)) {
+                    throw WebSocketMessages.MESSAGES.unableToSendOnNewChannel();
+                }
+                closeView = false; // the channel has taken ownership of the view
+                WebSockets.flushChannelAsync(peer, trackingCallback, channel, null, -1);
+            } catch (IOException | RuntimeException e) {
+                //a failure on one peer must not stop the broadcast to the others
+                //the frame channel has to be closed, otherwise no further frames can be sent to the peer
+                IoUtils.safeClose(channel);
+                trackingCallback.onError(peer, null, e);
+            } finally {
+                if (closeView) {
+                    view.close();
+                }
+            }
+        } else {
+            //the message may be transformed in place (e.g. masked), so each peer needs its own copy
+            ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+            copy.put(payload.duplicate());
+            copy.flip();
+            if (type == WebSocketFrameType.TEXT) {
+                WebSockets.sendText(copy, peer, trackingCallback);
+            } else {
+                WebSockets.sendBinary(copy, peer, trackingCallback);
+            }
+        }
+    }
+
+    /**
+     * Only servers that have not negotiated any extensions can use a shared frame, as clients must mask every frame
+     * with a different key, and extensions may transform the payload.
+     */
+    private static boolean isPreFrameSupported(WebSocketChannel peer) {
+        if (peer.isClient() || peer.areExtensionsSupported()) {
+            return false;
+        }
+        WebSocketVersion version = peer.getVersion();
+        return version == WebSocketVersion.V07 || version == WebSocketVersion.V08 || version == WebSocketVersion.V13;
+    }
+
+    static ReferenceCountedPooled createFrame(ByteBuffer payload, WebSocketFrameType type, ByteBufferPool pool) {
+        int length = payload.remaining();
+        int headerLength = length <= 125 ? 2 : length <= 0xFFFF ? 4 : 10;
+        PooledByteBuffer pooled;
+        if (pool != null && headerLength + length <= pool.getBufferSize()) {
+            pooled = pool.allocate();
+        } else {
+            pooled = new ImmediatePooledByteBuffer(ByteBuffer.allocate(headerLength + length));
+        }
+        ByteBuffer buffer = pooled.getBuffer();
+        buffer.clear();
+        buffer.put((byte) (1 << 7 | (type == WebSocketFrameType.TEXT ? OPCODE_TEXT : OPCODE_BINARY)));
+        if (length <= 125) {
+            buffer.put((byte) length);
+        } else if (length <= 0xFFFF) {
+            buffer.put((byte) 126);
+            buffer.putShort((short) length);
+        } else {
+            buffer.put((byte) 127);
+            buffer.putLong(length);
+        }
+        buffer.put(payload.duplicate());
+        buffer.flip();
+        return new ReferenceCountedPooled(pooled, 1);
+    }
+
+    /**
+     * @return The number of broadcast messages that have been written out, counted once per peer
+     */
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    /**
+     * @return The number of messages that were dropped because a peer had too many messages queued
+     */
+    public long getMessagesDropped() {
+        return messagesDropped;
+    }
+
+    /**
+     * @return The number of peers that were disconnected because they had too many messages queued
+     */
+    public long getSlowConsumersDisconnected() {
+        return slowConsumersDisconnected;
+    }
+}
@@ -61,6 +61,12 @@ public abstract class WebSocketChannel extends AbstractFramedChannel<WebSocketCh
     private volatile boolean closeInitiatedByRemotePeer;
     private volatile int closeCode = -1;
     private volatile String closeReason;
+
+    /**
+     * The number of messages sent by a {@link WebSocketBroadcaster} that have not been written out yet. This is only
+     * modified by the IO thread.
+     */
+    private volatile int queuedBroadcastMessages;
     private final String subProtocol;
     protected final boolean extensionsSupported;
     protected final ExtensionFunction extensionFunction;
@@ -445,4 +451,19 @@ public abstract class WebSocketChannel extends AbstractFramedChannel<WebSocketCh
     public ExtensionFunction getExtensionFunction() {
         return extensionFunction;
     }
+
+    /**
+     * Returns the number of broadcast messages that are queued on this channel but have not been written out yet.
+     */
+    public int getQueuedBroadcastMessages() {
+        return queuedBroadcastMessages;
+    }
+
+    void broadcastMessageQueued() {
+        queuedBroadcastMessages++;
+    }
+
+    void broadcastMessageWritten() {
+        queuedBroadcastMessages--;
+    }
 }
@@ -173,4 +173,7 @@ public interface WebSocketMessages {
 
     @Message(id = 2045, value = "Unable to send on newly created channel!")
     IllegalStateException unableToSendOnNewChannel();
+
+    @Message(id = 2046, value = "Message was dropped as the peer has %s broadcast messages queued")
+    IOException broadcastQueueFull(int queued);
 }
@@ -923,7 +923,7 @@ public class WebSockets {
         }
     }
 
-    private static <T> void flushChannelAsync(final WebSocketChannel wsChannel, final WebSocketCallback<T> callback, StreamSinkFrameChannel channel, final T context, long timeoutmillis) throws IOException {
+    static <T> void flushChannelAsync(final WebSocketChannel wsChannel, final WebSocketCallback<T> callback, StreamSinkFrameChannel channel, final T context, long timeoutmillis) throws IOException {
         final WebSocketFrameType type = channel.getType();
         channel.shutdownWrites();
         if (!channel.flush()) {
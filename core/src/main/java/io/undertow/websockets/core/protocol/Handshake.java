@@ -235,7 +235,7 @@ public abstract class Handshake {
                 for (WebSocketExtension ext : extensions) {
                     for (ExtensionHandshake extHandshake : availableExtensions) {
                         if (extHandshake.getName().equals(ext.getName())) {
-                            negotiated.add(extHandshake.create());
+                            negotiated.add(extHandshake.create(ext));
                         }
                     }
                 }
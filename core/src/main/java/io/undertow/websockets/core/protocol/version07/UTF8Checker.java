@@ -37,6 +37,7 @@ public class UTF8Checker implements ChannelFunction {
 
     private static final int UTF8_ACCEPT = 0;
     private static final int UTF8_REJECT = 12;
+    private static final long HIGH_BITS = 0x8080808080808080L;
 
     private static final byte[] TYPES = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
             0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
@@ -77,8 +78,21 @@ public class UTF8Checker implements ChannelFunction {
      */
     private void checkUTF8(ByteBuffer buf, int position, int length) throws UnsupportedEncodingException {
         int limit = position + length;
-        for (int i = position; i < limit; i++) {
-            checkUTF8(buf.get(i));
+        int i = position;
+        while (i < limit) {
+            if (state == UTF8_ACCEPT) {
+                //ASCII bytes never change the state, so we can skip over them 8 at a time
+                while (i + 8 <= limit && (buf.getLong(i) & HIGH_BITS) == 0) {
+                    i += 8;
+                }
+                while (i < limit && buf.get(i) >= 0) {
+                    i++;
+                }
+                if (i == limit) {
+                    return;
+                }
+            }
+            checkUTF8(buf.get(i++));
         }
     }
 
@@ -97,6 +97,10 @@ public abstract class WebSocket07FrameSinkChannel extends StreamSinkFrameChannel
 
     @Override
     protected SendFrameHeader createFrameHeader() {
+        if (isPreFramed()) {
+            //the header is already part of the buffer
+            return null;
+        }
         byte b0 = 0;
 
         //if writes are shutdown this is the final fragment
@@ -159,6 +163,9 @@ public abstract class WebSocket07FrameSinkChannel extends StreamSinkFrameChannel
 
     @Override
     protected PooledByteBuffer preWriteTransform(PooledByteBuffer body) {
+        if (isPreFramed()) {
+            return body;
+        }
         try {
             return super.preWriteTransform(extensionFunction.transformForWrite(body, this, this.isFinalFrameQueued()));
         } catch (IOException e) {
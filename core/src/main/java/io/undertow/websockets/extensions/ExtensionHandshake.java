@@ -62,4 +62,15 @@ public interface ExtensionHandshake {
      * @return a new instance {@link ExtensionFunction}
      */
     ExtensionFunction create();
+
+    /**
+     * Create a new instance of the {@link ExtensionFunction} associated to this WebSocket Extension, configured
+     * with the parameters that were negotiated for the connection.
+     *
+     * @param negotiated the extension as it appears in the handshake response
+     * @return a new instance {@link ExtensionFunction}
+     */
+    default ExtensionFunction create(final WebSocketExtension negotiated) {
+        return create();
+    }
 }
@@ -18,6 +18,8 @@
 
 package io.undertow.websockets.extensions;
 
+import io.undertow.conduits.DeflaterPool;
+import io.undertow.conduits.InflaterPool;
 import io.undertow.connector.ByteBufferPool;
 import io.undertow.connector.PooledByteBuffer;
 import io.undertow.util.ImmediatePooledByteBuffer;
@@ -42,7 +44,10 @@ import java.util.zip.Inflater;
  * <p/>
  * This implementation does not support parameters: {@code server_max_window_bits, client_max_window_bits} .
  * <p/>
- * It uses the DEFLATE implementation algorithm packaged on {@link Deflater} and {@link Inflater} classes.
+ * It uses the DEFLATE implementation algorithm packaged on {@link Deflater} and {@link Inflater} classes. These are
+ * only allocated once the first message is processed. If context takeover is disabled for a direction they are
+ * borrowed from a pool at the start of each message and returned at the end, so idle connections hold no native
+ * zlib memory.
  *
  * @author Lucas Ponce
  * @see <a href="http://tools.ietf.org/html/draft-ietf-hybi-permessage-compression-18">Compression Extensions for WebSocket</a>
@@ -54,8 +59,12 @@ public class PerMessageDeflateFunction implements ExtensionFunction {
     private final int deflaterLevel;
     private final boolean compressContextTakeover;
     private final boolean decompressContextTakeover;
-    private final Inflater decompress;
-    private final Deflater compress;
+    private final int compressionThreshold;
+    private final DeflaterPool deflaterPool;
+    private final InflaterPool inflaterPool;
+    private Inflater decompress;
+    private Deflater compress;
+    private boolean compressingMessage;
     private StreamSourceFrameChannel currentReadChannel;
 
     /**
@@ -66,11 +75,26 @@ public class PerMessageDeflateFunction implements ExtensionFunction {
      * @param decompressContextTakeover flag for decompressor context takeover or without decompressor context
      */
     public PerMessageDeflateFunction(final int deflaterLevel, boolean compressContextTakeover, boolean decompressContextTakeover) {
+        this(deflaterLevel, compressContextTakeover, decompressContextTakeover, 0, null, null);
+    }
+
+    /**
+     * Create a new {@code PerMessageDeflateExtension} instance.
+     *
+     * @param deflaterLevel             the level of configuration of DEFLATE algorithm implementation
+     * @param compressContextTakeover   flag for compressor context takeover or without compressor context
+     * @param decompressContextTakeover flag for decompressor context takeover or without decompressor context
+     * @param compressionThreshold      messages that are smaller than this number of bytes are sent uncompressed
+     * @param deflaterPool              the pool that compressors are borrowed from, if this is null they are not pooled
+     * @param inflaterPool              the pool that decompressors are borrowed from, if this is null they are not pooled
+     */
+    public PerMessageDeflateFunction(final int deflaterLevel, boolean compressContextTakeover, boolean decompressContextTakeover, int compressionThreshold, DeflaterPool deflaterPool, InflaterPool inflaterPool) {
         this.deflaterLevel = deflaterLevel;
-        this.decompress = new Inflater(true);
-        this.compress = new Deflater(this.deflaterLevel, true);
         this.compressContextTakeover = compressContextTakeover;
         this.decompressContextTakeover = decompressContextTakeover;
+        this.compressionThreshold = compressionThreshold;
+        this.deflaterPool = deflaterPool;
+        this.inflaterPool = inflaterPool;
     }
 
     @Override
@@ -86,6 +110,17 @@ public class PerMessageDeflateFunction implements ExtensionFunction {
     @Override
     public synchronized PooledByteBuffer transformForWrite(PooledByteBuffer pooledBuffer, StreamSinkFrameChannel channel, boolean lastFrame) throws IOException {
         ByteBuffer buffer = pooledBuffer.getBuffer();
+        if (!compressingMessage) {
+            if (lastFrame && buffer.remaining() < compressionThreshold) {
+                //the whole message is in this frame, and it is too small to be worth compressing
+                channel.setRsv(channel.getRsv() & ~RSV1);
+                return pooledBuffer;
+            }
+            compressingMessage = true;
+        }
+        if (compress == null) {
+            compress = allocateDeflater();
+        }
         PooledByteBuffer inputBuffer = null;
         if (buffer.hasArray()) {
             compress.setInput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
@@ -120,8 +155,9 @@ public class PerMessageDeflateFunction implements ExtensionFunction {
 
         if(lastFrame) {
             outputBuffer.put((byte) 0);
+            compressingMessage = false;
             if (!compressContextTakeover) {
-                compress.reset();
+                releaseDeflater();
             }
         }
         outputBuffer.flip();
@@ -174,6 +210,12 @@ public class PerMessageDeflateFunction implements ExtensionFunction {
 
             decompress.setInput(TAIL);
             output = decompress(channel.getWebSocketChannel(), output);
+            if (!decompressContextTakeover) {
+                releaseInflater();
+            }
+        }
+        if (decompress == null) {
+            decompress = allocateInflater();
         }
         ByteBuffer buffer = pooledBuffer.getBuffer();
 
@@ -194,6 +236,9 @@ public class PerMessageDeflateFunction implements ExtensionFunction {
             decompress.setInput(TAIL);
             output = decompress(channel.getWebSocketChannel(), output);
             currentReadChannel = null;
+            if (!decompressContextTakeover) {
+                releaseInflater();
+            }
         } else {
             currentReadChannel = channel;
         }
@@ -227,10 +272,70 @@ public class PerMessageDeflateFunction implements ExtensionFunction {
         return pooled;
     }
 
+    private Deflater allocateDeflater() {
+        if (deflaterPool == null) {
+            return new Deflater(deflaterLevel, true);
+        }
+        return deflaterPool.allocate();
+    }
+
+    private void freeDeflater(Deflater deflater) {
+        if (deflaterPool == null) {
+            deflater.end();
+        } else {
+            deflaterPool.free(deflater);
+        }
+    }
+
+    /**
+     * Discards the compression context at the end of a message, returning the deflater to the pool if there is one
+     */
+    private void releaseDeflater() {
+        if (deflaterPool == null) {
+            compress.reset();
+        } else {
+            deflaterPool.free(compress);
+            compress = null;
+        }
+    }
+
+    private Inflater allocateInflater() {
+        if (inflaterPool == null) {
+            return new Inflater(true);
+        }
+        return inflaterPool.allocate();
+    }
+
+    private void freeInflater(Inflater inflater) {
+        if (inflaterPool == null) {
+            inflater.end();
+        } else {
+            inflaterPool.free(inflater);
+        }
+    }
+
+    /**
+     * Discards the decompression context at the end of a message, returning the inflater to the pool if there is one
+     */
+    private void releaseInflater() {
+        if (inflaterPool == null) {
+            decompress.reset();
+        } else {
+            inflaterPool.free(decompress);
+            decompress = null;
+        }
+    }
+
     @Override
-    public void dispose() {
-        // Call end so that native zlib resources can be immediately released rather than relying on finalizer
-        compress.end();
-        decompress.end();
+    public synchronized void dispose() {
+        // Release native zlib resources immediately rather than relying on finalizer
+        if (compress != null) {
+            freeDeflater(compress);
+            compress = null;
+        }
+        if (decompress != null) {
+            freeInflater(decompress);
+            decompress = null;
+        }
     }
 }
@@ -23,6 +23,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.zip.Deflater;
 
+import io.undertow.conduits.DeflaterPool;
+import io.undertow.conduits.InflaterPool;
 import io.undertow.websockets.WebSocketExtension;
 import io.undertow.websockets.core.WebSocketLogger;
 
@@ -30,6 +32,9 @@ import io.undertow.websockets.core.WebSocketLogger;
  * Implementation of {@code permessage-deflate} WebSocket Extension handshake.
  * <p>
  * This implementation supports parameters: {@code server_no_context_takeover, client_no_context_takeover} .
+ * If context takeover is disabled for a direction the server requests it in the handshake response, and the
+ * connection then only borrows a compressor from a per thread pool while a message is being processed, rather than
+ * holding one for its whole life.
  * <p>
  * This implementation does not support parameters: {@code server_max_window_bits, client_max_window_bits} .
  *
@@ -47,11 +52,14 @@ public class PerMessageDeflateHandshake implements ExtensionHandshake {
 
     private final Set<String> incompatibleExtensions = new HashSet<>();
 
-    private boolean compressContextTakeover;
-    private boolean decompressContextTakeover;
+    private final boolean compressContextTakeover;
+    private final boolean decompressContextTakeover;
 
     private final boolean client;
     private final int deflaterLevel;
+    private final int compressionThreshold;
+    private final DeflaterPool deflaterPool;
+    private final InflaterPool inflaterPool;
 
     /**
      * Default configuration for DEFLATE algorithm implementation
@@ -101,8 +109,24 @@ public class PerMessageDeflateHandshake implements ExtensionHandshake {
      * @param decompressContextTakeover flag for decompressor context takeover or without decompressor context
      */
     public PerMessageDeflateHandshake(final boolean client, final int deflaterLevel, boolean compressContextTakeover, boolean decompressContextTakeover) {
+        this(client, deflaterLevel, compressContextTakeover, decompressContextTakeover, 0);
+    }
+
+    /**
+     * Create a new {@code PerMessageDeflateHandshake} instance.
+     *
+     * @param client                    flag for client ({@code true }) context or server ({@code false }) context
+     * @param deflaterLevel             the level of configuration of DEFLATE algorithm implementation
+     * @param compressContextTakeover   flag for compressor context takeover or without compressor context
+     * @param decompressContextTakeover flag for decompressor context takeover or without decompressor context
+     * @param compressionThreshold      messages that are smaller than this number of bytes are sent uncompressed
+     */
+    public PerMessageDeflateHandshake(final boolean client, final int deflaterLevel, boolean compressContextTakeover, boolean decompressContextTakeover, int compressionThreshold) {
         this.client = client;
         this.deflaterLevel = deflaterLevel;
+        this.compressionThreshold = compressionThreshold;
+        this.deflaterPool = new DeflaterPool(deflaterLevel);
+        this.inflaterPool = new InflaterPool();
         /*
             This extension is incompatible with multiple instances of same extension in the same Endpoint.
          */
@@ -122,7 +146,10 @@ public class PerMessageDeflateHandshake implements ExtensionHandshake {
 
         WebSocketExtension negotiated = new WebSocketExtension(extension.getName());
 
-        if (extension.getParameters() == null || extension.getParameters().size() == 0) return negotiated;
+        if (extension.getParameters() == null || extension.getParameters().size() == 0) {
+            addNoContextTakeover(negotiated);
+            return negotiated;
+        }
         for (WebSocketExtension.Parameter parameter : extension.getParameters()) {
             if (parameter.getName().equals(SERVER_MAX_WINDOW_BITS)) {
                 /*
@@ -134,27 +161,43 @@ public class PerMessageDeflateHandshake implements ExtensionHandshake {
                  */
             } else if (parameter.getName().equals(SERVER_NO_CONTEXT_TAKEOVER)) {
                 negotiated.getParameters().add(parameter);
-                if (client) {
-                    decompressContextTakeover = false;
-                } else {
-                    compressContextTakeover = false;
-                }
             } else if (parameter.getName().equals(CLIENT_NO_CONTEXT_TAKEOVER)) {
                 negotiated.getParameters().add(parameter);
-                if (client) {
-                    compressContextTakeover = false;
-                } else {
-                    decompressContextTakeover = false;
-                }
             } else {
                 WebSocketLogger.EXTENSION_LOGGER.incorrectExtensionParameter(parameter);
                 return null;
             }
         }
+        addNoContextTakeover(negotiated);
         WebSocketLogger.EXTENSION_LOGGER.debugf("Negotiated extension %s for handshake %s", negotiated, extension);
         return negotiated;
     }
 
+    /**
+     * If context takeover has been disabled for a direction then the response asks the peer for this as well. The
+     * peer is required to accept these parameters.
+     */
+    private void addNoContextTakeover(WebSocketExtension negotiated) {
+        if (!(client ? decompressContextTakeover : compressContextTakeover) && !hasParameter(negotiated, SERVER_NO_CONTEXT_TAKEOVER)) {
+            negotiated.getParameters().add(new WebSocketExtension.Parameter(SERVER_NO_CONTEXT_TAKEOVER, null));
+        }
+        if (!(client ? compressContextTakeover : decompressContextTakeover) && !hasParameter(negotiated, CLIENT_NO_CONTEXT_TAKEOVER)) {
+            negotiated.getParameters().add(new WebSocketExtension.Parameter(CLIENT_NO_CONTEXT_TAKEOVER, null));
+        }
+    }
+
+    private static boolean hasParameter(WebSocketExtension extension, String name) {
+        if (extension.getParameters() == null) {
+            return false;
+        }
+        for (WebSocketExtension.Parameter parameter : extension.getParameters()) {
+            if (parameter.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public boolean isIncompatible(List<ExtensionHandshake> extensions) {
         for (ExtensionHandshake extension : extensions) {
@@ -167,6 +210,17 @@ public class PerMessageDeflateHandshake implements ExtensionHandshake {
 
     @Override
     public ExtensionFunction create() {
-        return new PerMessageDeflateFunction(deflaterLevel, compressContextTakeover, decompressContextTakeover);
+        return new PerMessageDeflateFunction(deflaterLevel, compressContextTakeover, decompressContextTakeover, compressionThreshold, deflaterPool, inflaterPool);
+    }
+
+    @Override
+    public ExtensionFunction create(final WebSocketExtension negotiated) {
+        boolean serverNoContextTakeover = hasParameter(negotiated, SERVER_NO_CONTEXT_TAKEOVER);
+        boolean clientNoContextTakeover = hasParameter(negotiated, CLIENT_NO_CONTEXT_TAKEOVER);
+        //we can always choose not to use the context when compressing, but can only discard it when decompressing
+        //if the peer has agreed not to use it
+        boolean compress = compressContextTakeover && !(client ? clientNoContextTakeover : serverNoContextTakeover);
+        boolean decompress = !(client ? serverNoContextTakeover : clientNoContextTakeover);
+        return new PerMessageDeflateFunction(deflaterLevel, compress, decompress, compressionThreshold, deflaterPool, inflaterPool);
     }
 }
@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.conduits;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+import org.xnio.Xnio;
+import org.xnio.XnioWorker;
+
+/**
+ * Tests for {@link DeflaterPool} and {@link InflaterPool}.
+ */
+@Category(UnitTest.class)
+public class DeflaterPoolTestCase {
+
+    private static XnioWorker worker;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        worker = Xnio.getInstance().createWorker(OptionMap.create(Options.WORKER_IO_THREADS, 1));
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        worker.shutdown();
+    }
+
+    @Test
+    public void testDeflatersAreReusedOnIoThread() throws Exception {
+        final DeflaterPool pool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, 2);
+        runOnIoThread(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                Deflater first = pool.allocate();
+                first.setInput(new byte[]{1, 2, 3});
+                first.finish();
+                first.deflate(new byte[100]);
+                pool.free(first);
+
+                Deflater reused = pool.allocate();
+                Assert.assertSame(first, reused);
+                //the deflater was reset when it was freed
+                Assert.assertEquals(0, reused.getBytesRead());
+                Assert.assertFalse(reused.finished());
+
+                Deflater second = pool.allocate();
+                Deflater third = pool.allocate();
+                Assert.assertNotSame(reused, second);
+                Assert.assertNotSame(second, third);
+                pool.free(reused);
+                pool.free(second);
+                pool.free(third);
+                //the pool only holds two deflaters per thread, so the third was ended
+                assertEnded(third);
+
+                Deflater a = pool.allocate();
+                Deflater b = pool.allocate();
+                Deflater c = pool.allocate();
+                Assert.assertTrue(a == reused || a == second);
+                Assert.assertTrue(b == reused || b == second);
+                Assert.assertNotSame(third, c);
+                pool.free(a);
+                pool.free(b);
+                pool.free(c);
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testDeflatersAreNotPooledOnOtherThreads() {
+        DeflaterPool pool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION);
+        Deflater deflater = pool.allocate();
+        pool.free(deflater);
+        assertEnded(deflater);
+        Assert.assertNotSame(deflater, pool.allocate());
+    }
+
+    @Test
+    public void testInflatersAreReusedOnIoThread() throws Exception {
+        final InflaterPool pool = new InflaterPool(1);
+        runOnIoThread(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                Inflater first = pool.allocate();
+                Inflater second = pool.allocate();
+                pool.free(first);
+                pool.free(second);
+                assertEnded(second);
+                Inflater reused = pool.allocate();
+                Assert.assertSame(first, reused);
+                Assert.assertEquals(0, reused.getBytesRead());
+                pool.free(reused);
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testInflatersAreNotPooledOnOtherThreads() {
+        InflaterPool pool = new InflaterPool();
+        Inflater inflater = pool.allocate();
+        pool.free(inflater);
+        assertEnded(inflater);
+        Assert.assertNotSame(inflater, pool.allocate());
+    }
+
+    private static void assertEnded(Deflater deflater) {
+        try {
+            deflater.getBytesRead();
+            Assert.fail("deflater was not ended");
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    private static void assertEnded(Inflater inflater) {
+        try {
+            inflater.getBytesRead();
+            Assert.fail("inflater was not ended");
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    private static void runOnIoThread(Callable<Void> task) throws Exception {
+        FutureTask<Void> future = new FutureTask<>(task);
+        worker.getIoThread().execute(future);
+        future.get();
+    }
+}
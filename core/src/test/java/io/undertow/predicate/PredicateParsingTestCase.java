@@ -129,6 +129,28 @@ public class PredicateParsingTestCase {
         expect("(exists[%{i,Content-Length}] or exists[value=%{i,Trailer}]) and exists[%{i,Other}]", false, false);
     }
 
+    @Test
+    public void testCompressible() {
+        Predicate predicate = PredicateParser.parse("compressible[100]", PredicateParsingTestCase.class.getClassLoader());
+        HttpServerExchange e = new HttpServerExchange(null);
+        Assert.assertTrue(predicate.resolve(e));
+        e.getResponseHeaders().put(Headers.CONTENT_LENGTH, "99");
+        Assert.assertFalse(predicate.resolve(e));
+        e.getResponseHeaders().put(Headers.CONTENT_LENGTH, "100");
+        Assert.assertTrue(predicate.resolve(e));
+        e.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html; charset=UTF-8");
+        Assert.assertTrue(predicate.resolve(e));
+        e.getResponseHeaders().put(Headers.CONTENT_TYPE, "Image/PNG");
+        Assert.assertFalse(predicate.resolve(e));
+        e.getResponseHeaders().put(Headers.CONTENT_TYPE, "video/mp4");
+        Assert.assertFalse(predicate.resolve(e));
+
+        predicate = PredicateParser.parse("compressible[min-size=0, excluded-types={text/}]", PredicateParsingTestCase.class.getClassLoader());
+        Assert.assertTrue(predicate.resolve(e));
+        e.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+        Assert.assertFalse(predicate.resolve(e));
+    }
+
     private void expect(String string, boolean result1, boolean result2) {
         try {
             Predicate predicate = PredicateParser.parse(string, PredicateParsingTestCase.class.getClassLoader());
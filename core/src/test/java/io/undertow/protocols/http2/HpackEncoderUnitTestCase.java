@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.http2;
+
+import io.undertow.testutils.category.UnitTest;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Round trip tests for the HPACK encoder, with and without the huffman cache.
+ */
+@Category(UnitTest.class)
+public class HpackEncoderUnitTestCase {
+
+    private static final String[] CONTENT_TYPES = {"text/html; charset=UTF-8", "application/json; charset=UTF-8", "image/png", "text/css"};
+
+    @Test
+    public void testStaticTableEntriesAreIndexed() throws HpackException {
+        HeaderMap headers = new HeaderMap();
+        headers.put(Http2Channel.STATUS, "200");
+        headers.put(Headers.CONTENT_ENCODING, "gzip, deflate");
+        byte[] encoded = encode(new HpackEncoder(Hpack.DEFAULT_TABLE_SIZE), headers);
+        //:status 200 is fully indexed, content-encoding only has its name in the static table
+        Assert.assertEquals((byte) (0x80 | 8), encoded[0]);
+        Assert.assertEquals((byte) (0x40 | 26), encoded[1]);
+        assertRoundTrip(new HpackDecoder(Hpack.DEFAULT_TABLE_SIZE), headers, encoded);
+    }
+
+    @Test
+    public void testDynamicTableEntriesAreIndexed() throws HpackException {
+        HpackEncoder encoder = new HpackEncoder(Hpack.DEFAULT_TABLE_SIZE);
+        HpackDecoder decoder = new HpackDecoder(Hpack.DEFAULT_TABLE_SIZE);
+        HeaderMap headers = new HeaderMap();
+        headers.put(Headers.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
+        headers.put(new HttpString("x-custom"), "some custom value");
+        byte[] first = encode(encoder, headers);
+        assertRoundTrip(decoder, headers, first);
+        byte[] second = encode(encoder, headers);
+        Assert.assertEquals(2, second.length);
+        assertRoundTrip(decoder, headers, second);
+    }
+
+    @Test
+    public void testHuffmanCacheProducesSameEncoding() throws HpackException {
+        //a small table means that entries are evicted, so values are encoded again
+        HpackEncoder cached = new HpackEncoder(100, HpackEncoder.DEFAULT_HEADER_FUNCTION, 2);
+        HpackEncoder uncached = new HpackEncoder(100, HpackEncoder.DEFAULT_HEADER_FUNCTION, 0);
+        HpackDecoder decoder = new HpackDecoder(100);
+        for (int i = 0; i < 100; ++i) {
+            HeaderMap headers = new HeaderMap();
+            headers.put(Http2Channel.STATUS, "200");
+            headers.put(Headers.CONTENT_TYPE, CONTENT_TYPES[i % CONTENT_TYPES.length]);
+            headers.put(Headers.CONTENT_LENGTH, Integer.toString(i * 1000));
+            headers.put(Headers.CACHE_CONTROL, i % 2 == 0 ? "no-cache, no-store, must-revalidate" : "public, max-age=3600");
+            byte[] encoded = encode(cached, headers);
+            Assert.assertArrayEquals(encode(uncached, headers), encoded);
+            assertRoundTrip(decoder, headers, encoded);
+        }
+    }
+
+    private static byte[] encode(HpackEncoder encoder, HeaderMap headers) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        Assert.assertEquals(HpackEncoder.State.COMPLETE, encoder.encode(headers, buffer));
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void assertRoundTrip(HpackDecoder decoder, HeaderMap expected, byte[] encoded) throws HpackException {
+        final HeaderMap result = new HeaderMap();
+        decoder.setHeaderEmitter(new HpackDecoder.HeaderEmitter() {
+            @Override
+            public void emitHeader(HttpString name, String value, boolean neverIndex) {
+                result.add(name, value);
+            }
+        });
+        decoder.decode(ByteBuffer.wrap(encoded), false);
+        Assert.assertEquals(expected.size(), result.size());
+        for (HttpString name : expected.getHeaderNames()) {
+            Assert.assertEquals(expected.get(name).size(), result.count(name));
+            Assert.assertEquals(expected.getFirst(name), result.getFirst(name));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.http2;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class Http2PriorityTreeUnitTestCase {
+
+    private static final int FRAME_SIZE = 1000;
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void testSiblingsShareByWeight() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        tree.registerStream(1, 0, 64, false);
+        tree.registerStream(3, 0, 192, false);
+        Assert.assertEquals(0.25, share(tree, 1), DELTA);
+        Assert.assertEquals(0.75, share(tree, 3), DELTA);
+    }
+
+    @Test
+    public void testFramesAreInterleavedByWeight() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        tree.registerStream(1, 0, 16, false);
+        tree.registerStream(3, 0, 48, false);
+        double finish1 = tree.scheduleFrame(1, FRAME_SIZE);
+        double finish3 = tree.scheduleFrame(3, FRAME_SIZE);
+        int sent1 = 0;
+        int sent3 = 0;
+        for (int i = 0; i < 400; ++i) {
+            if (finish1 <= finish3) {
+                tree.frameSent(finish1);
+                sent1++;
+                finish1 = tree.scheduleFrame(1, FRAME_SIZE);
+            } else {
+                tree.frameSent(finish3);
+                sent3++;
+                finish3 = tree.scheduleFrame(3, FRAME_SIZE);
+            }
+        }
+        Assert.assertEquals(100, sent1, 1);
+        Assert.assertEquals(300, sent3, 1);
+    }
+
+    @Test
+    public void testNewStreamStartsAtVirtualTime() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        double finish = 0;
+        for (int i = 0; i < 10; ++i) {
+            finish = tree.scheduleFrame(1, FRAME_SIZE);
+            tree.frameSent(finish);
+        }
+        //a stream that has just started should not be able to make up for the time it was idle
+        Assert.assertEquals(finish + FRAME_SIZE / 0.5, tree.scheduleFrame(3, FRAME_SIZE), DELTA);
+    }
+
+    @Test
+    public void testDependencyShares() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        tree.registerStream(1, 0, 16, false);
+        tree.registerStream(3, 0, 16, false);
+        tree.registerStream(5, 1, 16, false);
+        tree.registerStream(7, 1, 48, false);
+        Assert.assertEquals(0.125, share(tree, 5), DELTA);
+        Assert.assertEquals(0.375, share(tree, 7), DELTA);
+        Assert.assertEquals(0.5, share(tree, 3), DELTA);
+    }
+
+    @Test
+    public void testExclusiveDependency() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        tree.registerStream(1, 0, 16, false);
+        tree.registerStream(3, 0, 16, false);
+        //5 becomes the only dependency of the root, with 1 and 3 depending on it
+        tree.registerStream(5, 0, 16, true);
+        Assert.assertEquals(1, share(tree, 5), DELTA);
+        Assert.assertEquals(0.5, share(tree, 1), DELTA);
+        Assert.assertEquals(0.5, share(tree, 3), DELTA);
+    }
+
+    @Test
+    public void testStreamRemovedDependentsTakeOverShare() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        tree.registerStream(1, 0, 32, false);
+        tree.registerStream(3, 0, 32, false);
+        tree.registerStream(5, 1, 16, false);
+        tree.registerStream(7, 1, 16, false);
+        tree.streamRemoved(1);
+        Assert.assertEquals(0.25, share(tree, 5), DELTA);
+        Assert.assertEquals(0.25, share(tree, 7), DELTA);
+        Assert.assertEquals(0.5, share(tree, 3), DELTA);
+    }
+
+    @Test
+    public void testReprioritizeOntoDependent() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        tree.registerStream(1, 0, 16, false);
+        tree.registerStream(3, 1, 16, false);
+        tree.registerStream(5, 0, 16, false);
+        //1 now depends on 3, so 3 first moves up to take the place of 1
+        tree.priorityFrame(1, 3, 16, false);
+        Assert.assertEquals(0.5, share(tree, 3), DELTA);
+        Assert.assertEquals(0.5, share(tree, 1), DELTA);
+        Assert.assertEquals(0.5, share(tree, 5), DELTA);
+    }
+
+    @Test
+    public void testManyStreams() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        for (int i = 1; i < 2000; i += 2) {
+            tree.registerStream(i, 0, 16, false);
+        }
+        for (int i = 1; i < 2000; i += 4) {
+            tree.streamRemoved(i);
+        }
+        //removed streams no longer take a share, even while they are still in the eviction queue
+        Assert.assertEquals(1 / 500.0, share(tree, 3), DELTA);
+        Assert.assertEquals(1 / 500.0, share(tree, 1999), DELTA);
+    }
+
+    @Test
+    public void testClosedStreamReleasesShare() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        tree.registerStream(1, 0, 16, false);
+        tree.registerStream(3, 0, 16, false);
+        tree.registerStream(5, 0, 32, false);
+        tree.streamRemoved(1);
+        Assert.assertEquals(1 / 3.0, share(tree, 3), DELTA);
+        Assert.assertEquals(2 / 3.0, share(tree, 5), DELTA);
+    }
+
+    @Test
+    public void testDependencyOnClosedStream() {
+        Http2PriorityTree tree = new Http2PriorityTree();
+        tree.registerStream(1, 0, 16, false);
+        tree.registerStream(3, 0, 16, false);
+        tree.streamRemoved(1);
+        //1 is still in the eviction queue, so 5 can depend on it, and takes its share
+        tree.registerStream(5, 1, 16, false);
+        Assert.assertEquals(0.5, share(tree, 5), DELTA);
+        Assert.assertEquals(0.5, share(tree, 3), DELTA);
+        //once 5 is closed as well 3 gets the whole connection
+        tree.streamRemoved(5);
+        double finish = tree.scheduleFrame(3, FRAME_SIZE);
+        Assert.assertEquals(FRAME_SIZE / 0.5 + FRAME_SIZE, finish, DELTA);
+    }
+
+    /**
+     * Works out the share of a stream from the finish time of its first frame. This must only be called once for
+     * each stream, before any frames have been sent.
+     */
+    private static double share(Http2PriorityTree tree, int streamId) {
+        return FRAME_SIZE / tree.scheduleFrame(streamId, FRAME_SIZE);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.http2;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class Http2ReceiveWindowTunerUnitTestCase {
+
+    private static final int INITIAL_WINDOW = 65535;
+
+    @Test
+    public void testWindowGrowsWhenSaturated() {
+        Http2ReceiveWindowTuner tuner = new Http2ReceiveWindowTuner(INITIAL_WINDOW, 1024 * 1024);
+        Assert.assertTrue(tuner.dataReceived(16384, 0));
+        //only one measurement at a time
+        for (int i = 0; i < 4; ++i) {
+            Assert.assertFalse(tuner.dataReceived(16384, 1000));
+        }
+        Assert.assertEquals(131072, tuner.pingAcknowledged(Http2ReceiveWindowTuner.PING_DATA, 50000000));
+        Assert.assertEquals(131072, tuner.getWindowSize());
+        Assert.assertEquals(50000000, tuner.getRoundTripTime());
+    }
+
+    @Test
+    public void testWindowDoesNotGrowWhenNotSaturated() {
+        Http2ReceiveWindowTuner tuner = new Http2ReceiveWindowTuner(INITIAL_WINDOW, 1024 * 1024);
+        Assert.assertTrue(tuner.dataReceived(16384, 0));
+        Assert.assertFalse(tuner.dataReceived(16384, 1000));
+        Assert.assertEquals(-1, tuner.pingAcknowledged(Http2ReceiveWindowTuner.PING_DATA, 1000000));
+        Assert.assertEquals(INITIAL_WINDOW, tuner.getWindowSize());
+        //a new measurement is started by the next frame
+        Assert.assertTrue(tuner.dataReceived(16384, 2000000));
+    }
+
+    @Test
+    public void testWindowIsCapped() {
+        Http2ReceiveWindowTuner tuner = new Http2ReceiveWindowTuner(INITIAL_WINDOW, 200000);
+        long now = 0;
+        for (int i = 0; i < 4; ++i) {
+            if (tuner.dataReceived(16384, now)) {
+                for (int j = 0; j < 64; ++j) {
+                    tuner.dataReceived(16384, now);
+                }
+                tuner.pingAcknowledged(Http2ReceiveWindowTuner.PING_DATA, now += 1000000);
+            }
+        }
+        Assert.assertEquals(200000, tuner.getWindowSize());
+        //no more measurements once the maximum has been reached
+        Assert.assertFalse(tuner.dataReceived(16384, now));
+    }
+
+    @Test
+    public void testOtherPingsAreIgnored() {
+        Http2ReceiveWindowTuner tuner = new Http2ReceiveWindowTuner(INITIAL_WINDOW, 1024 * 1024);
+        Assert.assertTrue(tuner.dataReceived(16384, 0));
+        for (int i = 0; i < 8; ++i) {
+            tuner.dataReceived(16384, 0);
+        }
+        Assert.assertEquals(-1, tuner.pingAcknowledged(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}, 1000));
+        Assert.assertEquals(INITIAL_WINDOW, tuner.getWindowSize());
+        Assert.assertEquals(8 * 16384 * 2, tuner.pingAcknowledged(Http2ReceiveWindowTuner.PING_DATA, 2000));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.protocols.ssl;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.xnio.OptionMap;
+
+@Category(UnitTest.class)
+public class SessionTicketKeyRotatorUnitTestCase {
+
+    @Test
+    public void testKeysAreRotated() {
+        SessionTicketKeyRotator rotator = new SessionTicketKeyRotator(2);
+        TicketKeyFactory first = new TicketKeyFactory();
+        TicketKeyFactory second = new TicketKeyFactory();
+        rotator.addEngineFactory(first);
+        rotator.addEngineFactory(second);
+        Assert.assertNull(first.keys);
+
+        rotator.rotate();
+        Assert.assertEquals(1, first.keys.size());
+        Assert.assertEquals(SessionTicketKeyRotator.KEY_LENGTH, first.keys.get(0).length);
+        byte[] original = first.keys.get(0);
+
+        rotator.rotate();
+        Assert.assertEquals(2, first.keys.size());
+        Assert.assertArrayEquals(original, first.keys.get(1));
+        Assert.assertFalse(Arrays.equals(original, first.keys.get(0)));
+
+        rotator.rotate();
+        Assert.assertEquals(2, first.keys.size());
+        for (byte[] key : first.keys) {
+            Assert.assertFalse(Arrays.equals(original, key));
+        }
+        Assert.assertEquals(2, second.keys.size());
+        Assert.assertArrayEquals(first.keys.get(0), second.keys.get(0));
+    }
+
+    @Test
+    public void testLateFactoryReceivesCurrentKeys() {
+        SessionTicketKeyRotator rotator = new SessionTicketKeyRotator();
+        rotator.rotate();
+        TicketKeyFactory factory = new TicketKeyFactory();
+        rotator.addEngineFactory(factory);
+        Assert.assertEquals(1, factory.keys.size());
+        Assert.assertArrayEquals(rotator.getKeys().get(0), factory.keys.get(0));
+
+        rotator.removeEngineFactory(factory);
+        rotator.rotate();
+        Assert.assertEquals(1, factory.keys.size());
+    }
+
+    private static final class TicketKeyFactory implements SSLEngineFactory {
+
+        List<byte[]> keys;
+
+        @Override
+        public SSLEngine createSSLEngine(SSLContext sslContext, OptionMap optionMap, InetSocketAddress peerAddress) {
+            return JsseSSLEngineFactory.INSTANCE.createSSLEngine(sslContext, optionMap, peerAddress);
+        }
+
+        @Override
+        public void setSessionTicketKeys(List<byte[]> keys) {
+            this.keys = keys;
+        }
+    }
+}
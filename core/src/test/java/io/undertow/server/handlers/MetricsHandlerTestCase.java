@@ -24,6 +24,7 @@ import io.undertow.testutils.DefaultServer;
 import io.undertow.testutils.HttpClientUtils;
 import io.undertow.testutils.TestHttpClient;
 import io.undertow.util.CompletionLatchHandler;
+import io.undertow.util.LatencyHistogram;
 import io.undertow.util.StatusCodes;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -32,6 +33,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Stuart Douglas
@@ -97,4 +99,59 @@ public class MetricsHandlerTestCase {
             client.getConnectionManager().shutdown();
         }
     }
+
+    @Test
+    public void testHighResolutionMetrics() throws IOException, InterruptedException {
+
+        MetricsHandler metricsHandler;
+        CompletionLatchHandler latchHandler;
+        DefaultServer.setRootHandler(latchHandler = new CompletionLatchHandler(metricsHandler = new MetricsHandler(new HttpHandler() {
+            @Override
+            public void handleRequest(HttpServerExchange exchange) throws Exception {
+                if(exchange.getQueryString().contains("error")) {
+                    throw new RuntimeException();
+                }
+                exchange.getResponseSender().send("Hello");
+            }
+        }, true)));
+        HttpGet get = new HttpGet(DefaultServer.getDefaultServerURL() + "/path");
+        TestHttpClient client = new TestHttpClient();
+        try {
+            for (int i = 0; i < 2; ++i) {
+                HttpResponse result = client.execute(get);
+                Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+                Assert.assertEquals("Hello", HttpClientUtils.readResponse(result));
+                latchHandler.await();
+                latchHandler.reset();
+            }
+
+            HttpResponse result = client.execute(new HttpGet(DefaultServer.getDefaultServerURL() + "/path?error=true"));
+            Assert.assertEquals(StatusCodes.INTERNAL_SERVER_ERROR, result.getStatusLine().getStatusCode());
+            HttpClientUtils.readResponse(result);
+            latchHandler.await();
+            latchHandler.reset();
+
+            MetricsHandler.LatencyResult latency = metricsHandler.getLatencyMetrics();
+            LatencyHistogram.Snapshot success = latency.getStatusClass(2);
+            Assert.assertEquals(2, success.getCount());
+            Assert.assertTrue(success.getMin() > 0);
+            Assert.assertTrue(success.get999thPercentile() <= success.getMax());
+            Assert.assertTrue(success.get50thPercentile() >= success.getMin());
+            Assert.assertEquals(1, latency.getStatusClass(5).getCount());
+            Assert.assertEquals(0, latency.getStatusClass(4).getCount());
+            Assert.assertEquals(3, latency.getTotal().getCount());
+
+            MetricsHandler.MetricResult metrics = metricsHandler.getMetrics();
+            Assert.assertEquals(3, metrics.getTotalRequests());
+            Assert.assertEquals(1, metrics.getTotalErrors());
+            Assert.assertEquals(TimeUnit.NANOSECONDS.toMillis(latency.getTotal().getMax()), metrics.getMaxRequestTime());
+
+            metricsHandler.reset();
+            Assert.assertEquals(0, metricsHandler.getLatencyMetrics().getTotal().getCount());
+            Assert.assertEquals(-1, metricsHandler.getMetrics().getMinRequestTime());
+        } finally {
+
+            client.getConnectionManager().shutdown();
+        }
+    }
 }
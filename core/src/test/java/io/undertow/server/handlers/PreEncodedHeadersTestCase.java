@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers;
+
+import java.io.IOException;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.testutils.DefaultServer;
+import io.undertow.testutils.HttpClientUtils;
+import io.undertow.testutils.TestHttpClient;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.PreEncodedHeaders;
+import io.undertow.util.StatusCodes;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(DefaultServer.class)
+public class PreEncodedHeadersTestCase {
+
+    private static final HttpString CUSTOM = new HttpString("X-Custom");
+    private static final HttpString MULTI = new HttpString("X-Multi");
+
+    @BeforeClass
+    public static void setup() {
+        HeaderMap headers = new HeaderMap();
+        headers.put(Headers.CONTENT_TYPE, "text/plain");
+        headers.put(CUSTOM, "pre-encoded");
+        headers.add(MULTI, "one");
+        headers.add(MULTI, "two");
+        final PreEncodedHeaders preEncodedHeaders = new PreEncodedHeaders(headers);
+
+        DefaultServer.setRootHandler(new HttpHandler() {
+            @Override
+            public void handleRequest(final HttpServerExchange exchange) {
+                preEncodedHeaders.addTo(exchange);
+                if (exchange.getQueryParameters().containsKey("override")) {
+                    exchange.getResponseHeaders().put(CUSTOM, "overridden");
+                }
+                exchange.getResponseHeaders().put(new HttpString("X-Dynamic"), exchange.getRequestPath());
+                exchange.getResponseSender().send("hello");
+            }
+        });
+    }
+
+    @Test
+    public void testPreEncodedHeaders() throws IOException {
+        TestHttpClient client = new TestHttpClient();
+        try {
+            for (int i = 0; i < 3; ++i) {
+                HttpResponse result = client.execute(new HttpGet(DefaultServer.getDefaultServerURL() + "/path" + i));
+                Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+                Assert.assertEquals("hello", HttpClientUtils.readResponse(result));
+                assertHeader(result, Headers.CONTENT_TYPE_STRING, "text/plain");
+                assertHeader(result, CUSTOM.toString(), "pre-encoded");
+                assertHeader(result, "X-Dynamic", "/path" + i);
+                Header[] multi = result.getHeaders(MULTI.toString());
+                Assert.assertEquals(2, multi.length);
+                Assert.assertEquals("one", multi[0].getValue());
+                Assert.assertEquals("two", multi[1].getValue());
+            }
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    @Test
+    public void testModifiedHeaderIsNotDuplicated() throws IOException {
+        TestHttpClient client = new TestHttpClient();
+        try {
+            HttpResponse result = client.execute(new HttpGet(DefaultServer.getDefaultServerURL() + "/path?override=true"));
+            Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+            HttpClientUtils.readResponse(result);
+            assertHeader(result, CUSTOM.toString(), "overridden");
+            assertHeader(result, Headers.CONTENT_TYPE_STRING, "text/plain");
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    private static void assertHeader(HttpResponse result, String name, String value) {
+        Header[] headers = result.getHeaders(name);
+        Assert.assertEquals(name, 1, headers.length);
+        Assert.assertEquals(value, headers[0].getValue());
+    }
+}
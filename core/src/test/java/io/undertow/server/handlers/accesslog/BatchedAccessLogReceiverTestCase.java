@@ -0,0 +1,218 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.accesslog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import io.undertow.server.DefaultByteBufferPool;
+import io.undertow.testutils.category.UnitTest;
+import io.undertow.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class BatchedAccessLogReceiverTestCase {
+
+    private static final Path logDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "batched-logs");
+
+    @Before
+    public void before() throws IOException {
+        Files.createDirectories(logDirectory);
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteRecursive(logDirectory);
+    }
+
+    @Test
+    public void testLinesAreWritten() throws IOException, InterruptedException {
+        BatchedAccessLogReceiver receiver = BatchedAccessLogReceiver.builder()
+                .setOutputDirectory(logDirectory)
+                .setLogBaseName("server.")
+                .setByteBufferPool(new DefaultByteBufferPool(false, 64))
+                .setFlushInterval(60000)
+                .build();
+        try {
+            StringBuilder large = new StringBuilder();
+            for (int i = 0; i < 100; ++i) {
+                large.append(i);
+            }
+            for (int i = 0; i < 20; ++i) {
+                receiver.logMessage("line " + i);
+            }
+            receiver.logMessage("caf\u00e9");
+            receiver.logMessage(large.toString());
+            receiver.awaitWrittenForTest();
+
+            List<String> lines = Files.readAllLines(logDirectory.resolve("server.log"), StandardCharsets.UTF_8);
+            Assert.assertEquals(22, lines.size());
+            for (int i = 0; i < 20; ++i) {
+                Assert.assertEquals("line " + i, lines.get(i));
+            }
+            Assert.assertEquals("caf\u00e9", lines.get(20));
+            Assert.assertEquals(large.toString(), lines.get(21));
+            Assert.assertEquals(0, receiver.getDroppedLines());
+        } finally {
+            receiver.close();
+        }
+    }
+
+    @Test
+    public void testForcedLogRotation() throws IOException, InterruptedException {
+        BatchedAccessLogReceiver receiver = BatchedAccessLogReceiver.builder()
+                .setOutputDirectory(logDirectory)
+                .setLogBaseName("server.")
+                .setByteBufferPool(new DefaultByteBufferPool(false, 1024))
+                .build();
+        try {
+            receiver.logMessage("before");
+            receiver.awaitWrittenForTest();
+            receiver.rotate();
+            receiver.logMessage("after");
+            receiver.awaitWrittenForTest();
+            String date = new SimpleDateFormat("yyyy-MM-dd").format(new Date());
+            Assert.assertEquals("before\n", new String(Files.readAllBytes(logDirectory.resolve("server." + date + ".log")), StandardCharsets.UTF_8));
+            Assert.assertEquals("after\n", new String(Files.readAllBytes(logDirectory.resolve("server.log")), StandardCharsets.UTF_8));
+        } finally {
+            receiver.close();
+        }
+    }
+
+    @Test
+    public void testLinesAreDroppedWhenWriterIsBlocked() throws IOException, InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        BatchedAccessLogReceiver receiver = BatchedAccessLogReceiver.builder()
+                .setOutputDirectory(logDirectory)
+                .setLogBaseName("server.")
+                .setByteBufferPool(new DefaultByteBufferPool(false, 16))
+                .setFlushExecutor(executor)
+                .setMaxPendingBuffers(2)
+                .build();
+        try {
+            for (int i = 0; i < 10; ++i) {
+                receiver.logMessage("line number " + i);
+            }
+            //two full buffers can be queued, and the third line stays in the thread's own buffer
+            Assert.assertEquals(7, receiver.getDroppedLines());
+            blocked.countDown();
+            receiver.awaitWrittenForTest();
+            List<String> lines = Files.readAllLines(logDirectory.resolve("server.log"), StandardCharsets.UTF_8);
+            Assert.assertEquals(10, lines.size() + receiver.getDroppedLines());
+        } finally {
+            receiver.close();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLinesFromManyThreads() throws IOException, InterruptedException {
+        final BatchedAccessLogReceiver receiver = BatchedAccessLogReceiver.builder()
+                .setOutputDirectory(logDirectory)
+                .setLogBaseName("server.")
+                .setByteBufferPool(new DefaultByteBufferPool(false, 64))
+                .setFlushInterval(10)
+                .setMaxPendingBuffers(Integer.MAX_VALUE)
+                .build();
+        try {
+            Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; ++i) {
+                final int thread = i;
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 1000; ++j) {
+                            receiver.logMessage(thread + " " + j);
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            receiver.awaitWrittenForTest();
+            List<String> lines = Files.readAllLines(logDirectory.resolve("server.log"), StandardCharsets.UTF_8);
+            Assert.assertEquals(4000, lines.size());
+            //lines from the same thread are written in order
+            int[] next = new int[threads.length];
+            for (String line : lines) {
+                String[] parts = line.split(" ");
+                int thread = Integer.parseInt(parts[0]);
+                Assert.assertEquals(next[thread]++, Integer.parseInt(parts[1]));
+            }
+            Assert.assertEquals(0, receiver.getDroppedLines());
+        } finally {
+            receiver.close();
+        }
+    }
+
+    @Test
+    public void testFailedWritesAreCountedAsDropped() throws IOException, InterruptedException {
+        //the log file cannot be opened, as there is a directory in the way
+        Files.createDirectories(logDirectory.resolve("server.log"));
+        BatchedAccessLogReceiver receiver = BatchedAccessLogReceiver.builder()
+                .setOutputDirectory(logDirectory)
+                .setLogBaseName("server.")
+                .setRotate(false)
+                .setByteBufferPool(new DefaultByteBufferPool(false, 1024))
+                .build();
+        try {
+            for (int i = 0; i < 5; ++i) {
+                receiver.logMessage("line " + i);
+            }
+            receiver.awaitWrittenForTest();
+            Assert.assertEquals(5, receiver.getDroppedLines());
+        } finally {
+            receiver.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferPoolIsRequired() {
+        BatchedAccessLogReceiver.builder()
+                .setOutputDirectory(logDirectory)
+                .setLogBaseName("server.")
+                .build();
+    }
+}
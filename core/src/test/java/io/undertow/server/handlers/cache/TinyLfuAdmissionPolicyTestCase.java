@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class TinyLfuAdmissionPolicyTestCase {
+
+    @Test
+    public void testFrequencyEstimate() {
+        TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(100);
+        for (int i = 0; i < 5; ++i) {
+            policy.recordAccess("/index.html");
+        }
+        policy.recordAccess("/other.html");
+        Assert.assertEquals(5, policy.frequency("/index.html"));
+        Assert.assertEquals(1, policy.frequency("/other.html"));
+        Assert.assertEquals(0, policy.frequency("/missing.html"));
+        for (int i = 0; i < 100; ++i) {
+            policy.recordAccess("/index.html");
+        }
+        //counters saturate at 15
+        Assert.assertEquals(15, policy.frequency("/index.html"));
+    }
+
+    @Test
+    public void testCountersAreAged() {
+        TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(16);
+        for (int i = 0; i < 8; ++i) {
+            policy.recordAccess("hot");
+        }
+        //the sample size is 10 times the expected entries, so this will halve the counters at least once
+        for (int i = 0; i < 200; ++i) {
+            policy.recordAccess("scan" + i);
+        }
+        Assert.assertTrue(policy.frequency("hot") < 8);
+    }
+
+    @Test
+    public void testAdmissionIsWeightedByVictims() {
+        TinyLfuAdmissionPolicy policy = new TinyLfuAdmissionPolicy(100);
+        for (int i = 0; i < 4; ++i) {
+            policy.recordAccess("large");
+        }
+        for (int i = 0; i < 3; ++i) {
+            policy.recordAccess("small1");
+            policy.recordAccess("small2");
+        }
+        Assert.assertTrue(policy.admit("large", Collections.<Object>singletonList("small1")));
+        Assert.assertFalse(policy.admit("large", Arrays.<Object>asList("small1", "small2")));
+        Assert.assertFalse(policy.admit("new", Collections.<Object>singletonList("small1")));
+        Assert.assertTrue(policy.admit("new", Collections.emptyList()));
+    }
+
+    @Test
+    public void testLRUCacheRejectsScan() {
+        LRUCache<String, String> cache = new LRUCache<>(2, -1, false, new TinyLfuAdmissionPolicy(2));
+        cache.get("a");
+        cache.add("a", "a");
+        cache.get("b");
+        cache.add("b", "b");
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals("a", cache.get("a"));
+            Assert.assertEquals("b", cache.get("b"));
+        }
+        for (int i = 0; i < 10; ++i) {
+            String key = "scan" + i;
+            Assert.assertNull(cache.get(key));
+            cache.add(key, key);
+        }
+        Assert.assertEquals("a", cache.get("a"));
+        Assert.assertEquals("b", cache.get("b"));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.file;
+
+import io.undertow.server.handlers.encoding.ContentEncodedResourceManager;
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.ResourceHandler;
+import io.undertow.testutils.DefaultServer;
+import io.undertow.testutils.HttpClientUtils;
+import io.undertow.testutils.TestHttpClient;
+import io.undertow.util.FileUtils;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests serving precompressed sidecar files
+ */
+@RunWith(DefaultServer.class)
+public class PrecompressedResourceTestCase {
+
+    private static final String CONTENT = "hello world";
+    private static final byte[] BROTLI_CONTENT = "not really brotli".getBytes(StandardCharsets.US_ASCII);
+
+    static Path tmpDir;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        tmpDir = Files.createTempDirectory(Paths.get(System.getProperty("java.io.tmpdir")), "precompressedTestCase");
+        Files.write(tmpDir.resolve("page.html"), CONTENT.getBytes(StandardCharsets.US_ASCII));
+        Files.write(tmpDir.resolve("page.html.br"), BROTLI_CONTENT);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmpDir.resolve("page.html.gz")))) {
+            out.write(CONTENT.getBytes(StandardCharsets.US_ASCII));
+        }
+        Files.write(tmpDir.resolve("plain.html"), CONTENT.getBytes(StandardCharsets.US_ASCII));
+
+        final PathResourceManager resourceManager = new PathResourceManager(tmpDir, 10485760);
+        DefaultServer.setRootHandler(new ResourceHandler(resourceManager)
+                .setContentEncodedResourceManager(new ContentEncodedResourceManager(resourceManager)));
+    }
+
+    @AfterClass
+    public static void after() throws IOException {
+        FileUtils.deleteRecursive(tmpDir);
+    }
+
+    @Test
+    public void testBrotliSidecarIsPreferred() throws IOException {
+        TestHttpClient client = new TestHttpClient();
+        try {
+            HttpGet get = new HttpGet(DefaultServer.getDefaultServerURL() + "/page.html");
+            get.addHeader(Headers.ACCEPT_ENCODING_STRING, "gzip, deflate, br");
+            HttpResponse result = client.execute(get);
+            Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+            Assert.assertEquals("br", result.getFirstHeader(Headers.CONTENT_ENCODING_STRING).getValue());
+            Assert.assertEquals(Headers.ACCEPT_ENCODING_STRING, result.getFirstHeader(Headers.VARY_STRING).getValue());
+            Assert.assertEquals("text/html", result.getFirstHeader(Headers.CONTENT_TYPE_STRING).getValue());
+            Assert.assertArrayEquals(BROTLI_CONTENT, HttpClientUtils.readRawResponse(result));
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    @Test
+    public void testGzipSidecar() throws IOException {
+        TestHttpClient client = new TestHttpClient();
+        try {
+            HttpGet get = new HttpGet(DefaultServer.getDefaultServerURL() + "/page.html");
+            get.addHeader(Headers.ACCEPT_ENCODING_STRING, "gzip;q=1.0, br;q=0.5");
+            HttpResponse result = client.execute(get);
+            Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+            Assert.assertEquals("gzip", result.getFirstHeader(Headers.CONTENT_ENCODING_STRING).getValue());
+            Assert.assertEquals(Headers.ACCEPT_ENCODING_STRING, result.getFirstHeader(Headers.VARY_STRING).getValue());
+            Assert.assertEquals(CONTENT, HttpClientUtils.readResponse(new GZIPInputStream(result.getEntity().getContent())));
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    @Test
+    public void testWildcardAcceptEncoding() throws IOException {
+        TestHttpClient client = new TestHttpClient();
+        try {
+            HttpGet get = new HttpGet(DefaultServer.getDefaultServerURL() + "/page.html");
+            get.addHeader(Headers.ACCEPT_ENCODING_STRING, "*");
+            HttpResponse result = client.execute(get);
+            Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+            Assert.assertEquals("br", result.getFirstHeader(Headers.CONTENT_ENCODING_STRING).getValue());
+            Assert.assertArrayEquals(BROTLI_CONTENT, HttpClientUtils.readRawResponse(result));
+
+            //an explicit q=0 takes precedence over the wildcard
+            get = new HttpGet(DefaultServer.getDefaultServerURL() + "/page.html");
+            get.addHeader(Headers.ACCEPT_ENCODING_STRING, "br;q=0, *");
+            result = client.execute(get);
+            Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+            Assert.assertEquals("gzip", result.getFirstHeader(Headers.CONTENT_ENCODING_STRING).getValue());
+            Assert.assertEquals(CONTENT, HttpClientUtils.readResponse(new GZIPInputStream(result.getEntity().getContent())));
+
+            get = new HttpGet(DefaultServer.getDefaultServerURL() + "/page.html");
+            get.addHeader(Headers.ACCEPT_ENCODING_STRING, "*;q=0.5, gzip;q=0, br;q=0");
+            result = client.execute(get);
+            Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+            Assert.assertNull(result.getFirstHeader(Headers.CONTENT_ENCODING_STRING));
+            Assert.assertEquals(CONTENT, HttpClientUtils.readResponse(result));
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    @Test
+    public void testNoSidecar() throws IOException {
+        TestHttpClient client = new TestHttpClient();
+        try {
+            for (String path : new String[]{"/plain.html", "/page.html"}) {
+                HttpGet get = new HttpGet(DefaultServer.getDefaultServerURL() + path);
+                if (path.equals("/page.html")) {
+                    get.addHeader(Headers.ACCEPT_ENCODING_STRING, "identity");
+                } else {
+                    get.addHeader(Headers.ACCEPT_ENCODING_STRING, "gzip, br");
+                }
+                HttpResponse result = client.execute(get);
+                Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+                Assert.assertNull(result.getFirstHeader(Headers.CONTENT_ENCODING_STRING));
+                //the response still depends on Accept-Encoding, as a sidecar may be served to other clients
+                Assert.assertEquals(Headers.ACCEPT_ENCODING_STRING, result.getFirstHeader(Headers.VARY_STRING).getValue());
+                Assert.assertEquals(CONTENT, HttpClientUtils.readResponse(result));
+            }
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.proxy;
+
+import io.undertow.Undertow;
+import io.undertow.client.UndertowClient;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.ResponseCodeHandler;
+import io.undertow.server.session.InMemorySessionManager;
+import io.undertow.server.session.SessionAttachmentHandler;
+import io.undertow.server.session.SessionCookieConfig;
+import io.undertow.testutils.DefaultServer;
+import io.undertow.testutils.HttpClientUtils;
+import io.undertow.testutils.TestHttpClient;
+import io.undertow.util.StatusCodes;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xnio.Options;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.undertow.Handlers.jvmRoute;
+import static io.undertow.Handlers.path;
+
+/**
+ * Tests the least outstanding requests host selector
+ */
+@RunWith(DefaultServer.class)
+public class LoadBalancingProxyLeastOutstandingTestCase {
+
+    protected static Undertow server1;
+    protected static Undertow server2;
+
+    private static volatile CountDownLatch blockStarted;
+    private static volatile CountDownLatch blockRelease;
+    private static volatile String blockedServer;
+
+    @BeforeClass
+    public static void setup() throws URISyntaxException {
+        final SessionCookieConfig sessionConfig = new SessionCookieConfig();
+        int port = DefaultServer.getHostPort("default");
+        server1 = Undertow.builder()
+                .addHttpListener(port + 1, DefaultServer.getHostAddress("default"))
+                .setSocketOption(Options.REUSE_ADDRESSES, true)
+                .setHandler(jvmRoute("JSESSIONID", "s1", path()
+                        .addPrefixPath("/session", new SessionAttachmentHandler(new AbstractLoadBalancingProxyTestCase.SessionTestHandler(sessionConfig), new InMemorySessionManager(""), sessionConfig))
+                        .addPrefixPath("/block", new BlockingHandler("server1"))
+                        .addPrefixPath("/name", new AbstractLoadBalancingProxyTestCase.StringSendHandler("server1"))))
+                .build();
+
+        server2 = Undertow.builder()
+                .addHttpListener(port + 2, DefaultServer.getHostAddress("default"))
+                .setSocketOption(Options.REUSE_ADDRESSES, true)
+                .setHandler(jvmRoute("JSESSIONID", "s2", path()
+                        .addPrefixPath("/session", new SessionAttachmentHandler(new AbstractLoadBalancingProxyTestCase.SessionTestHandler(sessionConfig), new InMemorySessionManager(""), sessionConfig))
+                        .addPrefixPath("/block", new BlockingHandler("server2"))
+                        .addPrefixPath("/name", new AbstractLoadBalancingProxyTestCase.StringSendHandler("server2"))))
+                .build();
+        server1.start();
+        server2.start();
+
+        DefaultServer.setRootHandler(new ProxyHandler(new LoadBalancingProxyClient(UndertowClient.getInstance(), null, new LoadBalancingProxyClient.LeastOutstandingHostSelector())
+                .setConnectionsPerThread(4)
+                .addHost(new URI("http", null, DefaultServer.getHostAddress("default"), port + 1, null, null, null), "s1")
+                .addHost(new URI("http", null, DefaultServer.getHostAddress("default"), port + 2, null, null, null), "s2")
+                , 10000, ResponseCodeHandler.HANDLE_404));
+    }
+
+    @AfterClass
+    public static void teardown() {
+        server1.stop();
+        server2.stop();
+    }
+
+    @Test
+    public void testBusyHostIsAvoided() throws Throwable {
+        blockStarted = new CountDownLatch(1);
+        blockRelease = new CountDownLatch(1);
+        final String[] blockedResult = new String[1];
+        Thread blocked = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                TestHttpClient client = new TestHttpClient();
+                try {
+                    HttpResponse result = client.execute(new HttpGet(DefaultServer.getDefaultServerURL() + "/block"));
+                    blockedResult[0] = HttpClientUtils.readResponse(result);
+                } catch (Exception e) {
+                    blockedResult[0] = e.toString();
+                } finally {
+                    client.getConnectionManager().shutdown();
+                }
+            }
+        });
+        blocked.start();
+        try {
+            Assert.assertTrue(blockStarted.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; ++i) {
+                TestHttpClient client = new TestHttpClient();
+                try {
+                    HttpResponse result = client.execute(new HttpGet(DefaultServer.getDefaultServerURL() + "/name"));
+                    Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+                    String name = HttpClientUtils.readResponse(result);
+                    //the host with the request in progress should not be used
+                    Assert.assertNotEquals(name, blockedServer);
+                } finally {
+                    client.getConnectionManager().shutdown();
+                }
+            }
+        } finally {
+            blockRelease.countDown();
+            blocked.join();
+        }
+        Assert.assertEquals(blockedServer, blockedResult[0]);
+    }
+
+    @Test
+    public void testStickySessions() throws Exception {
+        TestHttpClient client = new TestHttpClient();
+        try {
+            for (int i = 0; i < 6; ++i) {
+                HttpGet get = new HttpGet(DefaultServer.getDefaultServerURL() + "/session");
+                get.addHeader("Connection", "close");
+                HttpResponse result = client.execute(get);
+                Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+                Assert.assertEquals(i, Integer.parseInt(HttpClientUtils.readResponse(result)));
+            }
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    private static final class BlockingHandler implements HttpHandler {
+
+        private final String serverName;
+
+        private BlockingHandler(String serverName) {
+            this.serverName = serverName;
+        }
+
+        @Override
+        public void handleRequest(final HttpServerExchange exchange) throws Exception {
+            if (exchange.isInIoThread()) {
+                exchange.dispatch(this);
+                return;
+            }
+            blockedServer = serverName;
+            blockStarted.countDown();
+            blockRelease.await(10, TimeUnit.SECONDS);
+            exchange.getResponseSender().send(serverName);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.proxy;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests {@link LoadBalancingProxyClient.PowerOfTwoChoicesHostSelector} with a fixed sequence of random choices.
+ */
+@Category(UnitTest.class)
+public class PowerOfTwoChoicesHostSelectorTestCase {
+
+    @Test
+    public void testHostWithFewerActiveRequestsWins() throws Exception {
+        LoadBalancingProxyClient.Host[] hosts = createHosts(3);
+        TestSelector selector = new TestSelector(0, 0, 1, 0, 2, 0);
+        selector.activeRequests.put(hosts[0], 5);
+        selector.activeRequests.put(hosts[1], 2);
+        selector.activeRequests.put(hosts[2], 0);
+        //first pair is 0 and 1, as the second choice skips over the first
+        Assert.assertEquals(1, selector.selectHost(hosts));
+        //the same pair in the other order
+        Assert.assertEquals(1, selector.selectHost(hosts));
+        //third pair is 2 and 0
+        Assert.assertEquals(2, selector.selectHost(hosts));
+    }
+
+    @Test
+    public void testSlowHostLoses() throws Exception {
+        LoadBalancingProxyClient.Host[] hosts = createHosts(2);
+        TestSelector selector = new TestSelector(0, 0);
+        selector.activeRequests.put(hosts[0], 1);
+        selector.activeRequests.put(hosts[1], 1);
+        selector.averageRequestTimes.put(hosts[0], 10_000_000L);
+        selector.averageRequestTimes.put(hosts[1], 1_000_000L);
+        Assert.assertEquals(1, selector.selectHost(hosts));
+    }
+
+    @Test
+    public void testUnavailableHostIsSkipped() throws Exception {
+        LoadBalancingProxyClient.Host[] hosts = createHosts(3);
+        TestSelector selector = new TestSelector(0, 0, 1, 1);
+        selector.activeRequests.put(hosts[0], 0);
+        selector.activeRequests.put(hosts[1], 10);
+        selector.activeRequests.put(hosts[2], 10);
+        selector.unavailable.add(hosts[0]);
+        //host 0 is idle, but it is not available
+        Assert.assertEquals(1, selector.selectHost(hosts));
+
+        //if neither choice is available the cheaper one is returned, and the client moves on from there
+        selector.unavailable.add(hosts[2]);
+        selector.activeRequests.put(hosts[1], 0);
+        selector.unavailable.add(hosts[1]);
+        Assert.assertEquals(1, selector.selectHost(hosts));
+    }
+
+    @Test
+    public void testSingleHost() throws Exception {
+        LoadBalancingProxyClient.Host[] hosts = createHosts(1);
+        //no random choices are made for a single host
+        TestSelector selector = new TestSelector();
+        selector.unavailable.add(hosts[0]);
+        Assert.assertEquals(0, selector.selectHost(hosts));
+    }
+
+    @Test
+    public void testCost() {
+        Assert.assertTrue(LoadBalancingProxyClient.PowerOfTwoChoicesHostSelector.cost(0, 0) < LoadBalancingProxyClient.PowerOfTwoChoicesHostSelector.cost(1, 0));
+        Assert.assertTrue(LoadBalancingProxyClient.PowerOfTwoChoicesHostSelector.cost(1, 100) < LoadBalancingProxyClient.PowerOfTwoChoicesHostSelector.cost(1, 200));
+        Assert.assertTrue(LoadBalancingProxyClient.PowerOfTwoChoicesHostSelector.cost(3, 100) < LoadBalancingProxyClient.PowerOfTwoChoicesHostSelector.cost(1, 500));
+    }
+
+    private static LoadBalancingProxyClient.Host[] createHosts(int count) throws Exception {
+        LoadBalancingProxyClient client = new LoadBalancingProxyClient();
+        for (int i = 0; i < count; ++i) {
+            client.addHost(new URI("http://localhost:" + (8080 + i)));
+        }
+        LoadBalancingProxyClient.Host[] hosts = client.getHosts();
+        Assert.assertEquals(count, hosts.length);
+        return hosts;
+    }
+
+    /**
+     * A selector that uses the given random choices, and fake availability and load for each host.
+     */
+    private static final class TestSelector extends LoadBalancingProxyClient.PowerOfTwoChoicesHostSelector {
+
+        final Map<LoadBalancingProxyClient.Host, Integer> activeRequests = new HashMap<>();
+        final Map<LoadBalancingProxyClient.Host, Long> averageRequestTimes = new HashMap<>();
+        final Set<LoadBalancingProxyClient.Host> unavailable = new HashSet<>();
+
+        TestSelector(Integer... choices) {
+            super(new FixedRandom(choices));
+        }
+
+        @Override
+        boolean isAvailable(LoadBalancingProxyClient.Host host) {
+            return !unavailable.contains(host);
+        }
+
+        @Override
+        double cost(LoadBalancingProxyClient.Host host) {
+            Integer active = activeRequests.get(host);
+            Long time = averageRequestTimes.get(host);
+            return cost(active == null ? 0 : active, time == null ? 0 : time);
+        }
+    }
+
+    private static final class FixedRandom extends Random {
+
+        private final Deque<Integer> choices;
+
+        FixedRandom(Integer... choices) {
+            this.choices = new ArrayDeque<>(Arrays.asList(choices));
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            Integer choice = choices.poll();
+            Assert.assertNotNull("unexpected random choice", choice);
+            Assert.assertTrue(choice < bound);
+            return choice;
+        }
+    }
+}
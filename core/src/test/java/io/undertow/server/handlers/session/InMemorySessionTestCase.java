@@ -19,13 +19,18 @@
 package io.undertow.server.handlers.session;
 
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.server.session.InMemorySessionManager;
+import io.undertow.server.session.SecureRandomSessionIdGenerator;
 import io.undertow.server.session.Session;
 import io.undertow.server.session.SessionAttachmentHandler;
 import io.undertow.server.session.SessionCookieConfig;
+import io.undertow.server.session.SessionListener;
+import io.undertow.server.session.SessionListener.SessionDestroyedReason;
 import io.undertow.server.session.SessionManager;
 import io.undertow.testutils.DefaultServer;
 import io.undertow.testutils.HttpClientUtils;
@@ -166,4 +171,50 @@ public class InMemorySessionTestCase {
         }
     }
 
+    @Test
+    public void inMemoryTimingWheelExpiryTest() throws IOException, InterruptedException {
+        TestHttpClient client = new TestHttpClient();
+        client.setCookieStore(new BasicCookieStore());
+        try {
+            final CountDownLatch destroyed = new CountDownLatch(1);
+            final SessionDestroyedReason[] reason = new SessionDestroyedReason[1];
+            final InMemorySessionManager sessionManager = new InMemorySessionManager(new SecureRandomSessionIdGenerator(), "", -1, false, true, true);
+            sessionManager.start();
+            sessionManager.registerSessionListener(new SessionListener() {
+                @Override
+                public void sessionDestroyed(Session session, HttpServerExchange exchange, SessionDestroyedReason r) {
+                    reason[0] = r;
+                    destroyed.countDown();
+                }
+            });
+            final SessionCookieConfig sessionConfig = new SessionCookieConfig();
+            final SessionAttachmentHandler handler = new SessionAttachmentHandler(sessionManager, sessionConfig);
+            handler.setNext(new HttpHandler() {
+                @Override
+                public void handleRequest(final HttpServerExchange exchange) throws Exception {
+                    final SessionManager manager = exchange.getAttachment(SessionManager.ATTACHMENT_KEY);
+                    Session session = manager.createSession(exchange, sessionConfig);
+                    session.setMaxInactiveInterval(1);
+                }
+            });
+            DefaultServer.setRootHandler(handler);
+
+            HttpGet get = new HttpGet(DefaultServer.getDefaultServerURL() + "/notamatchingpath");
+            HttpResponse result = client.execute(get);
+            Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+            HttpClientUtils.readResponse(result);
+            Assert.assertEquals(1, sessionManager.getActiveSessionCount());
+
+            Assert.assertTrue(destroyed.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(SessionDestroyedReason.TIMEOUT, reason[0]);
+            Assert.assertEquals(0, sessionManager.getActiveSessionCount());
+            //the statistics are updated after the listeners have been notified
+            for (int i = 0; i < 100 && sessionManager.getExpiredSessionCount() == 0; ++i) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1, sessionManager.getExpiredSessionCount());
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.handlers.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.undertow.server.session.OffHeapSessionAttributeStorage;
+import io.undertow.server.session.SessionAttributeStorage;
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class OffHeapSessionAttributeStorageTestCase {
+
+    @Test
+    public void testAttributesAreSerialized() {
+        OffHeapSessionAttributeStorage storage = new OffHeapSessionAttributeStorage(4096, 1024);
+        SessionAttributeStorage.Attributes attributes = storage.createAttributes();
+        List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        Assert.assertNull(attributes.put("list", list));
+        Assert.assertEquals(4096, storage.getMemoryUsage());
+
+        //changes are not seen until the value is set again
+        list.add("c");
+        Assert.assertEquals(Arrays.asList("a", "b"), attributes.get("list"));
+        Assert.assertEquals(Arrays.asList("a", "b"), attributes.put("list", list));
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), attributes.get("list"));
+
+        Object notSerializable = new Object();
+        attributes.put("object", notSerializable);
+        Assert.assertSame(notSerializable, attributes.get("object"));
+        Assert.assertEquals(2, attributes.getNames().size());
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), attributes.remove("list"));
+        Assert.assertNull(attributes.get("list"));
+        Assert.assertEquals(0, storage.getUsedMemory());
+    }
+
+    @Test
+    public void testBlocksAreReused() {
+        OffHeapSessionAttributeStorage storage = new OffHeapSessionAttributeStorage(4096, 1024);
+        for (int i = 0; i < 100; ++i) {
+            SessionAttributeStorage.Attributes attributes = storage.createAttributes();
+            attributes.put("value", "value" + i);
+            Assert.assertEquals("value" + i, attributes.get("value"));
+            attributes.release();
+        }
+        Assert.assertEquals(4096, storage.getMemoryUsage());
+        Assert.assertEquals(0, storage.getUsedMemory());
+    }
+
+    @Test
+    public void testLargeValues() {
+        OffHeapSessionAttributeStorage storage = new OffHeapSessionAttributeStorage(4096, 1024);
+        SessionAttributeStorage.Attributes attributes = storage.createAttributes();
+        byte[] large = new byte[10000];
+        large[5000] = 1;
+        attributes.put("large", large);
+        Assert.assertTrue(storage.getMemoryUsage() > 10000);
+        Assert.assertArrayEquals(large, (byte[]) attributes.get("large"));
+        attributes.release();
+        Assert.assertEquals(0, storage.getMemoryUsage());
+    }
+
+    @Test
+    public void testPutAfterRelease() {
+        OffHeapSessionAttributeStorage storage = new OffHeapSessionAttributeStorage(4096, 1024);
+        SessionAttributeStorage.Attributes attributes = storage.createAttributes();
+        attributes.put("value", "value");
+        attributes.release();
+        Assert.assertEquals(0, storage.getUsedMemory());
+        try {
+            attributes.put("value", "other value");
+            Assert.fail("put after release must fail");
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertNull(attributes.get("value"));
+        Assert.assertEquals(0, storage.getUsedMemory());
+    }
+}
@@ -130,6 +130,45 @@ public class ServerSentEventTestCase {
         }
     }
 
+    @Test
+    public void testBroadcast() throws Exception {
+        TestHttpClient client = new TestHttpClient();
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final ServerSentEventHandler handler = new ServerSentEventHandler(new ServerSentEventConnectionCallback() {
+                @Override
+                public void connected(ServerSentEventConnection connection, String lastEventId) {
+                    latch.countDown();
+                }
+            });
+            DefaultServer.setRootHandler(handler);
+
+            HttpGet get = new HttpGet(DefaultServer.getDefaultServerURL() + "/");
+            HttpResponse result = client.execute(get);
+            Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            handler.broadcast("msg\n1", "ev", "1", new ServerSentEventConnection.EventCallback() {
+                @Override
+                public void done(ServerSentEventConnection connection, String data, String event, String id) {
+                    connection.shutdown();
+                }
+
+                @Override
+                public void failed(ServerSentEventConnection connection, String data, String event, String id, IOException e) {
+                    e.printStackTrace();
+                    IoUtils.safeClose(connection);
+                }
+            });
+            final String response = HttpClientUtils.readResponse(result);
+
+            Assert.assertEquals("id:1\nevent:ev\ndata:msg\ndata:1\n\n", response);
+
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
 
     @Test
     public void testProgressiveSSEWithCompression() throws IOException {
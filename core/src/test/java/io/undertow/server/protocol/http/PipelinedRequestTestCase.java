@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.protocol.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xnio.OptionMap;
+
+import io.undertow.UndertowOptions;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.testutils.DefaultServer;
+import io.undertow.testutils.HttpOneOnly;
+import io.undertow.testutils.ProxyIgnore;
+
+/**
+ * Tests that pipelined requests are answered in order when adaptive pipeline buffering is enabled, and that the
+ * connection keeps working once the client stops pipelining.
+ */
+@RunWith(DefaultServer.class)
+@HttpOneOnly
+@ProxyIgnore
+public class PipelinedRequestTestCase {
+
+    @BeforeClass
+    public static void setup() {
+        DefaultServer.setUndertowOptions(OptionMap.create(UndertowOptions.ADAPTIVE_PIPELINED_DATA_BUFFERING, true));
+        DefaultServer.setRootHandler(new HttpHandler() {
+            @Override
+            public void handleRequest(final HttpServerExchange exchange) {
+                //report if the response is going through the pipeline buffer
+                HttpServerConnection connection = (HttpServerConnection) exchange.getConnection();
+                String mode = connection.getPipelineBuffer() == null ? "direct" : "buffered";
+                exchange.getResponseSender().send("[" + exchange.getRequestPath() + ":" + mode + "]");
+            }
+        });
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        DefaultServer.setUndertowOptions(OptionMap.EMPTY);
+    }
+
+    @Test
+    public void testPipelinedRequests() throws IOException {
+        Socket socket = new Socket(DefaultServer.getDefaultServerAddress().getAddress(), DefaultServer.getDefaultServerAddress().getPort());
+        try {
+            socket.setSoTimeout(10000);
+            StringBuilder requests = new StringBuilder();
+            for (int i = 0; i < 3; ++i) {
+                requests.append("GET /path").append(i).append(" HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            }
+            socket.getOutputStream().write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+            String response = readUntil(socket.getInputStream(), "[/path2:");
+            Assert.assertTrue(response, response.contains("[/path0:buffered]"));
+            Assert.assertTrue(response, response.indexOf("[/path0:buffered]") < response.indexOf("[/path1:buffered]"));
+            Assert.assertTrue(response, response.indexOf("[/path1:buffered]") < response.indexOf("[/path2:buffered]"));
+
+            //the client has stopped pipelining, so the buffer must have been removed and the response written directly
+            socket.getOutputStream().write("GET /single HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            response = readUntil(socket.getInputStream(), "[/single:");
+            Assert.assertTrue(response, response.startsWith("HTTP/1.1 200 OK"));
+            Assert.assertTrue(response, response.contains("[/single:direct]"));
+
+            //once the client pipelines again the buffer is installed again
+            socket.getOutputStream().write("GET /a HTTP/1.1\r\nHost: localhost\r\n\r\nGET /b HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            response = readUntil(socket.getInputStream(), "[/b:");
+            Assert.assertTrue(response, response.contains("[/a:buffered]"));
+            Assert.assertTrue(response, response.indexOf("[/a:buffered]") < response.indexOf("[/b:buffered]"));
+
+            socket.getOutputStream().write("GET /single HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            response = readUntil(socket.getInputStream(), "[/single:");
+            Assert.assertTrue(response, response.contains("[/single:direct]"));
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static String readUntil(InputStream in, String terminator) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        byte[] buf = new byte[100];
+        //read until the terminator and the end of the response body that follows it
+        while (sb.indexOf(terminator) == -1 || sb.indexOf("]", sb.indexOf(terminator)) == -1) {
+            int r = in.read(buf);
+            if (r <= 0) {
+                Assert.fail("Connection closed before " + terminator + " was read, got " + sb);
+            }
+            sb.append(new String(buf, 0, r, StandardCharsets.US_ASCII));
+        }
+        return sb.toString();
+    }
+}
@@ -33,6 +33,7 @@ import org.xnio.OptionMap;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Basic test of the HTTP parser functionality.
@@ -49,6 +50,55 @@ public class SimpleParserTestCase {
 
     private final ParseState parseState = new ParseState(-1);
 
+    @Test
+    public void testLongPathAndHeaderValues() throws BadRequestException {
+        byte[] in = ("GET /a/long/path/segment/with-many-characters/%C3%A9/and/more;p1=v1?q=1 HTTP/1.1\r\n" +
+                "Cookie: JSESSIONID=0123456789abcdef0123456789abcdef; theme=dark;   lang=en-GB\r\n" +
+                "X-Folded: first part of the value\r\n   \tsecond part\r\n" +
+                "X-Control: abc\u0001defghijklmnop\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        for (boolean direct : new boolean[]{false, true}) {
+            ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(in.length) : ByteBuffer.allocate(in.length);
+            buffer.put(in);
+            buffer.flip();
+            final ParseState context = new ParseState(10);
+            HttpServerExchange result = new HttpServerExchange(null);
+            HttpRequestParser.instance(OptionMap.EMPTY).handle(buffer, context, result);
+            Assert.assertTrue(context.isComplete());
+            Assert.assertEquals("/a/long/path/segment/with-many-characters/%C3%A9/and/more;p1=v1", result.getRequestURI());
+            Assert.assertEquals("/a/long/path/segment/with-many-characters/\u00e9/and/more", result.getRequestPath());
+            Assert.assertEquals("q=1", result.getQueryString());
+            Assert.assertEquals("JSESSIONID=0123456789abcdef0123456789abcdef; theme=dark; lang=en-GB", result.getRequestHeaders().getFirst(Headers.COOKIE));
+            Assert.assertEquals("first part of the value second part", result.getRequestHeaders().getFirst("X-Folded"));
+            Assert.assertEquals("abc\u0001defghijklmnop", result.getRequestHeaders().getFirst("X-Control"));
+        }
+    }
+
+    @Test
+    public void testSharedHeaderValueCache() throws BadRequestException {
+        byte[] in = ("GET / HTTP/1.1\r\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:52.0) Gecko/20100101 Firefox/52.0\r\n" +
+                "Accept-Encoding: gzip, deflate\r\n" +
+                "X-Other: some value\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        HttpRequestParser parser = HttpRequestParser.instance(OptionMap.create(UndertowOptions.SHARED_HTTP_HEADERS_CACHE_SIZE, 64, UndertowOptions.HTTP_HEADERS_CACHE_SIZE, 0));
+        HttpServerExchange first = new HttpServerExchange(null);
+        parser.handle(ByteBuffer.wrap(in), new ParseState(0), first);
+        //a new parse state is the same as a new connection
+        HttpServerExchange second = new HttpServerExchange(null);
+        parser.handle(ByteBuffer.wrap(in), new ParseState(0), second);
+
+        Assert.assertEquals("Mozilla/5.0 (X11; Linux x86_64; rv:52.0) Gecko/20100101 Firefox/52.0", second.getRequestHeaders().getFirst(Headers.USER_AGENT));
+        Assert.assertSame(first.getRequestHeaders().getFirst(Headers.USER_AGENT), second.getRequestHeaders().getFirst(Headers.USER_AGENT));
+        Assert.assertSame(first.getRequestHeaders().getFirst(Headers.ACCEPT_ENCODING), second.getRequestHeaders().getFirst(Headers.ACCEPT_ENCODING));
+        Assert.assertEquals("some value", second.getRequestHeaders().getFirst("X-Other"));
+        Assert.assertNotSame(first.getRequestHeaders().getFirst("X-Other"), second.getRequestHeaders().getFirst("X-Other"));
+
+        byte[] other = ("GET / HTTP/1.1\r\n" +
+                "Accept-Encoding: gzip, deflate, br\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        HttpServerExchange third = new HttpServerExchange(null);
+        parser.handle(ByteBuffer.wrap(other), new ParseState(0), third);
+        Assert.assertEquals("gzip, deflate, br", third.getRequestHeaders().getFirst(Headers.ACCEPT_ENCODING));
+    }
+
     @Test
     public void testEncodedSlashDisallowed() throws BadRequestException {
         byte[] in = "GET /somepath%2FotherPath HTTP/1.1\r\n\r\n".getBytes();
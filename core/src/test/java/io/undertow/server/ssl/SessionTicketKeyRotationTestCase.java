@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.server.ssl;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import io.undertow.Undertow;
+import io.undertow.UndertowOptions;
+import io.undertow.protocols.ssl.JsseSSLEngineFactory;
+import io.undertow.protocols.ssl.SSLEngineFactory;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.testutils.DefaultServer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xnio.OptionMap;
+
+/**
+ * Tests that {@link Undertow} rotates the session ticket keys of its HTTPS listeners while it is running.
+ */
+public class SessionTicketKeyRotationTestCase {
+
+    @Test
+    public void testKeysAreRotatedWhileServerIsRunning() throws Exception {
+        TicketKeyFactory factory = new TicketKeyFactory();
+        Undertow server = Undertow.builder()
+                .addHttpsListener(0, DefaultServer.getHostAddress("default"), DefaultServer.getServerSslContext())
+                .addHttpsListener(0, DefaultServer.getHostAddress("default"), DefaultServer.getServerSslContext())
+                .setSslEngineFactory(factory)
+                .setServerOption(UndertowOptions.SSL_SESSION_TICKET_KEY_ROTATION_INTERVAL, 50)
+                .setHandler(new HttpHandler() {
+                    @Override
+                    public void handleRequest(HttpServerExchange exchange) {
+                    }
+                })
+                .build();
+        server.start();
+        try {
+            //both listeners share the factory, so the first key is only pushed once
+            Assert.assertEquals(1, factory.updates.size());
+            Assert.assertEquals(1, factory.updates.get(0).size());
+            long end = System.currentTimeMillis() + 10000;
+            while (factory.updates.size() < 3 && System.currentTimeMillis() < end) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(factory.updates.size() >= 3);
+            Assert.assertEquals(2, factory.updates.get(factory.updates.size() - 1).size());
+        } finally {
+            server.stop();
+        }
+        int updates = factory.updates.size();
+        Thread.sleep(200);
+        Assert.assertEquals(updates, factory.updates.size());
+    }
+
+    @Test
+    public void testKeysAreNotRotatedByDefault() {
+        TicketKeyFactory factory = new TicketKeyFactory();
+        Undertow server = Undertow.builder()
+                .addHttpsListener(0, DefaultServer.getHostAddress("default"), DefaultServer.getServerSslContext())
+                .setSslEngineFactory(factory)
+                .build();
+        server.start();
+        server.stop();
+        Assert.assertTrue(factory.updates.isEmpty());
+    }
+
+    private static final class TicketKeyFactory implements SSLEngineFactory {
+
+        final List<List<byte[]>> updates = new CopyOnWriteArrayList<>();
+
+        @Override
+        public SSLEngine createSSLEngine(SSLContext sslContext, OptionMap optionMap, InetSocketAddress peerAddress) {
+            return JsseSSLEngineFactory.INSTANCE.createSSLEngine(sslContext, optionMap, peerAddress);
+        }
+
+        @Override
+        public void setSessionTicketKeys(List<byte[]> keys) {
+            updates.add(keys);
+        }
+    }
+}
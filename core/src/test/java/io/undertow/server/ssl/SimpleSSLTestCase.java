@@ -18,6 +18,7 @@
 
 package io.undertow.server.ssl;
 
+import io.undertow.UndertowOptions;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.testutils.DefaultServer;
@@ -32,6 +33,7 @@ import org.apache.http.client.methods.HttpGet;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.xnio.OptionMap;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
@@ -100,4 +102,34 @@ public class SimpleSSLTestCase {
         }
     }
 
+    @Test
+    public void testBatchedWrap() throws IOException, GeneralSecurityException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; ++i) {
+            sb.append("Hello World ").append(i).append('\n');
+        }
+        final String message = sb.toString();
+        DefaultServer.setRootHandler(new HttpHandler() {
+            @Override
+            public void handleRequest(final HttpServerExchange exchange) throws Exception {
+                exchange.getResponseSender().send(message);
+            }
+        });
+
+        DefaultServer.startSSLServer(OptionMap.create(UndertowOptions.SSL_BATCHED_WRAP_RECORDS, 4));
+        TestHttpClient client = new TestHttpClient();
+        client.setSSLContext(DefaultServer.getClientSSLContext());
+        try {
+            for (int i = 0; i < 3; ++i) {
+                HttpGet get = new HttpGet(DefaultServer.getDefaultServerSSLAddress());
+                HttpResponse result = client.execute(get);
+                Assert.assertEquals(StatusCodes.OK, result.getStatusLine().getStatusCode());
+                Assert.assertEquals(message, HttpClientUtils.readResponse(result));
+            }
+        } finally {
+            client.getConnectionManager().shutdown();
+            DefaultServer.stopSSLServer();
+        }
+    }
+
 }
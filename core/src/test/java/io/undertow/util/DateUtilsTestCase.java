@@ -23,8 +23,10 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
 import java.util.TimeZone;
 
 /**
@@ -82,6 +84,16 @@ public class DateUtilsTestCase {
 
     }
 
+    @Test
+    public void testCommonLogFormat() {
+        SimpleDateFormat format = new SimpleDateFormat("[dd/MMM/yyyy:HH:mm:ss Z]", Locale.US);
+        long time = 1396257889000L;
+        for (long offset : new long[] {0, 1, 999, 1000, 1500, 60000, 0}) {
+            Assert.assertEquals(format.format(new Date(time + offset)), DateUtils.toCommonLogFormat(time + offset));
+        }
+        Assert.assertEquals(format.format(new Date(time)), DateUtils.toCommonLogFormat(new Date(time + 10)));
+    }
+
     @Test
     @Ignore("This test can fail if the machine pauses/swaps at the wrong time")
     public void testPerformance() {
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.util;
+
+import java.util.concurrent.CountDownLatch;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class LatencyHistogramTestCase {
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long value = 0; value < 100000; ++value) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long highest = LatencyHistogram.highestEquivalentValue(index);
+            Assert.assertTrue(highest >= value);
+            Assert.assertEquals(index, LatencyHistogram.bucketIndex(highest));
+            //relative error is bounded by the number of sub buckets
+            Assert.assertTrue(highest - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; ++i) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(1000L, snapshot.getMin());
+        Assert.assertEquals(1000000L, snapshot.getMax());
+        Assert.assertEquals(500500000L, snapshot.getTotal());
+        assertWithinError(500000, snapshot.get50thPercentile());
+        assertWithinError(990000, snapshot.get99thPercentile());
+        assertWithinError(999000, snapshot.get999thPercentile());
+        Assert.assertEquals(1000000L, snapshot.getValueAtPercentile(100));
+        Assert.assertEquals(1000L, snapshot.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void testEmptyAndMerge() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        Assert.assertEquals(0, first.snapshot().getCount());
+        Assert.assertEquals(0, first.snapshot().get99thPercentile());
+        first.record(10);
+        second.record(20);
+        second.record(-5);
+        LatencyHistogram.Snapshot merged = first.snapshot().merge(second.snapshot());
+        Assert.assertEquals(3, merged.getCount());
+        Assert.assertEquals(0, merged.getMin());
+        Assert.assertEquals(20, merged.getMax());
+        Assert.assertEquals(30, merged.getTotal());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 8;
+        final int perThread = 10000;
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; ++i) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < perThread; ++j) {
+                        histogram.record(j);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(threads * perThread, snapshot.getCount());
+        Assert.assertEquals(perThread - 1, snapshot.getMax());
+        Assert.assertEquals(0, snapshot.getMin());
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        Assert.assertTrue("expected " + expected + " got " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.websockets.core;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+@Category(UnitTest.class)
+public class UTF8OutputTestCase {
+
+    private static final String ASCII = "{\"id\":12345,\"name\":\"some json that is all ascii\",\"values\":[1,2,3]}";
+    private static final String MIXED = "{\"name\":\"gr\u00fc\u00dfe \u20ac \ud83d\ude00\"," + ASCII + "}";
+
+    @Test
+    public void testAscii() {
+        Assert.assertEquals(ASCII, new UTF8Output(ByteBuffer.wrap(ASCII.getBytes(StandardCharsets.UTF_8))).extract());
+        Assert.assertEquals(ASCII, new UTF8Output(direct(ASCII.getBytes(StandardCharsets.UTF_8))).extract());
+        Assert.assertEquals("a", new UTF8Output(ByteBuffer.wrap(new byte[]{'a'})).extract());
+    }
+
+    @Test
+    public void testMixed() {
+        Assert.assertEquals(MIXED, new UTF8Output(ByteBuffer.wrap(MIXED.getBytes(StandardCharsets.UTF_8))).extract());
+        Assert.assertEquals(MIXED, new UTF8Output(direct(MIXED.getBytes(StandardCharsets.UTF_8))).extract());
+    }
+
+    @Test
+    public void testSplitAtEveryPosition() {
+        byte[] bytes = MIXED.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i <= bytes.length; ++i) {
+            UTF8Output output = new UTF8Output();
+            output.write(ByteBuffer.wrap(bytes, 0, i));
+            output.write(ByteBuffer.wrap(bytes, i, bytes.length - i));
+            Assert.assertEquals(MIXED, output.extract());
+            Assert.assertFalse(output.hasData());
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        UTF8Output output = new UTF8Output();
+        output.write(ByteBuffer.wrap(ASCII.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue(output.hasData());
+        Assert.assertEquals(ASCII, output.extract());
+        output.write(ByteBuffer.wrap(MIXED.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(MIXED, output.extract());
+        Assert.assertEquals("", output.extract());
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+}
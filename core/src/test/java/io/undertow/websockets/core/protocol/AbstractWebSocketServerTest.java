@@ -26,6 +26,7 @@ import io.undertow.websockets.WebSocketProtocolHandshakeHandler;
 import io.undertow.websockets.core.AbstractReceiveListener;
 import io.undertow.websockets.core.BufferedBinaryMessage;
 import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.WebSocketBroadcaster;
 import io.undertow.websockets.core.WebSocketCallback;
 import io.undertow.websockets.core.WebSocketChannel;
 import io.undertow.websockets.core.WebSockets;
@@ -134,6 +135,39 @@ public class AbstractWebSocketServerTest {
         client.destroy();
     }
 
+    @Test
+    public void testBroadcast() throws Exception {
+        if (getVersion() == WebSocketVersion.V00) {
+            // ignore 00 tests for now
+            return;
+        }
+        final WebSocketBroadcaster broadcaster = new WebSocketBroadcaster();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; ++i) {
+            sb.append((char) ('a' + i % 26));
+        }
+        final String message = sb.toString();
+        DefaultServer.setRootHandler(new WebSocketProtocolHandshakeHandler(new WebSocketConnectionCallback() {
+            @Override
+            public void onConnect(final WebSocketHttpExchange exchange, final WebSocketChannel channel) {
+                channel.getReceiveSetter().set(new AbstractReceiveListener() {
+                    @Override
+                    protected void onFullTextMessage(WebSocketChannel channel, BufferedTextMessage received) throws IOException {
+                        broadcaster.sendText(message, channel.getPeerConnections(), null);
+                    }
+                });
+                channel.resumeReceives();
+            }
+        }));
+
+        final FutureResult<?> latch = new FutureResult();
+        WebSocketTestClient client = new WebSocketTestClient(getVersion(), new URI("ws://" + NetworkUtils.formatPossibleIpv6Address(DefaultServer.getHostAddress("default")) + ":" + DefaultServer.getHostPort("default") + "/"));
+        client.connect();
+        client.send(new TextWebSocketFrame(Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII)), new FrameChecker(TextWebSocketFrame.class, message.getBytes(CharsetUtil.US_ASCII), latch));
+        latch.getIoFuture().get();
+        client.destroy();
+    }
+
     @Test
     public void testCloseFrame() throws Exception {
         if (getVersion() == WebSocketVersion.V00) {
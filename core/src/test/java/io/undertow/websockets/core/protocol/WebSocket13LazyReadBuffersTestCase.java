@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.websockets.core.protocol;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.CharsetUtil;
+import io.undertow.UndertowOptions;
+import io.undertow.testutils.DefaultServer;
+import io.undertow.util.NetworkUtils;
+import io.undertow.websockets.WebSocketConnectionCallback;
+import io.undertow.websockets.WebSocketProtocolHandshakeHandler;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import io.undertow.websockets.spi.WebSocketHttpExchange;
+import io.undertow.websockets.utils.FrameChecker;
+import io.undertow.websockets.utils.WebSocketTestClient;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.xnio.FutureResult;
+import org.xnio.OptionMap;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Runs the web socket tests with {@link UndertowOptions#LAZY_READ_BUFFERS} enabled.
+ */
+public class WebSocket13LazyReadBuffersTestCase extends WebSocket13ServerTestCase {
+
+    private static OptionMap existing;
+
+    @BeforeClass
+    public static void setup() {
+        existing = DefaultServer.getUndertowOptions();
+        DefaultServer.setUndertowOptions(OptionMap.create(UndertowOptions.LAZY_READ_BUFFERS, true));
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        DefaultServer.setUndertowOptions(existing);
+    }
+
+    @Test
+    public void testLargeText() throws Exception {
+        DefaultServer.setRootHandler(new WebSocketProtocolHandshakeHandler(new WebSocketConnectionCallback() {
+            @Override
+            public void onConnect(final WebSocketHttpExchange exchange, final WebSocketChannel channel) {
+                channel.getReceiveSetter().set(new AbstractReceiveListener() {
+                    @Override
+                    protected void onFullTextMessage(WebSocketChannel channel, BufferedTextMessage message) throws IOException {
+                        WebSockets.sendText(message.getData(), channel, null);
+                    }
+                });
+                channel.resumeReceives();
+            }
+        }));
+
+        //larger than the scratch buffer, so some of it has to be read directly into the pooled buffer
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; ++i) {
+            sb.append((char) ('a' + i % 26));
+        }
+        final String message = sb.toString();
+        final FutureResult<?> latch = new FutureResult();
+        WebSocketTestClient client = new WebSocketTestClient(getVersion(), new URI("ws://" + NetworkUtils.formatPossibleIpv6Address(DefaultServer.getHostAddress("default")) + ":" + DefaultServer.getHostPort("default") + "/"));
+        client.connect();
+        client.send(new TextWebSocketFrame(Unpooled.copiedBuffer(message, CharsetUtil.US_ASCII)), new FrameChecker(TextWebSocketFrame.class, message.getBytes(CharsetUtil.US_ASCII), latch));
+        latch.getIoFuture().get();
+        client.destroy();
+    }
+}
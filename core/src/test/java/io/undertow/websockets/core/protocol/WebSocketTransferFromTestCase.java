@@ -0,0 +1,319 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.websockets.core.protocol;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.testutils.DefaultServer;
+import io.undertow.testutils.HttpOneOnly;
+import io.undertow.websockets.WebSocketConnectionCallback;
+import io.undertow.websockets.WebSocketProtocolHandshakeHandler;
+import io.undertow.websockets.client.WebSocketClient;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedBinaryMessage;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.StreamSinkFrameChannel;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSocketFrameType;
+import io.undertow.websockets.core.WebSockets;
+import io.undertow.websockets.spi.WebSocketHttpExchange;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+import org.xnio.Pooled;
+import org.xnio.Xnio;
+import org.xnio.XnioWorker;
+
+/**
+ * Tests sending a file through a framed sink channel with
+ * {@link io.undertow.server.protocol.framed.AbstractFramedStreamSinkChannel#transferFrom(FileChannel, long, long)},
+ * which reads the file straight into the frame buffer.
+ */
+@RunWith(DefaultServer.class)
+@HttpOneOnly
+public class WebSocketTransferFromTestCase {
+
+    private static XnioWorker worker;
+    private static Path file;
+    private static byte[] fileData;
+    private static int bufferSize;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        bufferSize = DefaultServer.getBufferPool().getBufferSize();
+        //larger than several frame buffers, and not a multiple of the buffer size
+        fileData = new byte[bufferSize * 3 + 1234];
+        new Random(7).nextBytes(fileData);
+        file = Files.createTempFile("transferFrom", ".bin");
+        Files.write(file, fileData);
+
+        worker = Xnio.getInstance(DefaultServer.class.getClassLoader()).createWorker(OptionMap.create(Options.WORKER_IO_THREADS, 1));
+
+        DefaultServer.setRootHandler(new WebSocketProtocolHandshakeHandler(new WebSocketConnectionCallback() {
+            @Override
+            public void onConnect(final WebSocketHttpExchange exchange, final WebSocketChannel channel) {
+                channel.getReceiveSetter().set(new AbstractReceiveListener() {
+                    @Override
+                    protected void onFullTextMessage(final WebSocketChannel channel, BufferedTextMessage message) {
+                        //the request is "position count maxRead"
+                        final String[] parts = message.getData().split(" ");
+                        channel.getWorker().execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                sendFile(channel, Long.parseLong(parts[0]), Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+                            }
+                        });
+                    }
+                });
+                channel.resumeReceives();
+            }
+        }));
+    }
+
+    @AfterClass
+    public static void cleanup() throws IOException {
+        worker.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    private static void sendFile(WebSocketChannel channel, long position, long count, int maxRead) {
+        FileChannel src = null;
+        try {
+            src = FileChannel.open(file, StandardOpenOption.READ);
+            if (maxRead > 0) {
+                src = new ShortReadFileChannel(src, maxRead);
+            }
+            StreamSinkFrameChannel sink = channel.send(WebSocketFrameType.BINARY);
+            long remaining = count;
+            while (remaining > 0) {
+                long res = sink.transferFrom(src, position, remaining);
+                if (res > 0) {
+                    position += res;
+                    remaining -= res;
+                } else if (position >= src.size()) {
+                    //the end of the file was reached before count bytes were sent
+                    break;
+                } else {
+                    //the frame buffer is waiting to be written
+                    sink.awaitWritable();
+                }
+            }
+            sink.shutdownWrites();
+            while (!sink.flush()) {
+                sink.awaitWritable();
+            }
+        } catch (IOException e) {
+            IoUtils.safeClose(channel);
+        } finally {
+            IoUtils.safeClose(src);
+        }
+    }
+
+    @Test
+    public void testWholeFile() throws Exception {
+        runTest(0, fileData.length, 0);
+    }
+
+    @Test
+    public void testCountLargerThanBuffer() throws Exception {
+        runTest(1000, bufferSize * 2 + 7, 0);
+    }
+
+    @Test
+    public void testCountSmallerThanBuffer() throws Exception {
+        runTest(17, 100, 0);
+    }
+
+    @Test
+    public void testShortReads() throws Exception {
+        runTest(3, fileData.length - 10, 1000);
+    }
+
+    @Test
+    public void testEndOfFileBeforeCount() throws Exception {
+        runTest(fileData.length - 500, 10000, 0);
+        runTest(fileData.length - 500, 10000, 7);
+    }
+
+    private void runTest(long position, long count, int maxRead) throws Exception {
+        final LinkedBlockingDeque<Object> results = new LinkedBlockingDeque<>();
+        WebSocketChannel client = WebSocketClient.connectionBuilder(worker, DefaultServer.getBufferPool(), new URI(DefaultServer.getDefaultServerURL())).connect().get();
+        try {
+            client.getReceiveSetter().set(new AbstractReceiveListener() {
+                @Override
+                protected void onFullBinaryMessage(WebSocketChannel channel, BufferedBinaryMessage message) {
+                    Pooled<ByteBuffer[]> data = message.getData();
+                    try {
+                        ByteBuffer merged = WebSockets.mergeBuffers(data.getResource());
+                        byte[] bytes = new byte[merged.remaining()];
+                        merged.get(bytes);
+                        results.add(bytes);
+                    } finally {
+                        data.free();
+                    }
+                }
+
+                @Override
+                protected void onError(WebSocketChannel channel, Throwable error) {
+                    results.add(error);
+                }
+            });
+            client.resumeReceives();
+            WebSockets.sendTextBlocking(position + " " + count + " " + maxRead, client);
+
+            Object result = results.poll(10, TimeUnit.SECONDS);
+            Assert.assertNotNull("no response received", result);
+            if (result instanceof Throwable) {
+                throw new AssertionError(result);
+            }
+            int end = (int) Math.min(fileData.length, position + count);
+            Assert.assertArrayEquals(Arrays.copyOfRange(fileData, (int) position, end), (byte[]) result);
+        } finally {
+            IoUtils.safeClose(client);
+        }
+    }
+
+    /**
+     * A file channel that never reads more than a given number of bytes at once.
+     */
+    private static final class ShortReadFileChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        private final int maxRead;
+
+        ShortReadFileChannel(FileChannel delegate, int maxRead) {
+            this.delegate = delegate;
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            if (dst.remaining() <= maxRead) {
+                return delegate.read(dst, position);
+            }
+            int oldLimit = dst.limit();
+            dst.limit(dst.position() + maxRead);
+            try {
+                return delegate.read(dst, position);
+            } finally {
+                dst.limit(oldLimit);
+            }
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
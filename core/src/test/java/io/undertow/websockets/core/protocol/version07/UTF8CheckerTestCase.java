@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.websockets.core.protocol.version07;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import io.undertow.testutils.category.UnitTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(UnitTest.class)
+public class UTF8CheckerTestCase {
+
+    private static final byte[][] INVALID = {
+            {(byte) 0xFF},
+            {(byte) 0x80},
+            {(byte) 0xC0, (byte) 0x80},
+            {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+            {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+    };
+
+    @Test
+    public void testValid() throws Exception {
+        String text = "0123456789abcdef gr\u00fc\u00dfe \u20ac \ud83d\ude00 0123456789abcdef";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        check(ByteBuffer.wrap(bytes), 0, bytes.length);
+        check(direct(bytes), 0, bytes.length);
+    }
+
+    @Test
+    public void testInvalidAfterAsciiBlock() {
+        //the invalid sequence is placed at every offset around one and two eight byte ASCII blocks
+        for (byte[] invalid : INVALID) {
+            for (int prefix = 0; prefix <= 17; ++prefix) {
+                byte[] bytes = new byte[prefix + invalid.length + 9];
+                for (int i = 0; i < bytes.length; ++i) {
+                    bytes[i] = 'a';
+                }
+                System.arraycopy(invalid, 0, bytes, prefix, invalid.length);
+                assertInvalid(ByteBuffer.wrap(bytes), 0, bytes.length);
+                assertInvalid(direct(bytes), 0, bytes.length);
+                //check a range that does not start at the beginning of the buffer
+                byte[] shifted = new byte[bytes.length + 3];
+                System.arraycopy(bytes, 0, shifted, 3, bytes.length);
+                shifted[0] = (byte) 0xFF;
+                assertInvalid(ByteBuffer.wrap(shifted), 3, bytes.length);
+            }
+        }
+    }
+
+    @Test
+    public void testCodePointSplitAcrossBuffers() throws Exception {
+        String text = "01234567\u20ac01234567\ud83d\ude0001234567\u00e9";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i <= bytes.length; ++i) {
+            for (int j = i; j <= bytes.length; ++j) {
+                UTF8Checker checker = new UTF8Checker();
+                checker.afterRead(ByteBuffer.wrap(bytes), 0, i);
+                checker.afterRead(direct(bytes), i, j - i);
+                checker.afterRead(ByteBuffer.wrap(bytes), j, bytes.length - j);
+                checker.complete();
+            }
+        }
+    }
+
+    @Test
+    public void testTruncatedCodePoint() throws Exception {
+        byte[] bytes = "01234567\u20ac".getBytes(StandardCharsets.UTF_8);
+        UTF8Checker checker = new UTF8Checker();
+        checker.afterRead(ByteBuffer.wrap(bytes), 0, bytes.length - 1);
+        try {
+            checker.complete();
+            Assert.fail("truncated code point was accepted");
+        } catch (UnsupportedEncodingException expected) {
+        }
+    }
+
+    private static void check(ByteBuffer buffer, int position, int length) throws Exception {
+        UTF8Checker checker = new UTF8Checker();
+        checker.afterRead(buffer, position, length);
+        checker.complete();
+    }
+
+    private static void assertInvalid(ByteBuffer buffer, int position, int length) {
+        try {
+            check(buffer, position, length);
+            Assert.fail("invalid UTF-8 was accepted");
+        } catch (Exception expected) {
+            Assert.assertTrue(expected instanceof UnsupportedEncodingException);
+        }
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+}
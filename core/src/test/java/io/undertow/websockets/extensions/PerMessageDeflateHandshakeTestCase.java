@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2017 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.undertow.websockets.extensions;
+
+import io.undertow.testutils.category.UnitTest;
+import io.undertow.websockets.WebSocketExtension;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collections;
+import java.util.List;
+
+@Category(UnitTest.class)
+public class PerMessageDeflateHandshakeTestCase {
+
+    @Test
+    public void testDefaultNegotiation() {
+        PerMessageDeflateHandshake handshake = new PerMessageDeflateHandshake();
+        Assert.assertEquals("permessage-deflate", negotiate(handshake, "permessage-deflate"));
+        Assert.assertEquals("permessage-deflate; client_no_context_takeover", negotiate(handshake, "permessage-deflate; client_no_context_takeover"));
+        //the previous offer must not change what is negotiated for later connections
+        Assert.assertEquals("permessage-deflate", negotiate(handshake, "permessage-deflate"));
+    }
+
+    @Test
+    public void testNoContextTakeoverIsRequested() {
+        PerMessageDeflateHandshake handshake = new PerMessageDeflateHandshake(false, PerMessageDeflateHandshake.DEFAULT_DEFLATER, false, false);
+        Assert.assertEquals("permessage-deflate; server_no_context_takeover; client_no_context_takeover", negotiate(handshake, "permessage-deflate"));
+        Assert.assertEquals("permessage-deflate; client_no_context_takeover; server_no_context_takeover", negotiate(handshake, "permessage-deflate; client_no_context_takeover"));
+
+        handshake = new PerMessageDeflateHandshake(false, PerMessageDeflateHandshake.DEFAULT_DEFLATER, false, true);
+        Assert.assertEquals("permessage-deflate; server_no_context_takeover", negotiate(handshake, "permessage-deflate"));
+    }
+
+    private static String negotiate(PerMessageDeflateHandshake handshake, String offer) {
+        List<WebSocketExtension> extensions = WebSocketExtension.parse(offer);
+        WebSocketExtension accepted = handshake.accept(extensions.get(0));
+        return WebSocketExtension.toExtensionHeader(Collections.singletonList(accepted));
+    }
+}
@@ -31,6 +31,7 @@ public class InMemorySessionManagerFactory implements SessionManagerFactory {
 
     private final int maxSessions;
     private final boolean expireOldestUnusedSessionOnMax;
+    private final boolean timingWheelExpiry;
 
     public InMemorySessionManagerFactory() {
         this(-1, false);
@@ -41,12 +42,17 @@ public class InMemorySessionManagerFactory implements SessionManagerFactory {
     }
 
     public InMemorySessionManagerFactory(int maxSessions, boolean expireOldestUnusedSessionOnMax) {
+        this(maxSessions, expireOldestUnusedSessionOnMax, false);
+    }
+
+    public InMemorySessionManagerFactory(int maxSessions, boolean expireOldestUnusedSessionOnMax, boolean timingWheelExpiry) {
         this.maxSessions = maxSessions;
         this.expireOldestUnusedSessionOnMax = expireOldestUnusedSessionOnMax;
+        this.timingWheelExpiry = timingWheelExpiry;
     }
 
     @Override
     public SessionManager createSessionManager(Deployment deployment) {
-        return new InMemorySessionManager(deployment.getDeploymentInfo().getSessionIdGenerator(), deployment.getDeploymentInfo().getDeploymentName(), maxSessions, expireOldestUnusedSessionOnMax, deployment.getDeploymentInfo().getMetricsCollector() != null);
+        return new InMemorySessionManager(deployment.getDeploymentInfo().getSessionIdGenerator(), deployment.getDeploymentInfo().getDeploymentName(), maxSessions, expireOldestUnusedSessionOnMax, deployment.getDeploymentInfo().getMetricsCollector() != null, timingWheelExpiry);
     }
 }